@@ -0,0 +1,251 @@
+package net.snortum.homefinance.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import org.sqlite.SQLiteConfig;
+
+import net.snortum.homefinance.model.EntryType;
+import net.snortum.homefinance.util.ConnectionLease;
+import net.snortum.homefinance.util.ConnectionPool;
+import net.snortum.homefinance.util.ConnectionSource;
+import net.snortum.homefinance.util.DbConnection;
+import net.snortum.homefinance.util.LedgerGenerator;
+
+/**
+ * The SQLite databases the benchmarks run against. A template database of
+ * each size is built once and kept in {@value #DIR}; each benchmark trial
+ * gets its own copy, so benchmarks that write do not change the next run.
+ * <p>
+ * The ledgers come from {@link LedgerGenerator}, with a fixed seed, over
+ * {@value #YEARS} years ending on {@link #LAST_DATE}.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class BenchDatabase {
+
+	/** Where the databases are kept */
+	public static final String DIR = "target/jmh-db";
+
+	/** The last entry date */
+	public static final LocalDate LAST_DATE = LocalDate.of(2025, 12, 31);
+
+	/** The number of years of entries */
+	public static final int YEARS = 5;
+
+	/** The number of categories */
+	public static final int CATEGORIES = LedgerGenerator.CATEGORIES.size();
+
+	private static final long SEED = 20261018L;
+
+	private static final String OUT_IDS_SQL = "SELECT id FROM entry WHERE type = ? ORDER BY id";
+	private static final String CHECKPOINT_SQL = "PRAGMA wal_checkpoint(TRUNCATE)";
+
+	private BenchDatabase() {
+	}
+
+	/**
+	 * @return the first entry date
+	 */
+	public static LocalDate firstDate() {
+		return generator(0).getFirstDate();
+	}
+
+	/**
+	 * @param i a number from 0 to {@link #CATEGORIES} - 1
+	 * @return the description of that category
+	 */
+	public static String categoryDescription(int i) {
+		return LedgerGenerator.CATEGORIES.get(i);
+	}
+
+	/**
+	 * Copy the template database with {@code rows} entries, building it first
+	 * if need be, and open a pool on the copy.
+	 *
+	 * @param rows the number of entries
+	 * @return the copy, with a pool of {@value DbConnection#READERS} readers
+	 */
+	public static Trial open(int rows) {
+		try {
+			Path template = template(rows);
+			Path copy = Files.createTempFile(template.getParent(), "trial-" + rows + "-", ".db");
+			Files.copy(template, copy, StandardCopyOption.REPLACE_EXISTING);
+			return new Trial(copy);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static LedgerGenerator generator(int rows) {
+		return new LedgerGenerator.Builder()
+				.seed(SEED)
+				.years(YEARS)
+				.entries(rows)
+				.lastDate(LAST_DATE)
+				.build();
+	}
+
+	private static synchronized Path template(int rows) throws IOException {
+		Path dir = Files.createDirectories(Paths.get(DIR));
+		Path template = dir.resolve("ledger-" + rows + ".db");
+
+		if (Files.exists(template)) {
+			return template;
+		}
+
+		// Build under another name, so a build that fails part way is not used
+		Path building = dir.resolve("ledger-" + rows + ".building");
+		Files.deleteIfExists(building);
+		ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + building, DbConnection.READERS);
+
+		try {
+			fill(pool, rows);
+			checkpoint(pool);
+		} finally {
+			pool.close();
+		}
+
+		Files.move(building, template, StandardCopyOption.REPLACE_EXISTING);
+		Files.deleteIfExists(Paths.get(building + "-wal"));
+		Files.deleteIfExists(Paths.get(building + "-shm"));
+		return template;
+	}
+
+	private static void fill(ConnectionPool pool, int rows) {
+		if (!generator(rows).generate(pool)) {
+			throw new IllegalStateException("Could not generate the benchmark ledger");
+		}
+	}
+
+	// Only the database file is copied, so nothing may be left in the WAL
+	private static void checkpoint(ConnectionPool pool) {
+		try (ConnectionLease lease = pool.writer();
+				PreparedStatement stmnt = lease.get().prepareStatement(CHECKPOINT_SQL);
+				ResultSet rs = stmnt.executeQuery()) {
+			if (!rs.next() || rs.getInt(1) != 0) {
+				throw new IllegalStateException("Could not checkpoint the benchmark ledger");
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not checkpoint the benchmark ledger", e);
+		}
+	}
+
+	/**
+	 * One trial's copy of a template database. Closing it closes the pool and
+	 * deletes the copy.
+	 */
+	public static class Trial implements AutoCloseable {
+		private final Path file;
+		private final ConnectionPool pool;
+		private final int[] outIds;
+		private Connection single;
+
+		private Trial(Path file) {
+			this.file = file;
+			pool = new ConnectionPool("jdbc:sqlite:" + file, DbConnection.READERS);
+			try {
+				outIds = readOutIds(pool);
+			} catch (IllegalStateException e) {
+				pool.close();
+				throw e;
+			}
+		}
+
+		public ConnectionPool getPool() {
+			return pool;
+		}
+
+		/**
+		 * @return the copy of the template database
+		 */
+		public Path getFile() {
+			return file;
+		}
+
+		/**
+		 * The baseline the pool is compared with: one connection, shared by
+		 * every thread, as the application had before the pool.
+		 *
+		 * @return a source of a single connection to the copy
+		 */
+		public synchronized ConnectionSource getSingleSource() {
+			if (single == null) {
+				SQLiteConfig config = new SQLiteConfig();
+				config.setBusyTimeout(ConnectionPool.BUSY_TIMEOUT_MILLIS);
+				try {
+					single = config.createConnection("jdbc:sqlite:" + file);
+				} catch (SQLException e) {
+					throw new IllegalStateException("Could not open " + file, e);
+				}
+			}
+			return ConnectionSource.of(single);
+		}
+
+		/**
+		 * The DAO benchmarks use {@code EntryOutDao}, which only reads and
+		 * updates withdrawals, so the IDs they use must be of withdrawals.
+		 *
+		 * @return the ID of a withdrawal in the template ledger, at random
+		 */
+		public int randomOutId() {
+			return outIds[ThreadLocalRandom.current().nextInt(outIds.length)];
+		}
+
+		private static int[] readOutIds(ConnectionPool pool) {
+			IntStream.Builder ids = IntStream.builder();
+			try (ConnectionLease lease = pool.reader();
+					PreparedStatement stmnt = lease.get().prepareStatement(OUT_IDS_SQL)) {
+				stmnt.setInt(1, EntryType.OUT.getCode());
+				try (ResultSet rs = stmnt.executeQuery()) {
+					while (rs.next()) {
+						ids.add(rs.getInt(1));
+					}
+				}
+			} catch (SQLException e) {
+				throw new IllegalStateException("Could not read the withdrawal IDs", e);
+			}
+
+			int[] outIds = ids.build().toArray();
+			if (outIds.length == 0) {
+				throw new IllegalStateException("The benchmark ledger has no withdrawals");
+			}
+			return outIds;
+		}
+
+		@Override
+		public void close() {
+			pool.close();
+
+			try {
+				synchronized (this) {
+					if (single != null) {
+						single.close();
+					}
+				}
+			} catch (SQLException e) {
+				throw new IllegalStateException("Could not close " + file, e);
+			}
+
+			try {
+				Files.deleteIfExists(file);
+				Files.deleteIfExists(Paths.get(file + "-wal"));
+				Files.deleteIfExists(Paths.get(file + "-shm"));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
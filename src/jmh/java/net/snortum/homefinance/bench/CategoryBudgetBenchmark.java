@@ -0,0 +1,95 @@
+package net.snortum.homefinance.bench;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.snortum.homefinance.dao.BudgetDao;
+import net.snortum.homefinance.dao.CategoryDao;
+import net.snortum.homefinance.model.Budget;
+import net.snortum.homefinance.model.Category;
+
+/**
+ * {@link CategoryDao} reads, which come from the category cache, and
+ * {@link BudgetDao} reads, including the budget actuals report, by ledger
+ * size.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryBudgetBenchmark {
+
+	@Param({ "10000", "100000", "1000000" })
+	private int rows;
+
+	private BenchDatabase.Trial trial;
+	private CategoryDao categoryDao;
+	private BudgetDao budgetDao;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		trial = BenchDatabase.open(rows);
+		categoryDao = new CategoryDao(trial.getPool());
+		budgetDao = new BudgetDao(trial.getPool());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		trial.close();
+	}
+
+	@Benchmark
+	public Optional<Category> categoryRead() {
+		return categoryDao.read(ThreadLocalRandom.current().nextInt(BenchDatabase.CATEGORIES) + 1);
+	}
+
+	@Benchmark
+	public Optional<Category> categoryReadByDescription() {
+		return categoryDao.readByDescription(BenchDatabase.categoryDescription(
+				ThreadLocalRandom.current().nextInt(BenchDatabase.CATEGORIES)));
+	}
+
+	@Benchmark
+	public List<Category> categoryList() {
+		return categoryDao.list();
+	}
+
+	@Benchmark
+	public List<Budget> budgetList() {
+		return budgetDao.list();
+	}
+
+	@Benchmark
+	public List<Budget> budgetActualsMonth() {
+		LocalDate from = BenchDatabase.LAST_DATE.withDayOfMonth(1);
+		return budgetDao.listActuals(from, BenchDatabase.LAST_DATE);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public List<Budget> budgetActualsAllYears() {
+		return budgetDao.listActuals(BenchDatabase.firstDate(), BenchDatabase.LAST_DATE);
+	}
+}
@@ -0,0 +1,133 @@
+package net.snortum.homefinance.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.snortum.homefinance.controller.EntryValidator;
+import net.snortum.homefinance.io.CsvReader;
+import net.snortum.homefinance.io.MappedCsvReader;
+
+/**
+ * Parse the same bank statement with {@link CsvReader}, over a
+ * BufferedReader, and with {@link MappedCsvReader}. Both read the date,
+ * description and amount of every row: the first with {@link LocalDate#parse}
+ * and {@link EntryValidator#parseAmountText(String)}, the second from the
+ * bytes. The statements are generated once and kept in
+ * {@value BenchDatabase#DIR}.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParseBenchmark {
+
+	private static final String HEADER = "Date,Description,Amount,Category,Comment";
+	private static final long SEED = 20261018L;
+
+	@Param({ "100000", "1000000" })
+	private int rows;
+
+	private Path file;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		file = statement(rows);
+	}
+
+	@Benchmark
+	public long bufferedReader() throws IOException {
+		long sum = 0;
+
+		try (CsvReader csv = new CsvReader(Files.newBufferedReader(file), ',')) {
+			csv.next();
+			for (String[] fields = csv.next(); fields != null; fields = csv.next()) {
+				String amount = fields[2];
+				boolean negative = amount.startsWith("-");
+				long cents = EntryValidator.parseAmountText(negative ? amount.substring(1) : amount)
+						.getCents();
+				sum += LocalDate.parse(fields[0]).toEpochDay() + fields[1].length()
+						+ (negative ? -cents : cents);
+			}
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public long mapped() throws IOException {
+		long sum = 0;
+
+		try (MappedCsvReader csv = new MappedCsvReader(file, ',', StandardCharsets.UTF_8)) {
+			csv.next();
+			while (csv.next()) {
+				sum += csv.getDate(0).toEpochDay() + csv.getString(1).length() + csv.getCents(2);
+			}
+		}
+
+		return sum;
+	}
+
+	// A statement of withdrawals and deposits, with some quoted descriptions
+	private static synchronized Path statement(int rows) throws IOException {
+		Path dir = Files.createDirectories(Paths.get(BenchDatabase.DIR));
+		Path statement = dir.resolve("statement-" + rows + ".csv");
+
+		if (Files.exists(statement)) {
+			return statement;
+		}
+
+		Path writing = dir.resolve("statement-" + rows + ".writing");
+		Random random = new Random(SEED);
+		LocalDate first = BenchDatabase.firstDate();
+		int days = BenchDatabase.YEARS * 365;
+
+		try (BufferedWriter out = Files.newBufferedWriter(writing)) {
+			out.write(HEADER);
+			out.newLine();
+
+			for (int i = 0; i < rows; i++) {
+				long cents = random.nextInt(100) < 10
+						? 100_000 + random.nextInt(200_000)
+						: -(100 + random.nextInt(50_000));
+				String description = i % 10 == 0
+						? "\"Store #" + i + ", Main St\""
+						: "Store #" + i;
+				out.write(String.format("%s,%s,%s%d.%02d,%s,%s",
+						first.plusDays(random.nextInt(days)), description,
+						cents < 0 ? "-" : "", Math.abs(cents) / 100, Math.abs(cents) % 100,
+						BenchDatabase.categoryDescription(random.nextInt(BenchDatabase.CATEGORIES)),
+						i % 3 == 0 ? "" : "Imported"));
+				out.newLine();
+			}
+		}
+
+		Files.move(writing, statement, StandardCopyOption.REPLACE_EXISTING);
+		return statement;
+	}
+}
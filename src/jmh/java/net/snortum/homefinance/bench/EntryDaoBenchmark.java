@@ -0,0 +1,112 @@
+package net.snortum.homefinance.bench;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.snortum.homefinance.dao.EntryOutDao;
+import net.snortum.homefinance.dao.EntryPage;
+import net.snortum.homefinance.model.Entry;
+import net.snortum.homefinance.model.EntryOut;
+import net.snortum.homefinance.model.Money;
+
+/**
+ * Single-row and whole-ledger operations of {@link EntryOutDao}, by ledger
+ * size. {@link #list()} and {@link #streamCount()} read every withdrawal, so
+ * their time per row is the row decode rate.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntryDaoBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+
+	@Param({ "10000", "100000", "1000000" })
+	private int rows;
+
+	private BenchDatabase.Trial trial;
+	private EntryOutDao dao;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		trial = BenchDatabase.open(rows);
+		dao = new EntryOutDao(trial.getPool());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		trial.close();
+	}
+
+	@Benchmark
+	public Optional<Entry> create() {
+		return dao.create(new EntryOut.Builder()
+				.description("Benchmark withdrawal")
+				.amount(Money.ofCents(1234))
+				.date(BenchDatabase.LAST_DATE)
+				.build());
+	}
+
+	@Benchmark
+	public Optional<Entry> read() {
+		return dao.read(trial.randomOutId());
+	}
+
+	@Benchmark
+	public boolean update() {
+		return dao.update(new EntryOut.Builder()
+				.id(trial.randomOutId())
+				.description("Benchmark update")
+				.amount(Money.ofCents(4321))
+				.date(BenchDatabase.LAST_DATE)
+				.build());
+	}
+
+	@Benchmark
+	public EntryPage page() {
+		LocalDate from = randomDate();
+		return dao.page(from, from.plusMonths(1), Optional.empty(), PAGE_SIZE);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public int list() {
+		return dao.list().size();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public long streamCount() {
+		try (Stream<Entry> entries = dao.stream()) {
+			return entries.count();
+		}
+	}
+
+	private LocalDate randomDate() {
+		return BenchDatabase.firstDate().plusDays(ThreadLocalRandom.current()
+				.nextInt(BenchDatabase.YEARS * 365 - 31));
+	}
+}
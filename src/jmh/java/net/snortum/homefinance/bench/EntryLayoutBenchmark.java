@@ -0,0 +1,224 @@
+package net.snortum.homefinance.bench;
+
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.SQLiteConfig;
+
+import net.snortum.homefinance.controller.EntryValidator;
+import net.snortum.homefinance.model.AbstractEntry;
+import net.snortum.homefinance.model.Entry;
+import net.snortum.homefinance.model.EntryBalance;
+import net.snortum.homefinance.model.EntryIn;
+import net.snortum.homefinance.model.EntryOut;
+import net.snortum.homefinance.model.EntryType;
+import net.snortum.homefinance.model.Money;
+
+/**
+ * Decode every entry of the same generated ledger from the v1 row layout and
+ * from the v2 layout of migration 6. The v1 rows are a copy of the v2 rows in
+ * a table laid out as the entry table was before that migration: the type as
+ * text, recurring, paid and reconciled as BOOLEAN columns, and the date as
+ * "yyyy-MM-dd" text. They are decoded as the DAO did then, through
+ * {@code getDate}, a shared {@link SimpleDateFormat} and
+ * {@link LocalDate#parse}. Amounts are whole cents in both, so only the
+ * columns migration 6 changed differ. Both build the same {@link Entry}
+ * objects, without categories; the time per row is the decode rate.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntryLayoutBenchmark {
+
+	private static final String CREATE_V1_SQL =
+			"CREATE TABLE entry_v1 ("
+			+ "id          INTEGER PRIMARY KEY AUTOINCREMENT,"
+			+ "description TEXT,"
+			+ "type        TEXT    CHECK(type = 'in' OR type = 'out' OR type = 'balance'),"
+			+ "recurring   BOOLEAN,"
+			+ "amount      INTEGER CHECK(amount >= 0),"
+			+ "comment     TEXT,"
+			+ "url         TEXT,"
+			+ "paid        BOOLEAN,"
+			+ "date        DATE,"
+			+ "reconciled  BOOLEAN,"
+			+ "category_id INTEGER NOT NULL"
+			+ ")";
+
+	private static final String COPY_TO_V1_SQL =
+			"INSERT INTO entry_v1 "
+			+ "SELECT id, description, "
+			+ "CASE type WHEN 1 THEN 'in' WHEN 2 THEN 'out' ELSE 'balance' END, "
+			+ "flags & 1 <> 0, amount, comment, url, flags & 2 <> 0, "
+			+ "date(date * 86400, 'unixepoch'), flags & 4 <> 0, category_id "
+			+ "FROM entry";
+
+	private static final String SELECT_V1_SQL =
+			"SELECT id, description, type, recurring, amount, comment, url, paid, date, "
+			+ "reconciled, category_id "
+			+ "FROM entry_v1";
+
+	private static final String SELECT_V2_SQL =
+			"SELECT id, description, type, flags, amount, comment, url, date, category_id "
+			+ "FROM entry";
+
+	// The v1 DAO's date formatter
+	private static final SimpleDateFormat FORMATTER = new SimpleDateFormat("yyyy-MM-dd");
+
+	@Param({ "10000", "100000", "1000000" })
+	private int rows;
+
+	private BenchDatabase.Trial trial;
+	private Connection con;
+	private PreparedStatement selectV1;
+	private PreparedStatement selectV2;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		trial = BenchDatabase.open(rows);
+
+		// How the v1 DAO's connection read DATE columns stored as text
+		SQLiteConfig config = new SQLiteConfig();
+		config.setDateStringFormat("yyyy-MM-dd");
+		con = config.createConnection("jdbc:sqlite:" + trial.getFile());
+
+		try (Statement stmnt = con.createStatement()) {
+			stmnt.executeUpdate(CREATE_V1_SQL);
+			stmnt.executeUpdate(COPY_TO_V1_SQL);
+		}
+
+		selectV1 = con.prepareStatement(SELECT_V1_SQL);
+		selectV2 = con.prepareStatement(SELECT_V2_SQL);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		selectV1.close();
+		selectV2.close();
+		con.close();
+		trial.close();
+	}
+
+	@Benchmark
+	public long v1() throws SQLException {
+		long sum = 0;
+
+		try (ResultSet rs = selectV1.executeQuery()) {
+			while (rs.next()) {
+				int id = rs.getInt(1);
+				String description = rs.getString(2);
+				EntryType type = typeOf(rs.getString(3));
+				boolean recurring = rs.getBoolean(4);
+				Money amount = Money.ofCents(rs.getLong(5));
+				String comment = rs.getString(6);
+				URL url = EntryValidator.getUrl(rs.getString(7));
+				boolean paid = rs.getBoolean(8);
+				LocalDate date = LocalDate.parse(FORMATTER.format(rs.getDate(9)));
+				boolean reconciled = rs.getBoolean(10);
+				rs.getInt(11);
+
+				sum += check(build(type, id, description, recurring, amount, comment, url, paid,
+						date, reconciled));
+			}
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public long v2() throws SQLException {
+		long sum = 0;
+
+		try (ResultSet rs = selectV2.executeQuery()) {
+			while (rs.next()) {
+				int id = rs.getInt(1);
+				String description = rs.getString(2);
+				EntryType type = EntryType.fromCode(rs.getInt(3));
+				int flags = rs.getInt(4);
+				Money amount = Money.ofCents(rs.getLong(5));
+				String comment = rs.getString(6);
+				URL url = EntryValidator.getUrl(rs.getString(7));
+				LocalDate date = LocalDate.ofEpochDay(rs.getLong(8));
+				rs.getInt(9);
+
+				sum += check(build(type, id, description, (flags & 1) != 0, amount, comment, url,
+						(flags & 2) != 0, date, (flags & 4) != 0));
+			}
+		}
+
+		return sum;
+	}
+
+	// The v1 DAO used valueOf on the upper-cased text, which fails for
+	// "balance", so the text is matched with each type's description instead
+	private static EntryType typeOf(String text) {
+		for (EntryType type : EntryType.values()) {
+			if (type.getDesc().equals(text)) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("Unknown entry type " + text);
+	}
+
+	// Both layouts must decode to the same entries
+	private static long check(Entry entry) {
+		return entry.getId() + entry.getAmount().getCents() + entry.getDate().toEpochDay()
+				+ (entry.isRecurring() ? 1 : 0) + (entry.isPaid() ? 2 : 0)
+				+ (entry.isReconciled() ? 4 : 0) + entry.getType().ordinal();
+	}
+
+	private static Entry build(EntryType type, int id, String description, boolean recurring,
+			Money amount, String comment, URL url, boolean paid, LocalDate date,
+			boolean reconciled) {
+		AbstractEntry.Builder builder;
+		switch (type) {
+		case IN:
+			builder = new EntryIn.Builder();
+			break;
+		case OUT:
+			builder = new EntryOut.Builder();
+			break;
+		default:
+			builder = new EntryBalance.Builder();
+		}
+
+		return builder
+				.id(id)
+				.description(description)
+				.recurring(recurring)
+				.amount(amount)
+				.comment(comment)
+				.url(Optional.ofNullable(url))
+				.paid(paid)
+				.date(date)
+				.reconciled(reconciled)
+				.build();
+	}
+}
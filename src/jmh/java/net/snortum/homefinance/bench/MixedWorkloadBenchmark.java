@@ -0,0 +1,103 @@
+package net.snortum.homefinance.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.snortum.homefinance.dao.EntryOutDao;
+import net.snortum.homefinance.model.EntryOut;
+import net.snortum.homefinance.model.Money;
+import net.snortum.homefinance.util.DbExecutor;
+
+/**
+ * Mixed reads and writes through a {@link DbExecutor}. {@link #batch()}
+ * submits a burst of DAO calls, one write to nine reads, to an executor of
+ * platform or virtual threads and waits for them all.
+ * On a JDK without virtual threads both runs use the platform pool.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixedWorkloadBenchmark {
+
+	private static final int BATCH_SIZE = 200;
+	private static final int WRITE_EVERY = 10;
+
+	@Param({ "100000" })
+	private int rows;
+
+	@Param({ "platform", DbExecutor.VIRTUAL })
+	private String executor;
+
+	private BenchDatabase.Trial trial;
+	private EntryOutDao dao;
+	private ExecutorService threads;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		trial = BenchDatabase.open(rows);
+		dao = new EntryOutDao(trial.getPool());
+		threads = DbExecutor.VIRTUAL.equals(executor)
+				? DbExecutor.newVirtualExecutor()
+				: DbExecutor.newPlatformExecutor();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		threads.shutdown();
+		threads.awaitTermination(1, TimeUnit.MINUTES);
+		trial.close();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public int batch() throws InterruptedException, ExecutionException {
+		List<Future<Boolean>> results = new ArrayList<>(BATCH_SIZE);
+
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			results.add(threads.submit(i % WRITE_EVERY == 0 ? this::write : this::read));
+		}
+
+		int done = 0;
+		for (Future<Boolean> result : results) {
+			done += result.get() ? 1 : 0;
+		}
+		return done;
+	}
+
+	private boolean read() {
+		return dao.read(trial.randomOutId()).isPresent();
+	}
+
+	private boolean write() {
+		return dao.update(new EntryOut.Builder()
+				.id(trial.randomOutId())
+				.description("Benchmark update")
+				.amount(Money.ofCents(4321))
+				.date(BenchDatabase.LAST_DATE)
+				.build());
+	}
+}
@@ -0,0 +1,81 @@
+package net.snortum.homefinance.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.snortum.homefinance.dao.EntryOutDao;
+import net.snortum.homefinance.model.EntryOut;
+import net.snortum.homefinance.model.Money;
+import net.snortum.homefinance.util.DbConnection;
+
+/**
+ * Readers and a writer using the database at the same time, through the
+ * connection pool or, as a baseline, one shared connection. If reads are
+ * slower here than in {@link EntryDaoBenchmark#read()}, they are waiting on
+ * the writer or on each other.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PoolContentionBenchmark {
+
+	@Param({ "100000" })
+	private int rows;
+
+	@Param({ "pool", "single" })
+	private String source;
+
+	private BenchDatabase.Trial trial;
+	private EntryOutDao dao;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		trial = BenchDatabase.open(rows);
+		dao = new EntryOutDao("single".equals(source) ? trial.getSingleSource() : trial.getPool());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		trial.close();
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(DbConnection.READERS)
+	public boolean read() {
+		return dao.read(trial.randomOutId()).isPresent();
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(1)
+	public boolean write() {
+		return dao.update(new EntryOut.Builder()
+				.id(trial.randomOutId())
+				.description("Benchmark update")
+				.amount(Money.ofCents(4321))
+				.date(BenchDatabase.LAST_DATE)
+				.build());
+	}
+}
@@ -22,8 +22,13 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import net.snortum.homefinance.controller.BudgetMaintenance;
 import net.snortum.homefinance.controller.CategoryMaintenance;
+import net.snortum.homefinance.util.DbBackup;
 import net.snortum.homefinance.util.DbConnection;
+import net.snortum.homefinance.util.DbExecutor;
 import net.snortum.homefinance.util.DbInitialization;
+import net.snortum.homefinance.util.DbMigration;
+import net.snortum.homefinance.util.FxStallMonitor;
+import net.snortum.homefinance.util.Metrics;
 
 /**
  * Launch the Home Finance main menu and provide a place to hold the primary stage.
@@ -40,10 +45,14 @@ public class HomeFinance extends Application {
 	private static final boolean TESTING = true;
 	
 	private Stage primaryStage;
+	private FxStallMonitor stallMonitor;
+	private DbBackup backup;
 	
 	@Override
 	public void start(Stage stage) {
 		primaryStage = stage;
+		stallMonitor = FxStallMonitor.startIfEnabled();
+		Metrics.start();
 		File dbFile = new File(DbConnection.DB);
 		
 		// Setup the DB if this is a new install
@@ -67,15 +76,37 @@ public class HomeFinance extends Application {
 				warning.showAndWait();
 				Platform.exit();
 			}
+		} else if ( ! DbMigration.migrate() ) {
+			// The DB is there, but its schema could not be brought up to date
+			Alert warning = new Alert(AlertType.WARNING);
+			warning.setHeaderText("Error Upgrading");
+			warning.setContentText("Could not upgrade the DB. Check log file");
+			warning.showAndWait();
+			Platform.exit();
 		}
-		
+
 		if (TESTING) {
 			DbInitialization.addDepositsForTesting();
 		}
 		
+		backup = DbBackup.startIfEnabled();
 		displayMainPane();
 	}
 
+	@Override
+	public void stop() {
+		if (stallMonitor != null) {
+			stallMonitor.stop();
+		}
+		if (backup != null) {
+			backup.stop();
+		}
+		// Let queued saves finish before the connections close
+		DbExecutor.shutdown();
+		DbConnection.close();
+		Metrics.shutdown();
+	}
+
 	private void displayMainPane() {
 		try {
 			// Load FXML
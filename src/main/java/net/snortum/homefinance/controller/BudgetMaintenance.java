@@ -10,20 +10,26 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextFormatter;
 import javafx.stage.Stage;
 import javafx.util.converter.DoubleStringConverter;
+import net.snortum.homefinance.dao.AsyncDao;
 import net.snortum.homefinance.dao.BudgetDao;
 import net.snortum.homefinance.dao.CategoryDao;
 import net.snortum.homefinance.model.Budget;
 import net.snortum.homefinance.model.Category;
+import net.snortum.homefinance.model.Money;
+import net.snortum.homefinance.util.Metrics;
 
 public class BudgetMaintenance {
 	
 	private static final Logger LOG = LogManager.getLogger();
+	private static final Metrics.Timer UPDATE_TIMER = Metrics.timer("ui.updateBudgetRecord");
 	
 	// Fields tied to FXML
 	
@@ -43,6 +49,7 @@ public class BudgetMaintenance {
 	private ObservableList<String> categories;
 	private CategoryDao categoryDao = new CategoryDao();
 	private BudgetDao budgetDao = new BudgetDao();
+	private AsyncDao<Budget, Integer> asyncBudgetDao = new AsyncDao<>(budgetDao);
 	private Optional<Budget> budget = Optional.empty();
 	private Stage dialogStage;
 	
@@ -126,13 +133,38 @@ public class BudgetMaintenance {
 	}
 	
 	private void updateBudgetRecord() {
-		if (budget.isPresent()) {
-			budget.get().setBudgetAmount(Double.parseDouble(budgetAmount.getText()));
-			if (!budgetDao.update(budget.get())) {
-				LOG.warn("Could not update " + budget.get().toString());
-			} else {
-				LOG.info("Record updated " + budget.get().toString());
+		long start = UPDATE_TIMER.start();
+		try {
+			if (budget.isPresent()) {
+				Optional<Money> amount = EntryValidator.parseValidAmount(budgetAmount.getText());
+				if (!amount.isPresent()) {
+					warnInvalidAmount();
+					return;
+				}
+				
+				// Hold on to this budget: the selection may change before the update is done
+				Budget record = budget.get();
+				record.setBudgetAmount(amount.get());
+				asyncBudgetDao.update(record).thenAccept(updated -> {
+					if (!updated) {
+						LOG.warn("Could not update " + record.toString());
+					} else {
+						LOG.info("Record updated " + record.toString());
+					}
+				});
 			}
+		} finally {
+			UPDATE_TIMER.stop(start);
 		}
 	}
+	
+	// The same dialog as the entry forms show for input errors
+	private void warnInvalidAmount() {
+		Alert alert = new Alert(AlertType.WARNING);
+		alert.initOwner(dialogStage);
+		alert.setTitle("Input Errors");
+		alert.setHeaderText("Please Correct These Input Errors");
+		alert.setContentText(EntryValidator.AMOUNT_ERROR_MESSAGE);
+		alert.showAndWait();
+	}
 }
@@ -2,8 +2,6 @@ package net.snortum.homefinance.controller;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.List;
-
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -14,6 +12,7 @@ import javafx.scene.Scene;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import net.snortum.homefinance.dao.AsyncDao;
 import net.snortum.homefinance.dao.EntryInDao;
 import net.snortum.homefinance.model.Entry;
 
@@ -66,9 +65,8 @@ public class DepositEntryApplication {
             LOG.error("Error trying to load " + ROOT_FXML_FILE, e);
         }
         
-        EntryInDao dao = new EntryInDao();
-        List<Entry> list = dao.list();
-        depositData.addAll(list);
+        // Load the deposits off the FX thread; the table fills in when they arrive
+        new AsyncDao<>(new EntryInDao()).list().thenAccept(depositData::setAll);
     }
 	
     public final void showDepositOverview() {
@@ -1,11 +1,12 @@
 package net.snortum.homefinance.controller;
 
-import java.math.BigDecimal;
 import java.net.URL;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
@@ -15,6 +16,7 @@ import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.TableCell;
@@ -25,12 +27,15 @@ import javafx.scene.control.TextFormatter;
 import javafx.util.Callback;
 import javafx.util.converter.LocalDateStringConverter;
 import javafx.util.converter.NumberStringConverter;
+import net.snortum.homefinance.dao.AsyncDao;
 import net.snortum.homefinance.dao.CategoryDao;
 import net.snortum.homefinance.dao.EntryInDao;
 import net.snortum.homefinance.model.Category;
 import net.snortum.homefinance.model.Entry;
 import net.snortum.homefinance.model.EntryIn;
 import net.snortum.homefinance.model.EntryInputData;
+import net.snortum.homefinance.model.Money;
+import net.snortum.homefinance.util.Metrics;
 
 /**
  * Controls the Deposit Entry form.
@@ -41,13 +46,14 @@ import net.snortum.homefinance.model.EntryInputData;
 public class DepositEntryOverviewController {
 
 	private static final Logger LOG = LogManager.getLogger();
+	private static final Metrics.Timer SAVE_TIMER = Metrics.timer("ui.handleSaveDeposit");
 
 	@FXML
 	private TableView<Entry> depositTable;
 	@FXML
 	private TableColumn<Entry, LocalDate> dateColumn;
 	@FXML
-	private TableColumn<Entry, BigDecimal> amountColumn;
+	private TableColumn<Entry, Money> amountColumn;
 
 	@FXML
 	private TextField dateField;
@@ -63,11 +69,14 @@ public class DepositEntryOverviewController {
 	private ChoiceBox<String> categoryChoice;
 	@FXML
 	private CheckBox recurringChk;
+	@FXML
+	private Button saveButton;
 
 	private DepositEntryApplication depositEntryApplication;
-	private final EntryInDao depositEntryDao = new EntryInDao();
+	private final AsyncDao<Entry, Integer> depositEntryDao = new AsyncDao<>(new EntryInDao());
 	private final CategoryDao categoryDao = new CategoryDao();
 	private Map<String, Category> categoryMap;
+	private boolean saving = false;
 
 	/**
 	 * Initializes the controller class. This method is automatically called
@@ -140,47 +149,61 @@ public class DepositEntryOverviewController {
 		Optional<Integer> selectedIndex = getSelectedIndex();
 
 		if (selectedIndex.isPresent()) {
-			// Remove from DB
+			// Remove from DB, then from observable list
 			Entry deposit = depositTable.getItems().get(selectedIndex.get());
-			depositEntryDao.delete(deposit.getId());
-			// Remove from observable list
-			depositTable.getItems().remove(deposit);
+			depositEntryDao.delete(deposit.getId()).thenAccept(deleted -> {
+				if (deleted) {
+					depositTable.getItems().remove(deposit);
+				} else {
+					LOG.error("Deposit was not deleted");
+				}
+			});
 		} else {
 			warnNothingSelected();
 		}
 	}
 
 	/**
-	 * Called when user clicks the Save button
+	 * Called when user clicks the Save button. Only one save runs at a time;
+	 * the button is disabled until it is done.
 	 */
 	@FXML
 	private void handleSaveDeposit() {
-		Optional<Integer> selectedIndex = getSelectedIndex();
-
-		if (selectedIndex.isPresent()) {
-			if (validateInputData()) {
-				// update
-				Entry deposit = depositTable.getItems()
-						.get(selectedIndex.get());
-				Optional<Entry> entryOption = updateDeposit(deposit);
+		if (saving) {
+			return;
+		}
 
-				if (entryOption.isPresent()) {
-					depositTable.getItems().remove(deposit);
-					depositTable.getItems().add(entryOption.get());
-					clearDepositDetails();
+		long start = SAVE_TIMER.start();
+		try {
+			Optional<Integer> selectedIndex = getSelectedIndex();
+			List<Object> sent = getFormState();
+
+			if (selectedIndex.isPresent()) {
+				if (validateInputData()) {
+					// update
+					Entry deposit = depositTable.getItems()
+							.get(selectedIndex.get());
+					whileSaving(updateDeposit(deposit).thenAccept(entryOption -> {
+						if (entryOption.isPresent()) {
+							depositTable.getItems().remove(deposit);
+							depositTable.getItems().add(entryOption.get());
+							clearUnlessChanged(sent);
+						}
+					}));
 				}
-			}
-		} else {
-			if (anythingEntered() && validateInputData()) {
-				// create
-				Optional<Entry> entryOption = updateDeposit(
-						new EntryIn.Builder().build());
-
-				if (entryOption.isPresent()) {
-					depositTable.getItems().add(entryOption.get());
-					clearDepositDetails();
+			} else {
+				if (anythingEntered() && validateInputData()) {
+					// create
+					whileSaving(updateDeposit(new EntryIn.Builder().build()).thenAccept(entryOption -> {
+						if (entryOption.isPresent()) {
+							depositTable.getItems().add(entryOption.get());
+							clearUnlessChanged(sent);
+						}
+					}));
 				}
 			}
+		} finally {
+			SAVE_TIMER.stop(start);
 		}
 	}
 
@@ -249,20 +272,45 @@ public class DepositEntryOverviewController {
 		recurringChk.setSelected(false);
 	}
 
+	// Disable Save until the save is done, whether it worked or not. The
+	// future completes on the FX thread.
+	private void whileSaving(CompletableFuture<?> save) {
+		saving = true;
+		saveButton.setDisable(true);
+		save.whenComplete((result, e) -> {
+			saving = false;
+			saveButton.setDisable(false);
+		});
+	}
+
+	// What is in the form, to tell whether it was changed during a save
+	private List<Object> getFormState() {
+		return Arrays.asList(dateField.getText(), amountField.getText(), descriptionField.getText(),
+				commentField.getText(), urlField.getText(),
+				categoryChoice.getSelectionModel().getSelectedItem(), recurringChk.isSelected());
+	}
+
+	// Keep anything typed after the save was sent
+	private void clearUnlessChanged(List<Object> sent) {
+		if (getFormState().equals(sent)) {
+			clearDepositDetails();
+		}
+	}
+
 	// All this garbage is needed just to format a table cell. Yuck!
-	private Callback<TableColumn<Entry, BigDecimal>, TableCell<Entry, BigDecimal>> getCustomCellFactory() {
-		return new Callback<TableColumn<Entry, BigDecimal>, TableCell<Entry, BigDecimal>>() {
+	private Callback<TableColumn<Entry, Money>, TableCell<Entry, Money>> getCustomCellFactory() {
+		return new Callback<TableColumn<Entry, Money>, TableCell<Entry, Money>>() {
 
 			@Override
-			public TableCell<Entry, BigDecimal> call(
-					TableColumn<Entry, BigDecimal> param) {
-				TableCell<Entry, BigDecimal> cell = new TableCell<Entry, BigDecimal>() {
+			public TableCell<Entry, Money> call(
+					TableColumn<Entry, Money> param) {
+				TableCell<Entry, Money> cell = new TableCell<Entry, Money>() {
 
 					// updateItem() is very brittle and can easily break if not
 					// implemented properly. The second setText() is the only
 					// code that should be changed.
 					@Override
-					protected void updateItem(BigDecimal amount,
+					protected void updateItem(Money amount,
 							boolean empty) {
 						super.updateItem(amount, empty);
 
@@ -270,7 +318,7 @@ public class DepositEntryOverviewController {
 							setText(null);
 						} else {
 							setText(EntryValidator.AMOUNT_FORMATTER
-									.format(amount.doubleValue()));
+									.format(amount.toBigDecimal()));
 						}
 					}
 				};
@@ -330,7 +378,11 @@ public class DepositEntryOverviewController {
 				|| !urlField.getText().isEmpty();
 	}
 
-	private Optional<Entry> updateDeposit(Entry deposit) {
+	/*
+	 * Save the deposit from the form fields. The save runs off the FX thread;
+	 * the future completes back on it.
+	 */
+	private CompletableFuture<Optional<Entry>> updateDeposit(Entry deposit) {
 		URL url = EntryValidator.getUrl(urlField.getText());
 		Entry newDeposit = new EntryIn.Builder(deposit)
 				.description(descriptionField.getText())
@@ -345,21 +397,21 @@ public class DepositEntryOverviewController {
 				.build();
 
 		if (deposit.isIdAbsent()) {
-			Optional<Entry> entryOption = depositEntryDao.create(newDeposit);
-			if (entryOption.isPresent()) {
-				newDeposit = entryOption.get();
-			} else {
-				LOG.error("Deposit was not created");
-				newDeposit = null;
-			}
+			return depositEntryDao.create(newDeposit).thenApply(entryOption -> {
+				if (!entryOption.isPresent()) {
+					LOG.error("Deposit was not created");
+				}
+				return entryOption;
+			});
 		} else {
-			if (!depositEntryDao.update(newDeposit)) {
-				LOG.error("Deposit did not update");
-				newDeposit = null;
-			}
+			return depositEntryDao.update(newDeposit).thenApply(updated -> {
+				if (!updated) {
+					LOG.error("Deposit did not update");
+					return Optional.empty();
+				}
+				return Optional.of(newDeposit);
+			});
 		}
-
-		return newDeposit == null ? Optional.empty() : Optional.of(newDeposit);
 	}
 	
 	private Optional<Category> getSelectedCategory() {
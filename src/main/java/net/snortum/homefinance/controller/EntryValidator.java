@@ -7,14 +7,18 @@ import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.text.ParsePosition;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
 
 import net.snortum.homefinance.model.EntryInputData;
+import net.snortum.homefinance.model.Money;
+import net.snortum.homefinance.util.Metrics;
 
 /**
  * Contains all the code necessary to validate input data from Entry forms.
@@ -29,13 +33,20 @@ public class EntryValidator {
 	static final String AMOUNT_PATTERN = "#,##0.00";
 	static final NumberFormat AMOUNT_FORMATTER;
 	
+	// Parses to BigDecimal, so amounts never pass through a double
+	private static final DecimalFormat AMOUNT_PARSER;
+	
 	private static final String DATE_ERROR_MESSAGE = "Invalid date, enter in the form YYYY-MM-DD";
-	private static final String AMOUNT_ERROR_MESSAGE = "Invalid amount: enter a non-negative number";
+	static final String AMOUNT_ERROR_MESSAGE = "Invalid amount: enter a non-negative number";
 	private static final String URL_ERROR_MESSAGE = "Invalid URL";
+	private static final Metrics.Timer VALIDATE_TIMER = Metrics.timer("validation.entry");
+	private static final Metrics.Counter INVALID_COUNTER = Metrics.counter("validation.entry.invalid");
 	
 	static {
 		DecimalFormatSymbols symbols = new DecimalFormatSymbols(Locale.getDefault());
 		AMOUNT_FORMATTER = new DecimalFormat(AMOUNT_PATTERN, symbols);
+		AMOUNT_PARSER = new DecimalFormat(AMOUNT_PATTERN, symbols);
+		AMOUNT_PARSER.setParseBigDecimal(true);
 	}
 	
 	private final EntryInputData input;
@@ -55,17 +66,42 @@ public class EntryValidator {
 	 * @return a list of validation error messages, if any
 	 */
 	public List<String> validate() {
-		List<String> errors = new ArrayList<>();
+		long start = VALIDATE_TIMER.start();
+		try {
+			List<String> errors = validate(parseDate(input.getDateText()),
+					parseValidAmount(input.getAmountText()).orElse(null), input.getUrlText());
 		
-		if ( ! isValidDate(input.getDateText()) ) {
+			if (!errors.isEmpty()) {
+				INVALID_COUNTER.increment();
+			}
+		
+			return errors;
+		} finally {
+			VALIDATE_TIMER.stop(start);
+		}
+	}
+
+	/**
+	 * Validate the fields of an entry that have already been parsed, such as
+	 * those read by the CSV importer. Form input is checked by the same rules.
+	 * 
+	 * @param date the date, or {@code null} if it could not be parsed
+	 * @param amount the amount, or {@code null} if it could not be parsed
+	 * @param urlText the URL text, blank or {@code null} if there is no URL
+	 * @return a list of validation error messages, if any
+	 */
+	public static List<String> validate(LocalDate date, Money amount, String urlText) {
+		List<String> errors = new ArrayList<>(0);
+		
+		if (date == null) {
 			errors.add(DATE_ERROR_MESSAGE);
 		}
 		
-		if ( ! isValidAmount(input.getAmountText()) ) {
+		if (amount == null || amount.isNegative()) {
 			errors.add(AMOUNT_ERROR_MESSAGE);
 		}
 		
-		if ( ! isValidUrl(input.getUrlText()) ) {
+		if ( ! isValidUrl(urlText) ) {
 			errors.add(URL_ERROR_MESSAGE);
 		}
 		
@@ -87,45 +123,64 @@ public class EntryValidator {
 	}
 	
 	/**
-	 * Parse a BigDecimal from an amount text string.
+	 * Parse {@link Money} from an amount text string.
 	 * 
 	 * @param amountText the string containing the formatted number
-	 * @return a BigDecimal parsed from the string.
+	 * @return the Money parsed from the string, rounded to the nearest cent, or
+	 *         zero if the string cannot be parsed.
 	 */
-	public static BigDecimal parseAmountText(String amountText) {
-		double amount;
-		
+	public static Money parseAmountText(String amountText) {
 		try {
-			amount = (double) AMOUNT_FORMATTER.parse(amountText);
-		} catch (ParseException e) {
-			amount = 0.0;
+			return Money.of(parseAmount(amountText));
+		} catch (ParseException | ArithmeticException e) {
+			return Money.ZERO;
 		}
-		
-		return BigDecimal.valueOf(amount);
 	}
 	
-	private boolean isValidDate(String dateText) {
+	/**
+	 * Parse {@link Money} from an amount text string, if it is a valid amount.
+	 * 
+	 * @param amountText the string containing the formatted number
+	 * @return the Money parsed from the string, rounded to the nearest cent, or
+	 *         empty if the string is not a number, is negative or is too large
+	 */
+	public static Optional<Money> parseValidAmount(String amountText) {
 		try {
-			LocalDate.parse(dateText, DATE_FORMATTER);
-			return true;
-		} catch (DateTimeParseException e) {
-			return false;
+			BigDecimal amount = parseAmount(amountText);
+			return amount.signum() >= 0 ? Optional.of(Money.of(amount)) : Optional.empty();
+		} catch (ParseException | ArithmeticException e) {
+			return Optional.empty();
 		}
 	}
 	
-	private boolean isValidAmount(String amountText) {
-		double amount;
+	// The whole text must be a number: "12x" is not 12
+	private static BigDecimal parseAmount(String amountText) throws ParseException {
+		if (amountText == null) {
+			throw new ParseException("No amount", 0);
+		}
+		
+		String text = amountText.trim();
+		ParsePosition position = new ParsePosition(0);
+		BigDecimal amount;
+		synchronized (AMOUNT_PARSER) {
+			amount = (BigDecimal) AMOUNT_PARSER.parse(text, position);
+		}
 		
+		if (amount == null || position.getIndex() != text.length()) {
+			throw new ParseException("Not an amount: " + amountText, position.getIndex());
+		}
+		return amount;
+	}
+	
+	private static LocalDate parseDate(String dateText) {
 		try {
-			amount = (double) AMOUNT_FORMATTER.parse(amountText);
-		} catch (ParseException e1) {
-			return false;
+			return LocalDate.parse(dateText, DATE_FORMATTER);
+		} catch (DateTimeParseException e) {
+			return null;
 		}
-
-		return amount >= 0.0;
 	}
 	
-	private boolean isValidUrl(String urlText) {
+	private static boolean isValidUrl(String urlText) {
 		if (urlText == null || urlText.isEmpty()) {
 			return true;
 		}
@@ -1,18 +1,18 @@
 package net.snortum.homefinance.dao;
 
-import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.Connection;
-import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -24,112 +24,119 @@ import net.snortum.homefinance.model.EntryBalance;
 import net.snortum.homefinance.model.EntryIn;
 import net.snortum.homefinance.model.EntryOut;
 import net.snortum.homefinance.model.EntryType;
+import net.snortum.homefinance.model.Money;
+import net.snortum.homefinance.util.ConnectionLease;
+import net.snortum.homefinance.util.ConnectionSource;
 import net.snortum.homefinance.util.DbConnection;
+import net.snortum.homefinance.util.Metrics;
 
 /**
  * Implements most of the Entry DAO methods
  * 
  * @author Knute Snortum
  * @version 2016-11-07
- * 
- * TODO: will some of the SQL need to know its type?
  */
 public class AbstractEntryDao implements GenericDao<Entry, Integer> {
 
 	private static final Logger LOG = LogManager.getLogger();
-	private static final SimpleDateFormat FORMATTER = new SimpleDateFormat("yyyy-MM-dd");
 
-	private static final String INSERT_SQL = 
+	// Bits of the flags column
+	static final int RECURRING_FLAG = 1;
+	static final int PAID_FLAG = 2;
+	static final int RECONCILED_FLAG = 4;
+
+	static final String INSERT_SQL = 
 			"INSERT INTO entry ("
 			+ "description, " // 1
 			+ "type, "        // 2
-			+ "recurring, "   // 3
+			+ "flags, "       // 3
 			+ "amount, "      // 4
 			+ "comment, "     // 5
 			+ "url, "         // 6
-			+ "paid, "        // 7
-			+ "date, "        // 8
-			+ "reconciled, "  // 9
-			+ "category_id"   // 10
-			+ ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+			+ "date, "        // 7
+			+ "category_id"   // 8
+			+ ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 	
-	private static final String SELECT_SQL = 
+	private static final String SELECT_COLUMNS = 
 			"SELECT "
-			+ "id, "          
-			+ "description, " 
-			+ "type, "        
-			+ "recurring, "   
-			+ "amount, "      
-			+ "comment, "     
-			+ "url, "         
-			+ "paid, "        
-			+ "date, "        
-			+ "reconciled, "  
-			+ "category_id "   
-			+ "FROM entry "
-			+ "WHERE id = ?";
+			+ "e.id, "          
+			+ "e.description, " 
+			+ "e.type, "        
+			+ "e.flags, "   
+			+ "e.amount, "      
+			+ "e.comment, "     
+			+ "e.url, "         
+			+ "e.date, "        
+			+ "e.category_id "
+			+ "FROM entry e ";
+	
+	private static final String SELECT_SQL = 
+			SELECT_COLUMNS
+			+ "WHERE e.id = ?";
 	
 	private static final String UPDATE_SQL =
 			"UPDATE entry "
 			+ "SET "
 			+ "description = ?, " // 1
 			+ "type = ?,"         // 2
-			+ "recurring = ?,"    // 3
+			+ "flags = ?,"        // 3
 			+ "amount = ?,"       // 4
 			+ "comment = ?,"      // 5
 			+ "url = ?,"          // 6
-			+ "paid = ?,"         // 7
-			+ "date = ?,"         // 8
-			+ "reconciled = ?,"   // 9
-			+ "category_id = ? "  // 10
-			+ "WHERE id = ?";     // 11
+			+ "date = ?,"         // 7
+			+ "category_id = ? "  // 8
+			+ "WHERE id = ?";     // 9
 	
 	private static final String DELETE_SQL =
 			"DELETE FROM entry "
 			+ "WHERE id = ?";
 	
-	private static final String LIST_SQL =
-			"SELECT "
-			+ "id, "          
-			+ "description, " 
-			+ "type, "        
-			+ "recurring, "   
-			+ "amount, "      
-			+ "comment, "     
-			+ "url, "         
-			+ "paid, "        
-			+ "date, "        
-			+ "reconciled, "  
-			+ "category_id "  
-			+ "FROM entry ";
-			// TODO WHERE type = ?
+	static final String LIST_SQL = 
+			SELECT_COLUMNS
+			+ "WHERE e.type = ?";
+	
+	// Keyset pagination: start after the (date, id) of the last row seen, so
+	// the index is used to seek and no rows are skipped over as with OFFSET 
+	static final String PAGE_SQL =
+			SELECT_COLUMNS
+			+ "WHERE e.type = ? "               // 1
+			+ "AND e.date <= ? "                // 2
+			+ "AND (e.date, e.id) > (?, ?) "    // 3, 4
+			+ "ORDER BY e.date, e.id "
+			+ "LIMIT ?";                        // 5
 	
 	private static final String ID_COLUMN = "id";
-	private static final int ID_PARAM = 11;
+	private static final int ID_PARAM = 9;
 	private static final String DESCRIPTION_COLUMN = "description";
 	private static final int DESCRIPTION_PARAM = 1;
 	private static final String TYPE_COLUMN = "type";
 	private static final int TYPE_PARAM = 2;
-	private static final String RECURRING_COLUMN = "recurring";
-	private static final int RECURRING_PARAM = 3;
+	private static final String FLAGS_COLUMN = "flags";
+	private static final int FLAGS_PARAM = 3;
 	private static final String AMOUNT_COLUMN = "amount";
 	private static final int AMOUNT_PARAM = 4;
 	private static final String COMMENT_COLUMN = "comment";
 	private static final int COMMENT_PARAM = 5;
 	private static final String URL_COLUMN = "url";
 	private static final int URL_PARAM = 6;
-	private static final String PAID_COLUMN = "paid";
-	private static final int PAID_PARAM = 7;
 	private static final String DATE_COLUMN = "date";
-	private static final int DATE_PARAM = 8;
-	private static final String RECONCILED_COLUMN = "reconciled";
-	private static final int RECONCILED_PARAM = 9;
+	private static final int DATE_PARAM = 7;
 	private static final String CATEGORY_ID_COLUMN = "category_id";
-	private static final int CATEGORY_ID_PARAM = 10;
+	private static final int CATEGORY_ID_PARAM = 8;
+	private static final int SELECT_ID_PARAM = 1;
+	private static final int LIST_TYPE_PARAM = 1;
+	private static final int PAGE_TYPE_PARAM = 1;
+	private static final int PAGE_TO_DATE_PARAM = 2;
+	private static final int PAGE_AFTER_DATE_PARAM = 3;
+	private static final int PAGE_AFTER_ID_PARAM = 4;
+	private static final int PAGE_LIMIT_PARAM = 5;
 	private static final int DELETE_ID_PARAM = 1;
 
 	private final EntryType entryType;
-	private final Optional<Connection> connection;
+	private final ConnectionSource connections;
+	private final CategoryDao categoryDao;
+	private final DaoMetrics metrics;
+	private final Metrics.Timer pageTimer;
 
 	/**
 	 * Create an AbstractEntryDao object
@@ -139,7 +146,10 @@ public class AbstractEntryDao implements GenericDao<Entry, Integer> {
 	 */
 	protected AbstractEntryDao(EntryType entryType) {
 		this.entryType = entryType;
-		connection = DbConnection.getConnection();
+		connections = DbConnection.getSource();
+		categoryDao = new CategoryDao(connections);
+		metrics = new DaoMetrics("entry." + entryType.name().toLowerCase());
+		pageTimer = metrics.timer("page");
 	}
 
 	/**
@@ -152,7 +162,26 @@ public class AbstractEntryDao implements GenericDao<Entry, Integer> {
 	 */
 	protected AbstractEntryDao(EntryType entryType, Connection connection) {
 		this.entryType = entryType;
-		this.connection = Optional.of(connection);
+		this.connections = ConnectionSource.of(connection);
+		categoryDao = new CategoryDao(connections);
+		metrics = new DaoMetrics("entry." + entryType.name().toLowerCase());
+		pageTimer = metrics.timer("page");
+	}
+
+	/**
+	 * Create an AbstractEntryDao object
+	 * 
+	 * @param entryType
+	 *            The {@link EntryType} for this DAO session
+	 * @param connections
+	 *            The {@link ConnectionSource} to get connections from
+	 */
+	protected AbstractEntryDao(EntryType entryType, ConnectionSource connections) {
+		this.entryType = entryType;
+		this.connections = connections;
+		categoryDao = new CategoryDao(connections);
+		metrics = new DaoMetrics("entry." + entryType.name().toLowerCase());
+		pageTimer = metrics.timer("page");
 	}
 
 	/**
@@ -166,53 +195,43 @@ public class AbstractEntryDao implements GenericDao<Entry, Integer> {
 	 */
 	@Override
 	public Optional<Entry> create(Entry record) {
-		if (!connection.isPresent()) {
-			return Optional.empty();
-		}
-
-		Connection con = connection.get();
+		long start = metrics.create.start();
 		try {
-			con.setAutoCommit(false);
-			PreparedStatement stmnt = con.prepareStatement(INSERT_SQL);
-			stmnt.setString(DESCRIPTION_PARAM, record.getDescription());
-			stmnt.setString(TYPE_PARAM, entryType.getDesc());
-			stmnt.setBoolean(RECURRING_PARAM, record.isRecurring());
-			stmnt.setBigDecimal(AMOUNT_PARAM, record.getAmount());
-			stmnt.setString(COMMENT_PARAM, record.getComment());
-			stmnt.setString(URL_PARAM, record.getUrl().isPresent()
-					? record.getUrl().get().toString()
-					: "");
-			stmnt.setBoolean(PAID_PARAM, record.isPaid());
-			stmnt.setDate(DATE_PARAM, Date.valueOf(record.getDate()));
-			stmnt.setBoolean(RECONCILED_PARAM, record.isRecurring());
-			stmnt.setInt(CATEGORY_ID_PARAM, record.getCategory().isPresent()
-					? record.getCategory().get().getId()
-					: -1);
-			stmnt.executeUpdate();
+			try (ConnectionLease lease = connections.writer()) {
+				Connection con = lease.get();
+				con.setAutoCommit(false);
+				PreparedStatement stmnt = StatementCache.of(con).prepare(INSERT_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, INSERT_SQL);
+				try {
+					bindEntry(stmnt, record);
+					trace.bound();
+					int rows = stmnt.executeUpdate();
+					trace.executed();
+					trace.changed(rows);
 			
- 			// Get auto-generated ID and set it into the record
-			ResultSet rs = stmnt.getGeneratedKeys();
-			if (rs.next()) {
-				record.setId(rs.getInt(1));
-			} else {
-				LOG.error("Could not retrieve the generated key");
+		 			// Get auto-generated ID and set it into the record
+					try (ResultSet rs = stmnt.getGeneratedKeys()) {
+						if (rs.next()) {
+							record.setId(rs.getInt(1));
+						} else {
+							LOG.error("Could not retrieve the generated key");
+							return Optional.empty();
+						}
+					}
+				} finally {
+					trace.end();
+				}
+				LedgerDao.advanceGeneration(con);
+				con.commit();
+			} catch (SQLException e) {
+				LOG.error("Error creating Entry record", e);
 				return Optional.empty();
 			}
-			
-			con.commit();
-		} catch (SQLException e) {
-			LOG.error("Error creating Entry record", e);
 
-			try {
-				con.rollback();
-			} catch (SQLException e1) {
-				LOG.error("Error trying to rollback transaction", e1);
-			}
-			
-			return Optional.empty();
+			return Optional.of(record);
+		} finally {
+			metrics.create.stop(start);
 		}
-
-		return Optional.of(record);
 	}
 
 	/**
@@ -228,60 +247,481 @@ public class AbstractEntryDao implements GenericDao<Entry, Integer> {
 	 */
 	@Override
 	public Optional<Entry> read(Integer key) {
-		if (!connection.isPresent()) {
-			return Optional.empty();
+		long start = metrics.read.start();
+		try {
+			Entry record;
+
+			try (ConnectionLease lease = connections.reader()) {
+				PreparedStatement stmnt = StatementCache.of(lease.get()).prepare(SELECT_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, SELECT_SQL);
+				try {
+					stmnt.setInt(SELECT_ID_PARAM, key);
+					trace.bound();
+				
+					try (ResultSet rs = stmnt.executeQuery()) {
+						trace.executed();
+						if (!rs.next()) {
+							LOG.warn("Entry record, ID = " + key + ": ResultSet is empty");
+							return Optional.empty();
+						}
+					
+						EntryType type = EntryType.fromCode(rs.getInt(TYPE_COLUMN));
+						if (type != entryType) {
+							LOG.error("Entry types don't match, " + type + " != " + entryType);
+							return Optional.empty();
+						}
+					
+						long mapStart = trace.startRow();
+						record = mapRow(rs, new HashMap<>());
+						trace.endRow(mapStart);
+					}
+				} finally {
+					trace.end();
+				}
+			} catch (SQLException e) {
+				LOG.error("Error reading Entry record", e);
+				return Optional.empty();
+			}
+
+			return record == null ? Optional.empty() : Optional.of(record);
+		} finally {
+			metrics.read.stop(start);
+		}
+	}
+
+	/**
+	 * Update an {@link Entry} row in the database
+	 * 
+	 * @param record
+	 *            The Entry record to update to the database
+	 * @return false if there is no DB connection, if there was a DB error,
+	 *            or if the number of rows affected is not one.
+	 */
+	@Override
+	public boolean update(Entry record) {
+		long start = metrics.update.start();
+		try {
+			if (record.getType() != entryType) {
+				LOG.error("Entry types don't match, " + record.getType() + " != " + entryType);
+				return false;
+			}
+
+			int recordsAffected = 0;
+
+			try (ConnectionLease lease = connections.writer()) {
+				Connection con = lease.get();
+				con.setAutoCommit(false);
+				PreparedStatement stmnt = StatementCache.of(con).prepare(UPDATE_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, UPDATE_SQL);
+				try {
+					bindEntry(stmnt, record);
+					stmnt.setInt(ID_PARAM, record.getId());
+					trace.bound();
+					recordsAffected = stmnt.executeUpdate();
+					trace.executed();
+					trace.changed(recordsAffected);
+				} finally {
+					trace.end();
+				}
+				LedgerDao.advanceGeneration(con);
+				con.commit();
+			} catch (SQLException e) {
+				LOG.error("Error updating Entry record", e);
+				return false;
+			}
+
+			return recordsAffected == 1;
+		} finally {
+			metrics.update.stop(start);
+		}
+	}
+
+	/**
+	 * Delete an Entry row based on key (ID).
+	 * 
+	 * @param key
+	 *            the key (ID) of the Entry to delete
+	 * @return false is there is no connection, if there is an SQL exception, or
+	 *         if the number of rows affected is not one.
+	 */
+	@Override
+	public boolean delete(Integer key) {
+		long start = metrics.delete.start();
+		try {
+			int recordsAffected = 0;
+		
+			try (ConnectionLease lease = connections.writer()) {
+				Connection con = lease.get();
+				con.setAutoCommit(false);
+				PreparedStatement stmnt = StatementCache.of(con).prepare(DELETE_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, DELETE_SQL);
+				try {
+					stmnt.setInt(DELETE_ID_PARAM, key);
+					trace.bound();
+					recordsAffected = stmnt.executeUpdate();
+					trace.executed();
+					trace.changed(recordsAffected);
+				} finally {
+					trace.end();
+				}
+				LedgerDao.advanceGeneration(con);
+				con.commit();
+			} catch (SQLException e) {
+				LOG.error("Error deleting Entry record", e);
+				return false;
+			}
+		
+			return recordsAffected == 1;
+		} finally {
+			metrics.delete.stop(start);
 		}
+	}
 
-		Connection con = connection.get();
-		String description;
-		EntryType type = EntryType.IN;
-		boolean recurring;
-		BigDecimal amount;
-		String comment;
-		URL url;
-		boolean paid;
-		LocalDate date;
-		boolean reconciled;
-		int categoryId;
+	/**
+	 * Create many {@link Entry} rows in one transaction.
+	 * 
+	 * @param records
+	 *            the Entry records to insert into the database
+	 * @param chunkSize
+	 *            the number of records per JDBC batch
+	 * @return the records with their new IDs. The list will be empty if there
+	 *         is no connection, if any record is not of this DAO's
+	 *         {@link EntryType}, or if there is an SQL exception. Nothing is
+	 *         created in these cases.
+	 */
+	@Override
+	public List<Entry> createAll(Collection<Entry> records, int chunkSize) {
+		metrics.batchSize.record(records.size());
+		long start = metrics.createAll.start();
+		try {
+			if (!typesMatch(records)) {
+				return new ArrayList<>();
+			}
+		
+			try (ConnectionLease lease = connections.writer()) {
+				return BatchExecutor.insert(lease.get(), INSERT_SQL, records, chunkSize,
+						this::bindEntry, Entry::setId, LedgerDao::advanceGeneration, "Entry");
+			} catch (SQLException e) {
+				LOG.error("Error creating Entry records", e);
+				return new ArrayList<>();
+			}
+		} finally {
+			metrics.createAll.stop(start);
+		}
+	}
+	
+	/**
+	 * Update many {@link Entry} rows in one transaction.
+	 * 
+	 * @param records
+	 *            the Entry records to update
+	 * @param chunkSize
+	 *            the number of records per JDBC batch
+	 * @return false if there is no connection, if any record is not of this
+	 *         DAO's {@link EntryType}, if there is an SQL exception, or if any
+	 *         record did not update exactly one row. Nothing is updated in
+	 *         these cases.
+	 */
+	@Override
+	public boolean updateAll(Collection<Entry> records, int chunkSize) {
+		metrics.batchSize.record(records.size());
+		long start = metrics.updateAll.start();
+		try {
+			if (!typesMatch(records)) {
+				return false;
+			}
+		
+			try (ConnectionLease lease = connections.writer()) {
+				return BatchExecutor.execute(lease.get(), UPDATE_SQL, records, chunkSize, 
+						(stmnt, record) -> {
+							bindEntry(stmnt, record);
+							stmnt.setInt(ID_PARAM, record.getId());
+						}, 
+						LedgerDao::advanceGeneration, "Entry");
+			} catch (SQLException e) {
+				LOG.error("Error updating Entry records", e);
+				return false;
+			}
+		} finally {
+			metrics.updateAll.stop(start);
+		}
+	}
+	
+	/**
+	 * Delete many {@link Entry} rows by key in one transaction.
+	 * 
+	 * @param keys
+	 *            the keys (IDs) of the entries to delete
+	 * @param chunkSize
+	 *            the number of keys per JDBC batch
+	 * @return false if there is no connection, if there is an SQL exception,
+	 *         or if any key did not delete exactly one row. Nothing is deleted
+	 *         in these cases.
+	 */
+	@Override
+	public boolean deleteAll(Collection<Integer> keys, int chunkSize) {
+		metrics.batchSize.record(keys.size());
+		long start = metrics.deleteAll.start();
+		try {
+			try (ConnectionLease lease = connections.writer()) {
+				return BatchExecutor.execute(lease.get(), DELETE_SQL, keys, chunkSize, 
+						(stmnt, key) -> stmnt.setInt(DELETE_ID_PARAM, key), 
+						LedgerDao::advanceGeneration, "Entry");
+			} catch (SQLException e) {
+				LOG.error("Error deleting Entry records", e);
+				return false;
+			}
+		} finally {
+			metrics.deleteAll.stop(start);
+		}
+	}
 
+	/**
+	 * @return a list of all entries of this DAO's {@link EntryType}. List will
+	 *         be empty if there is no DB connection or if there is an SQL
+	 *         exception.
+	 */
+	@Override
+	public List<Entry> list() {
+		long start = metrics.list.start();
 		try {
-			PreparedStatement stmnt = con.prepareStatement(SELECT_SQL);
-			stmnt.setInt(ID_PARAM, key);
-			ResultSet rs = stmnt.executeQuery();
+			List<Entry> list = new ArrayList<>();
+		
+			// Look up each category only once
+			Map<Integer, Optional<Category>> categories = new HashMap<>();
+		
+			try (ConnectionLease lease = connections.reader()) {
+				PreparedStatement stmnt = StatementCache.of(lease.get()).prepare(LIST_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, LIST_SQL);
+				try {
+					stmnt.setInt(LIST_TYPE_PARAM, entryType.getCode());
+					trace.bound();
 			
-			if (!rs.next()) {
-				LOG.warn("Entry record, ID = " + key + ": ResultSet is empty");
-				return Optional.empty();
+					try (ResultSet rs = stmnt.executeQuery()) {
+						trace.executed();
+						while (rs.next()) {
+							long mapStart = trace.startRow();
+							Entry record = mapRow(rs, categories);
+							trace.endRow(mapStart);
+					
+							if (record != null) {
+								list.add(record);
+							}
+						}
+					}
+				} finally {
+					trace.end();
+				}
+			} catch (SQLException e) {
+				LOG.error("Error getting Entry list", e);
+				return list;
 			}
+		
+			return list;
+		} finally {
+			metrics.list.stop(start);
+		}
+	}
+	
+	/**
+	 * @return a stream of all entries of this DAO's {@link EntryType}. Stream
+	 *         will be empty if there is no DB connection or if there is an SQL
+	 *         exception. Close the stream when done.
+	 */
+	@Override
+	public Stream<Entry> stream() {
+		long start = metrics.stream.start();
+		try {
+			Map<Integer, Optional<Category>> categories = new HashMap<>();
+			return ResultSetStream.of(connections, LIST_SQL, 
+					stmnt -> stmnt.setInt(LIST_TYPE_PARAM, entryType.getCode()), 
+					rs -> mapRow(rs, categories), "Entry list");
+		} finally {
+			metrics.stream.stop(start);
+		}
+	}
+	
+	/**
+	 * Get one page of entries of this DAO's {@link EntryType}, ordered by date
+	 * then ID. Pages are found by seeking past the last entry seen (keyset
+	 * pagination), so a page deep in the history costs the same as the first
+	 * one.
+	 * 
+	 * @param from
+	 *            the first date to include
+	 * @param to
+	 *            the last date to include
+	 * @param after
+	 *            the cursor returned with the previous page, or empty for the
+	 *            first page
+	 * @param pageSize
+	 *            the maximum number of entries on the page, must be positive
+	 * @return the page of entries. The page will be empty if there is no DB
+	 *         connection or if there is an SQL exception.
+	 */
+	public EntryPage page(LocalDate from, LocalDate to, Optional<EntryCursor> after, int pageSize) {
+		long started = pageTimer.start();
+		try {
+			if (pageSize <= 0) {
+				throw new IllegalArgumentException("Page size must be positive");
+			}
+		
+			List<Entry> list = new ArrayList<>();
+		
+			// Starting just before the first date with ID zero includes all of "from"
+			EntryCursor start = after.orElse(new EntryCursor(from, 0));
+			if (start.getDate().isBefore(from)) {
+				start = new EntryCursor(from, 0);
+			}
+		
+			Map<Integer, Optional<Category>> categories = new HashMap<>();
+			boolean more = false;
+		
+			try (ConnectionLease lease = connections.reader()) {
+				PreparedStatement stmnt = StatementCache.of(lease.get()).prepare(PAGE_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, PAGE_SQL);
+				try {
+					stmnt.setInt(PAGE_TYPE_PARAM, entryType.getCode());
+					stmnt.setLong(PAGE_TO_DATE_PARAM, to.toEpochDay());
+					stmnt.setLong(PAGE_AFTER_DATE_PARAM, start.getDate().toEpochDay());
+					stmnt.setInt(PAGE_AFTER_ID_PARAM, start.getId());
+			
+					// Ask for one more row than needed to know if there is a next page
+					stmnt.setInt(PAGE_LIMIT_PARAM, pageSize + 1);
+					trace.bound();
 			
-			description = rs.getString(DESCRIPTION_COLUMN);
-			type = EntryType.valueOf(rs.getString(TYPE_COLUMN).toUpperCase());
-			recurring = rs.getBoolean(RECURRING_COLUMN);
-			amount = BigDecimal.valueOf(rs.getDouble(AMOUNT_COLUMN));
-			comment = rs.getString(COMMENT_COLUMN);
-			url = EntryValidator.getUrl(rs.getString(URL_COLUMN));
-			paid = rs.getBoolean(PAID_COLUMN);
-			String formattedDate = FORMATTER.format(rs.getDate(DATE_COLUMN));
-			date = LocalDate.parse(formattedDate);
-			reconciled = rs.getBoolean(RECONCILED_COLUMN);
-			categoryId = rs.getInt(CATEGORY_ID_COLUMN);
-		} catch (SQLException e) {
-			LOG.error("Error reading Entry record", e);
-			return Optional.empty();
+					try (ResultSet rs = stmnt.executeQuery()) {
+						trace.executed();
+						while (rs.next()) {
+							if (list.size() == pageSize) {
+								more = true;
+								break;
+							}
+					
+							long mapStart = trace.startRow();
+							Entry record = mapRow(rs, categories);
+							trace.endRow(mapStart);
+					
+							if (record != null) {
+								list.add(record);
+							}
+						}
+					}
+				} finally {
+					trace.end();
+				}
+			} catch (SQLException e) {
+				LOG.error("Error getting Entry page", e);
+				return new EntryPage(new ArrayList<>(), Optional.empty());
+			}
+		
+			Optional<EntryCursor> next = Optional.empty();
+			if (more && !list.isEmpty()) {
+				Entry last = list.get(list.size() - 1);
+				next = Optional.of(new EntryCursor(last.getDate(), last.getId()));
+			}
+		
+			return new EntryPage(list, next);
+		} finally {
+			pageTimer.stop(started);
 		}
-
-		if (type != entryType) {
-			LOG.error("Entry types don't match, " + type + " != " + entryType);
-			return Optional.empty();
+	}
+	
+	/**
+	 * Set the INSERT and UPDATE parameters that are common to both from an
+	 * {@link Entry}
+	 * 
+	 * @param stmnt
+	 *            the INSERT or UPDATE statement
+	 * @param record
+	 *            the Entry to take the values from
+	 * @throws SQLException
+	 *             if a parameter cannot be set
+	 */
+	private void bindEntry(PreparedStatement stmnt, Entry record) throws SQLException {
+		bindEntry(stmnt, record, entryType);
+	}
+	
+	/**
+	 * Set the INSERT and UPDATE parameters that are common to both from an
+	 * {@link Entry}, with the type column set to the passed-in type
+	 * 
+	 * @param stmnt
+	 *            the INSERT or UPDATE statement
+	 * @param record
+	 *            the Entry to take the values from
+	 * @param type
+	 *            the type to write
+	 * @throws SQLException
+	 *             if a parameter cannot be set
+	 */
+	static void bindEntry(PreparedStatement stmnt, Entry record, EntryType type) 
+			throws SQLException {
+		stmnt.setString(DESCRIPTION_PARAM, record.getDescription());
+		stmnt.setInt(TYPE_PARAM, type.getCode());
+		stmnt.setInt(FLAGS_PARAM, (record.isRecurring() ? RECURRING_FLAG : 0)
+				| (record.isPaid() ? PAID_FLAG : 0)
+				| (record.isReconciled() ? RECONCILED_FLAG : 0));
+		stmnt.setLong(AMOUNT_PARAM, record.getAmount().getCents());
+		stmnt.setString(COMMENT_PARAM, record.getComment());
+		stmnt.setString(URL_PARAM, record.getUrl().isPresent()
+				? record.getUrl().get().toString()
+				: "");
+		stmnt.setLong(DATE_PARAM, record.getDate().toEpochDay());
+		stmnt.setInt(CATEGORY_ID_PARAM, record.getCategory().isPresent()
+				? record.getCategory().get().getId()
+				: Entry.ABSENT_ID_INDICATOR);
+	}
+	
+	private boolean typesMatch(Collection<Entry> records) {
+		for (Entry record : records) {
+			if (record.getType() != entryType) {
+				LOG.error("Entry types don't match, " + record.getType() + " != " + entryType);
+				return false;
+			}
 		}
 		
-		CategoryDao categoryDao = new CategoryDao(con);
-		Optional<Category> category = categoryDao.read(Integer.valueOf(categoryId));
+		return true;
+	}
+	
+	/**
+	 * Build an {@link Entry} from the current row of a ResultSet selected with
+	 * {@link #SELECT_COLUMNS}. The category comes from the {@link CategoryCache},
+	 * so no other query is needed.
+	 * 
+	 * @param rs
+	 *            the ResultSet, positioned on the row to map
+	 * @param categories
+	 *            the categories already looked up, by ID. New categories are added.
+	 * @return the Entry, or {@code null} if the entry type is unknown
+	 * @throws SQLException
+	 *             if a column cannot be read
+	 */
+	private Entry mapRow(ResultSet rs, Map<Integer, Optional<Category>> categories) throws SQLException {
+		int key = rs.getInt(ID_COLUMN);
+		String description = rs.getString(DESCRIPTION_COLUMN);
+		EntryType type = EntryType.fromCode(rs.getInt(TYPE_COLUMN));
+		int flags = rs.getInt(FLAGS_COLUMN);
+		boolean recurring = (flags & RECURRING_FLAG) != 0;
+		Money amount = Money.ofCents(rs.getLong(AMOUNT_COLUMN));
+		String comment = rs.getString(COMMENT_COLUMN);
+		URL url = EntryValidator.getUrl(rs.getString(URL_COLUMN));
+		boolean paid = (flags & PAID_FLAG) != 0;
+		LocalDate date = LocalDate.ofEpochDay(rs.getLong(DATE_COLUMN));
+		boolean reconciled = (flags & RECONCILED_FLAG) != 0;
+		Optional<Category> category = categories.computeIfAbsent(
+				rs.getInt(CATEGORY_ID_COLUMN), categoryDao::read);
+		
+		if (type == null) {
+			LOG.error("Entry record, ID = " + key + ": type code unknown");
+			return null;
+		}
 		
 		Entry record = null;
 		switch(type) {
 		case IN:
 			record = new EntryIn.Builder()
+					.id(key)
 					.description(description)
 					.recurring(recurring)
 					.amount(amount)
@@ -295,6 +735,7 @@ public class AbstractEntryDao implements GenericDao<Entry, Integer> {
 			break;
 		case OUT:
 			record = new EntryOut.Builder() 
+					.id(key)
 					.description(description)
 					.recurring(recurring)
 					.amount(amount)
@@ -307,7 +748,8 @@ public class AbstractEntryDao implements GenericDao<Entry, Integer> {
 					.build();
 			break;
 		case BAL:
-			record = new EntryBalance.Builder() 
+			record = new EntryBalance.Builder()
+					.id(key)
 					.description(description)
 					.recurring(recurring)
 					.amount(amount)
@@ -322,183 +764,8 @@ public class AbstractEntryDao implements GenericDao<Entry, Integer> {
 		default:
 			LOG.error("Type (" + type + ") unknown");
 		}
-
-		return record == null ? Optional.empty() : Optional.of(record);
-	}
-
-	/**
-	 * Update an {@link Entry} row in the database
-	 * 
-	 * @param record
-	 *            The Entry record to update to the database
-	 * @return false if there is no DB connection, if there was a DB error,
-	 *            or if the number of rows affected is not one.
-	 */
-	@Override
-	public boolean update(Entry record) {
-		if (!connection.isPresent()) {
-			return false;
-		}
-		
-		if (record.getType() != entryType) {
-			LOG.error("Entry types don't match, " + record.getType() + " != " + entryType);
-			return false;
-		}
-
-		Connection con = connection.get();
-		int recordsAffected = 0;
-
-		try {
-			con.setAutoCommit(false);
-			PreparedStatement stmnt = con.prepareStatement(UPDATE_SQL);
-			stmnt.setString(DESCRIPTION_PARAM, record.getDescription());
-			stmnt.setString(TYPE_PARAM, entryType.getDesc());
-			stmnt.setBoolean(RECURRING_PARAM, record.isRecurring());
-			stmnt.setBigDecimal(AMOUNT_PARAM, record.getAmount());
-			stmnt.setString(COMMENT_PARAM, record.getComment());
-			stmnt.setString(URL_PARAM, record.getUrl().isPresent()
-					? record.getUrl().get().toString()
-					: "");
-			stmnt.setBoolean(PAID_PARAM, record.isPaid());
-			stmnt.setDate(DATE_PARAM, Date.valueOf(record.getDate()));
-			stmnt.setBoolean(RECONCILED_PARAM, record.isRecurring());
-			stmnt.setInt(CATEGORY_ID_PARAM, record.getCategory().isPresent()
-					? record.getCategory().get().getId()
-					: Entry.ABSENT_ID_INDICATOR);
-			stmnt.setInt(ID_PARAM, record.getId());
-			recordsAffected = stmnt.executeUpdate();
-			con.commit();
-		} catch (SQLException e) {
-			LOG.error("Error updating Entry record", e);
-			return false;
-		}
-
-		return recordsAffected == 1;
-	}
-
-	/**
-	 * Delete an Entry row based on key (ID).
-	 * 
-	 * @param key
-	 *            the key (ID) of the Entry to delete
-	 * @return false is there is no connection, if there is an SQL exception, or
-	 *         if the number of rows affected is not one.
-	 */
-	@Override
-	public boolean delete(Integer key) {
-		if (!connection.isPresent()) {
-			return false;
-		}
-		
-		Connection con = connection.get();
-		int recordsAffected = 0;
-		
-		try {
-			con.setAutoCommit(false);
-			PreparedStatement stmnt = con.prepareStatement(DELETE_SQL);
-			stmnt.setInt(DELETE_ID_PARAM, key);
-			recordsAffected = stmnt.executeUpdate();
-			con.commit();
-		} catch (SQLException e) {
-			LOG.error("Error deleting Entry record", e);
-			return false;
-		}
-		
-		return recordsAffected == 1;
-	}
-
-	/**
-	 * @return a list of all (TODO all?) entries. List will be empty if there is
-	 *         no DB connection or if there is an SQL exception.
-	 */
-	@Override
-	public List<Entry> list() {
-		List<Entry> list = new ArrayList<>();
-		
-		if (!connection.isPresent()) {
-			return list;
-		}
-		
-		Connection con = connection.get();
-		ResultSet rs;
-		
-		try {
-			Statement stmnt = con.createStatement();
-			rs = stmnt.executeQuery(LIST_SQL);
-			
-			while (rs.next()) {
-				int key = rs.getInt(ID_COLUMN);
-				String description = rs.getString(DESCRIPTION_COLUMN);
-				String entryTypeValue = rs.getString(TYPE_COLUMN);
-				EntryType type = EntryType.valueOf(entryTypeValue.toUpperCase());
-				boolean recurring = rs.getBoolean(RECURRING_COLUMN);
-				BigDecimal amount = BigDecimal.valueOf(rs.getDouble(AMOUNT_COLUMN));
-				String comment = rs.getString(COMMENT_COLUMN);
-				URL url = EntryValidator.getUrl(rs.getString(URL_COLUMN));
-				boolean paid = rs.getBoolean(PAID_COLUMN);
-				String formattedDate = FORMATTER.format(rs.getDate(DATE_COLUMN));
-				LocalDate date = LocalDate.parse(formattedDate);
-				boolean reconciled = rs.getBoolean(RECONCILED_COLUMN);
-				int categoryId = rs.getInt(CATEGORY_ID_COLUMN);
-				CategoryDao categoryDao = new CategoryDao(con);
-				Optional<Category> category = categoryDao.read(categoryId);
-				
-				Entry record = null;
-				switch(type) {
-				case IN:
-					record = new EntryIn.Builder()
-							.id(key)
-							.description(description)
-							.recurring(recurring)
-							.amount(amount)
-							.comment(comment)
-							.url(url == null ? Optional.empty() : Optional.of(url))
-							.paid(paid)
-							.date(date)
-							.reconciled(reconciled)
-							.category(category)
-							.build();
-					break;
-				case OUT:
-					record = new EntryOut.Builder() 
-							.id(key)
-							.description(description)
-							.recurring(recurring)
-							.amount(amount)
-							.comment(comment)
-							.url(url == null ? Optional.empty() : Optional.of(url))
-							.paid(paid)
-							.date(date)
-							.reconciled(reconciled)
-							.category(category)
-							.build();
-					break;
-				case BAL:
-					record = new EntryBalance.Builder()
-							.id(key)
-							.description(description)
-							.recurring(recurring)
-							.amount(amount)
-							.comment(comment)
-							.url(url == null ? Optional.empty() : Optional.of(url))
-							.paid(paid)
-							.date(date)
-							.reconciled(reconciled)
-							.category(category)
-							.build();
-					break;
-				default:
-					LOG.error("Type (" + type + ") unknown");
-				}
-				
-				list.add(record);
-			} // End while next rs
-		} catch (SQLException e) {
-			LOG.error("Error getting Entry list", e);
-			return list;
-		}
 		
-		return list;
+		return record;
 	}
 
 }
@@ -0,0 +1,134 @@
+package net.snortum.homefinance.dao;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javafx.application.Platform;
+import net.snortum.homefinance.util.DbExecutor;
+
+/**
+ * Runs the calls of a {@link GenericDao} on the {@link DbExecutor} threads
+ * and hands each result back on the JavaFX application thread. Controllers
+ * use this so that the FX thread never waits on SQLite:
+ *
+ * <pre>
+ * asyncDao.delete(id).thenAccept(deleted -&gt; {
+ *     if (deleted) table.getItems().remove(entry);
+ * });
+ * </pre>
+ *
+ * The returned futures complete on the FX thread, so actions chained with
+ * {@code thenAccept} and the like may touch the scene graph. A call that
+ * throws is logged and its future completes exceptionally.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ *
+ * @param <T> the type of record
+ * @param <PK> the type of the primary key
+ */
+public class AsyncDao<T, PK extends Serializable> {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** Runs tasks on the JavaFX application thread */
+	public static final Executor FX_THREAD = Platform::runLater;
+
+	private final GenericDao<T, PK> dao;
+	private final Executor worker;
+	private final Executor callback;
+
+	/**
+	 * Run the DAO on the database threads and return results on the FX thread.
+	 *
+	 * @param dao the DAO to call
+	 */
+	public AsyncDao(GenericDao<T, PK> dao) {
+		this(dao, DbExecutor.get(), FX_THREAD);
+	}
+
+	/**
+	 * @param dao the DAO to call
+	 * @param worker runs the DAO calls
+	 * @param callback completes the returned futures
+	 */
+	public AsyncDao(GenericDao<T, PK> dao, Executor worker, Executor callback) {
+		this.dao = dao;
+		this.worker = worker;
+		this.callback = callback;
+	}
+
+	/**
+	 * Run any database work on the database threads and return the result on
+	 * the FX thread. Use this for DAO methods that are not in
+	 * {@link GenericDao}.
+	 *
+	 * @param work the database work
+	 * @return the result, completed on the FX thread
+	 */
+	public static <R> CompletableFuture<R> supply(Supplier<R> work) {
+		return supply(work, DbExecutor.get(), FX_THREAD);
+	}
+
+	/**
+	 * @return the DAO this calls
+	 */
+	public GenericDao<T, PK> getDao() {
+		return dao;
+	}
+
+	public CompletableFuture<Optional<T>> create(T record) {
+		return supply(() -> dao.create(record), worker, callback);
+	}
+
+	public CompletableFuture<Optional<T>> read(PK key) {
+		return supply(() -> dao.read(key), worker, callback);
+	}
+
+	public CompletableFuture<Boolean> update(T record) {
+		return supply(() -> dao.update(record), worker, callback);
+	}
+
+	public CompletableFuture<Boolean> delete(PK key) {
+		return supply(() -> dao.delete(key), worker, callback);
+	}
+
+	public CompletableFuture<List<T>> list() {
+		return supply(dao::list, worker, callback);
+	}
+
+	public CompletableFuture<List<T>> createAll(Collection<T> records) {
+		return supply(() -> dao.createAll(records), worker, callback);
+	}
+
+	public CompletableFuture<Boolean> updateAll(Collection<T> records) {
+		return supply(() -> dao.updateAll(records), worker, callback);
+	}
+
+	public CompletableFuture<Boolean> deleteAll(Collection<PK> keys) {
+		return supply(() -> dao.deleteAll(keys), worker, callback);
+	}
+
+	private static <R> CompletableFuture<R> supply(Supplier<R> work, Executor worker,
+			Executor callback) {
+		CompletableFuture<R> result = new CompletableFuture<>();
+
+		CompletableFuture.supplyAsync(work, worker).whenComplete((value, e) -> {
+			if (e != null) {
+				LOG.error("Database work failed", e);
+				callback.execute(() -> result.completeExceptionally(e));
+			} else {
+				callback.execute(() -> result.complete(value));
+			}
+		});
+
+		return result;
+	}
+}
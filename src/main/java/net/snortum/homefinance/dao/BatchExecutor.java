@@ -0,0 +1,314 @@
+package net.snortum.homefinance.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs one statement for many records with JDBC batching, all inside a single
+ * transaction. Records are sent to the database a chunk at a time with
+ * {@link PreparedStatement#executeBatch()}, and the transaction is committed
+ * once at the end, so SQLite syncs to disk once instead of once per record.
+ * If anything fails, the whole transaction is rolled back. A caller can pass a
+ * step to run in the same transaction just before it is committed.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+final class BatchExecutor {
+
+	private static final Logger LOG = LogManager.getLogger();
+
+	private static final String LAST_ID_SQL = "SELECT last_insert_rowid()";
+
+	private static final TransactionStep NO_STEP = con -> { };
+
+	/**
+	 * Sets the parameters of a statement from a record
+	 *
+	 * @param <T> the type of record
+	 */
+	@FunctionalInterface
+	interface ParameterBinder<T> {
+		void bind(PreparedStatement stmnt, T record) throws SQLException;
+	}
+
+	/**
+	 * Work done on the connection inside the batch's transaction
+	 */
+	@FunctionalInterface
+	interface TransactionStep {
+		void run(Connection con) throws SQLException;
+	}
+
+	private BatchExecutor() {
+	}
+
+	/**
+	 * Insert records and set each generated ID back into its record. IDs are
+	 * worked out from the last generated ID of each chunk. This works because
+	 * the transaction is the only writer, so SQLite hands out consecutive IDs.
+	 * The IDs are only set once the transaction is committed, so after a
+	 * rollback no record holds an ID that was never saved.
+	 *
+	 * @param con the connection to use
+	 * @param sql the INSERT statement
+	 * @param records the records to insert
+	 * @param chunkSize the number of records per JDBC batch
+	 * @param binder sets the INSERT parameters from a record
+	 * @param idSetter sets the generated ID into a record
+	 * @param description what is being inserted, for the log
+	 * @return the records with their new IDs, or an empty list if there was
+	 *         an error and the transaction was rolled back
+	 */
+	static <T> List<T> insert(Connection con, String sql, Collection<T> records, int chunkSize,
+			ParameterBinder<T> binder, ObjIntConsumer<T> idSetter, String description) {
+		return insert(con, sql, records, chunkSize, binder, idSetter, NO_STEP, description);
+	}
+
+	/**
+	 * Insert records as {@link #insert(Connection, String, Collection, int,
+	 * ParameterBinder, ObjIntConsumer, String)} does, running a step in the
+	 * same transaction once every record is inserted
+	 *
+	 * @param con the connection to use
+	 * @param sql the INSERT statement
+	 * @param records the records to insert
+	 * @param chunkSize the number of records per JDBC batch
+	 * @param binder sets the INSERT parameters from a record
+	 * @param idSetter sets the generated ID into a record
+	 * @param beforeCommit run just before the transaction is committed
+	 * @param description what is being inserted, for the log
+	 * @return the records with their new IDs, or an empty list if there was
+	 *         an error and the transaction was rolled back
+	 */
+	static <T> List<T> insert(Connection con, String sql, Collection<T> records, int chunkSize,
+			ParameterBinder<T> binder, ObjIntConsumer<T> idSetter, TransactionStep beforeCommit,
+			String description) {
+		checkChunkSize(chunkSize);
+		List<T> created = new ArrayList<>(records.size());
+		int[] firstIds = new int[(records.size() + chunkSize - 1) / chunkSize];
+		int chunks = 0;
+		int inChunk = 0;
+
+		PreparedStatement stmnt = null;
+		SqlTrace trace = null;
+
+		try {
+			con.setAutoCommit(false);
+			stmnt = StatementCache.of(con).prepare(sql);
+			trace = SqlTrace.begin(stmnt, sql);
+
+			for (T record : records) {
+				binder.bind(stmnt, record);
+				stmnt.addBatch();
+				created.add(record);
+				inChunk++;
+
+				if (inChunk == chunkSize) {
+					firstIds[chunks++] = insertChunk(con, stmnt, inChunk, trace);
+					inChunk = 0;
+					trace = SqlTrace.begin(stmnt, sql);
+				}
+			}
+
+			if (inChunk > 0) {
+				firstIds[chunks++] = insertChunk(con, stmnt, inChunk, trace);
+			}
+
+			beforeCommit.run(con);
+			con.commit();
+		} catch (SQLException e) {
+			LOG.error("Error creating " + description + " records in a batch", e);
+			endTrace(trace);
+			clearBatch(stmnt);
+			rollback(con);
+			return new ArrayList<>();
+		}
+
+		for (int i = 0; i < created.size(); i++) {
+			idSetter.accept(created.get(i), firstIds[i / chunkSize] + i % chunkSize);
+		}
+
+		return created;
+	}
+
+	/**
+	 * Run an UPDATE or DELETE for each record. Every record must affect
+	 * exactly one row, or the whole transaction is rolled back.
+	 *
+	 * @param con the connection to use
+	 * @param sql the UPDATE or DELETE statement
+	 * @param records the records (or keys) to run the statement for
+	 * @param chunkSize the number of records per JDBC batch
+	 * @param binder sets the statement parameters from a record
+	 * @param description what is being updated or deleted, for the log
+	 * @return false if there was an error or a record did not affect one row
+	 */
+	static <T> boolean execute(Connection con, String sql, Collection<T> records, int chunkSize,
+			ParameterBinder<T> binder, String description) {
+		return execute(con, sql, records, chunkSize, binder, NO_STEP, description);
+	}
+
+	/**
+	 * Run an UPDATE or DELETE for each record as {@link #execute(Connection,
+	 * String, Collection, int, ParameterBinder, String)} does, running a step
+	 * in the same transaction once every record is written
+	 *
+	 * @param con the connection to use
+	 * @param sql the UPDATE or DELETE statement
+	 * @param records the records (or keys) to run the statement for
+	 * @param chunkSize the number of records per JDBC batch
+	 * @param binder sets the statement parameters from a record
+	 * @param beforeCommit run just before the transaction is committed
+	 * @param description what is being updated or deleted, for the log
+	 * @return false if there was an error or a record did not affect one row
+	 */
+	static <T> boolean execute(Connection con, String sql, Collection<T> records, int chunkSize,
+			ParameterBinder<T> binder, TransactionStep beforeCommit, String description) {
+		try {
+			con.setAutoCommit(false);
+			executeInTransaction(con, sql, records, chunkSize, binder);
+			beforeCommit.run(con);
+			con.commit();
+		} catch (SQLException e) {
+			LOG.error("Error writing " + description + " records in a batch", e);
+			rollback(con);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Run a statement for each record inside a transaction the caller has
+	 * begun, and will commit or roll back. Every record must affect exactly
+	 * one row.
+	 *
+	 * @param con the connection to use, with auto-commit off
+	 * @param sql the INSERT, UPDATE or DELETE statement
+	 * @param records the records (or keys) to run the statement for
+	 * @param chunkSize the number of records per JDBC batch
+	 * @param binder sets the statement parameters from a record
+	 * @throws SQLException if there was an error or a record did not affect
+	 *             one row
+	 */
+	static <T> void executeInTransaction(Connection con, String sql, Collection<T> records,
+			int chunkSize, ParameterBinder<T> binder) throws SQLException {
+		checkChunkSize(chunkSize);
+		int inChunk = 0;
+
+		PreparedStatement stmnt = null;
+		SqlTrace trace = null;
+
+		try {
+			stmnt = StatementCache.of(con).prepare(sql);
+			trace = SqlTrace.begin(stmnt, sql);
+
+			for (T record : records) {
+				binder.bind(stmnt, record);
+				stmnt.addBatch();
+				inChunk++;
+
+				if (inChunk == chunkSize) {
+					executeChunk(stmnt, trace);
+					inChunk = 0;
+					trace = SqlTrace.begin(stmnt, sql);
+				}
+			}
+
+			if (inChunk > 0) {
+				executeChunk(stmnt, trace);
+			}
+		} catch (SQLException e) {
+			endTrace(trace);
+			clearBatch(stmnt);
+			throw e;
+		}
+	}
+
+	// Returns the ID generated for the first record of the chunk
+	private static int insertChunk(Connection con, PreparedStatement stmnt, int size,
+			SqlTrace trace) throws SQLException {
+		executeChunk(stmnt, trace);
+
+		int lastId;
+		try (ResultSet rs = StatementCache.of(con).prepare(LAST_ID_SQL).executeQuery()) {
+			if (!rs.next()) {
+				throw new SQLException("Could not retrieve the generated keys");
+			}
+			lastId = rs.getInt(1);
+		}
+
+		return lastId - size + 1;
+	}
+
+	// One SQL event for each chunk: binding is the time spent filling the batch
+	private static void executeChunk(PreparedStatement stmnt, SqlTrace trace) throws SQLException {
+		int[] counts;
+		try {
+			trace.bound();
+			counts = stmnt.executeBatch();
+			trace.executed();
+
+			// Statements that give no count are left out of the rows changed
+			int changed = 0;
+			for (int count : counts) {
+				if (count >= 0) {
+					changed += count;
+				}
+			}
+			trace.changed(changed);
+		} finally {
+			trace.end();
+		}
+
+		for (int count : counts) {
+			if (count != 1 && count != PreparedStatement.SUCCESS_NO_INFO) {
+				throw new SQLException("Batch statement affected " + count + " rows, expected 1");
+			}
+		}
+	}
+
+	// A failed chunk is still recorded; ending a trace twice does nothing
+	private static void endTrace(SqlTrace trace) {
+		if (trace != null) {
+			trace.end();
+		}
+	}
+
+	private static void checkChunkSize(int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+	}
+
+	// The statement is cached, so don't leave a half-sent batch on it
+	private static void clearBatch(PreparedStatement stmnt) {
+		if (stmnt == null) {
+			return;
+		}
+
+		try {
+			stmnt.clearBatch();
+		} catch (SQLException e) {
+			LOG.error("Error clearing batch", e);
+		}
+	}
+
+	private static void rollback(Connection con) {
+		try {
+			con.rollback();
+		} catch (SQLException e) {
+			LOG.error("Error trying to rollback transaction", e);
+		}
+	}
+}
@@ -4,17 +4,26 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import net.snortum.homefinance.model.Budget;
 import net.snortum.homefinance.model.Category;
+import net.snortum.homefinance.model.EntryType;
+import net.snortum.homefinance.model.Money;
+import net.snortum.homefinance.util.ConnectionLease;
+import net.snortum.homefinance.util.ConnectionSource;
 import net.snortum.homefinance.util.DbConnection;
+import net.snortum.homefinance.util.Metrics;
 
 public class BudgetDao implements GenericDao<Budget, Integer> {
 	
@@ -60,18 +69,39 @@ public class BudgetDao implements GenericDao<Budget, Integer> {
 			+ "category_id, " // 2
 			+ "budget_amt, "  // 3
 			+ "actual_amt "   // 4
-			+ "FROM budget ";
+			+ "FROM budget";
+	
+	// Actuals are summed from the entries of each budget's category. The entry 
+	// conditions are part of the join, so a budget with no entries is still 
+	// listed, with an actual of zero.
+	static final String ACTUALS_SQL =
+			"SELECT "
+			+ "b.id, "                        // 1
+			+ "b.category_id, "               // 2
+			+ "b.budget_amt, "                // 3
+			+ "COALESCE(SUM(e.amount), 0) "   // 4
+			+ "FROM budget b "
+			+ "LEFT JOIN entry e "
+			+ "ON e.category_id = b.category_id "
+			+ "AND e.type = ? "               // 1
+			+ "AND e.date BETWEEN ? AND ? "   // 2, 3
+			+ "GROUP BY b.id";
 
 	
-	private final Optional<Connection> connection;
+	private final ConnectionSource connections;
+	private final CategoryDao categoryDao;
+	private final DaoMetrics metrics = new DaoMetrics("budget");
+	private final Metrics.Timer readByCategoryTimer = metrics.timer("readByCategory");
+	private final Metrics.Timer listActualsTimer = metrics.timer("listActuals");
 
 	/**
-	 * Create an BudgetDao with the default connection.
+	 * Create an BudgetDao with the default connection pool.
 	 * 
 	 * @see DbConnection
 	 */
 	public BudgetDao() {
-		connection = DbConnection.getConnection();
+		connections = DbConnection.getSource();
+		categoryDao = new CategoryDao(connections);
 	}
 	
 	/**
@@ -80,190 +110,388 @@ public class BudgetDao implements GenericDao<Budget, Integer> {
 	 * @param con the connection object to use
 	 */
 	public BudgetDao(Connection con) {
-		connection = Optional.of(con);
+		connections = ConnectionSource.of(con);
+		categoryDao = new CategoryDao(connections);
+	}
+	
+	/**
+	 * Create an BudgetDao with the passed-in connection source.
+	 * 
+	 * @param connections where to get connections from
+	 */
+	public BudgetDao(ConnectionSource connections) {
+		this.connections = connections;
+		categoryDao = new CategoryDao(connections);
 	}
 
 	@Override
 	public Optional<Budget> create(Budget record) {
-		if (!connection.isPresent()) {
-			return Optional.empty();
-		}
-
-		Connection con = connection.get();
+		long start = metrics.create.start();
 		try {
-			con.setAutoCommit(false);
-			PreparedStatement stmnt = con.prepareStatement(INSERT_SQL);
-			stmnt.setInt(1, record.getCategoryId());
-			stmnt.setDouble(2, record.getBudgetAmount());
-			stmnt.setDouble(3, record.getActualAmount());
-			stmnt.executeUpdate();
-			int id = stmnt.getGeneratedKeys().getInt(1);
-			record.setId(id);
-			con.commit();
-		} catch (SQLException e) {
-			LOG.error("Error inserting a Budget record", e);
-
-			try {
-				con.rollback();
-			} catch (SQLException e1) {
-				LOG.error(e1.getMessage());
+			try (ConnectionLease lease = connections.writer()) {
+				Connection con = lease.get();
+				con.setAutoCommit(false);
+				PreparedStatement stmnt = StatementCache.of(con).prepare(INSERT_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, INSERT_SQL);
+				try {
+					bindInsert(stmnt, record);
+					trace.bound();
+					int rows = stmnt.executeUpdate();
+					trace.executed();
+					trace.changed(rows);
+					try (ResultSet keys = stmnt.getGeneratedKeys()) {
+						record.setId(keys.getInt(1));
+					}
+				} finally {
+					trace.end();
+				}
+				con.commit();
+			} catch (SQLException e) {
+				LOG.error("Error inserting a Budget record", e);
 			}
-		}
 
-		return Optional.of(record);
+			return Optional.of(record);
+		} finally {
+			metrics.create.stop(start);
+		}
 	}
 
 	@Override
 	public Optional<Budget> read(Integer key) {
-		if (!connection.isPresent()) {
-			return Optional.empty();
-		}
-
-		Connection con = connection.get();
-		int categoryId;
-		double budgetAmt;
-		double actualAmt;
-		
+		long start = metrics.read.start();
 		try {
-			PreparedStatement stmnt = con.prepareStatement(SELECT_SQL);
-			stmnt.setInt(1, key);
-			ResultSet rs = stmnt.executeQuery();
-			if (!rs.next()) {
-				LOG.warn("Budget record, ID = " + key + ": ResultSet is empty");
+			int categoryId;
+			Money budgetAmt;
+			Money actualAmt;
+		
+			try (ConnectionLease lease = connections.reader()) {
+				PreparedStatement stmnt = StatementCache.of(lease.get()).prepare(SELECT_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, SELECT_SQL);
+				try {
+					stmnt.setInt(1, key);
+					trace.bound();
+					try (ResultSet rs = stmnt.executeQuery()) {
+						trace.executed();
+						if (!rs.next()) {
+							LOG.warn("Budget record, ID = " + key + ": ResultSet is empty");
+							return Optional.empty();
+						}
+						long mapStart = trace.startRow();
+						categoryId = rs.getInt(1);
+						budgetAmt = Money.ofCents(rs.getLong(2));
+						actualAmt = Money.ofCents(rs.getLong(3));
+						trace.endRow(mapStart);
+					}
+				} finally {
+					trace.end();
+				}
+			} catch (SQLException e) {
+				LOG.error("Error reading Budget record", e);
 				return Optional.empty();
 			}
-			categoryId = rs.getInt(1);
-			budgetAmt = rs.getDouble(2);
-			actualAmt = rs.getDouble(3);
-		} catch (SQLException e) {
-			LOG.error("Error reading Budget record", e);
-			return Optional.empty();
-		}
 		
-		CategoryDao categoryDao = new CategoryDao(con);
-		Optional<Category> categoryOpt = categoryDao.read(categoryId);
-		if (!categoryOpt.isPresent()) {
-			LOG.error("Budget record error: Category could not be found");
-			return Optional.empty();
-		}
-		Budget record = new Budget(key, categoryOpt.get(), budgetAmt, actualAmt);
+			// Budgets must have a category
+			Optional<Category> category = categoryDao.read(categoryId);
+			if (!category.isPresent()) {
+				return Optional.empty();
+			}
+		
+			Budget record = new Budget(key, category.get(), budgetAmt, actualAmt);
 			
-		return Optional.of(record);
+			return Optional.of(record);
+		} finally {
+			metrics.read.stop(start);
+		}
 	}
 
 	public Optional<Budget> readByCategory(Category category) {
-		if (!connection.isPresent()) {
-			return Optional.empty();
-		}
-
-		Connection con = connection.get();
-		int id;
-		double budgetAmt;
-		double actualAmt;
-		
+		long start = readByCategoryTimer.start();
 		try {
-			PreparedStatement stmnt = con.prepareStatement(SELECT_BY_CATEGORY_SQL);
-			stmnt.setInt(1, category.getId());
-			ResultSet rs = stmnt.executeQuery();
-			if (!rs.next()) {
-				LOG.info("Budget record, CATEGORY_ID = " + category.getId() + ": ResultSet is empty");
+			int id;
+			Money budgetAmt;
+			Money actualAmt;
+		
+			try (ConnectionLease lease = connections.reader()) {
+				PreparedStatement stmnt = StatementCache.of(lease.get()).prepare(SELECT_BY_CATEGORY_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, SELECT_BY_CATEGORY_SQL);
+				try {
+					stmnt.setInt(1, category.getId());
+					trace.bound();
+					try (ResultSet rs = stmnt.executeQuery()) {
+						trace.executed();
+						if (!rs.next()) {
+							LOG.info("Budget record, CATEGORY_ID = " + category.getId() + ": ResultSet is empty");
+							return Optional.empty();
+						}
+						long mapStart = trace.startRow();
+						id = rs.getInt(1);
+						budgetAmt = Money.ofCents(rs.getLong(2));
+						actualAmt = Money.ofCents(rs.getLong(3));
+						trace.endRow(mapStart);
+					}
+				} finally {
+					trace.end();
+				}
+			} catch (SQLException e) {
+				LOG.error("Error reading Budget record", e);
 				return Optional.empty();
 			}
-			id = rs.getInt(1);
-			budgetAmt = rs.getDouble(2);
-			actualAmt = rs.getDouble(3);
-		} catch (SQLException e) {
-			LOG.error("Error reading Budget record", e);
-			return Optional.empty();
-		}
 		
-		Budget record = new Budget(id, category, budgetAmt, actualAmt);
+			Budget record = new Budget(id, category, budgetAmt, actualAmt);
 			
-		return Optional.of(record);
+			return Optional.of(record);
+		} finally {
+			readByCategoryTimer.stop(start);
+		}
 	}
 	
 	@Override
 	public boolean update(Budget record) {
-		if (!connection.isPresent()) {
-			return false;
-		}
+		long start = metrics.update.start();
+		try {
+			int recordsAffected = 0;
 		
-		Connection con = connection.get();
-		int recordsAffected = 0;
+			try (ConnectionLease lease = connections.writer()) {
+				Connection con = lease.get();
+				con.setAutoCommit(false);
+				PreparedStatement stmnt = StatementCache.of(con).prepare(UPDATE_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, UPDATE_SQL);
+				try {
+					bindUpdate(stmnt, record);
+					trace.bound();
+					recordsAffected = stmnt.executeUpdate();
+					trace.executed();
+					trace.changed(recordsAffected);
+				} finally {
+					trace.end();
+				}
+				con.commit();
+			} catch (SQLException e) {
+				LOG.error("Error updating Budget record", e);
+				return false;
+			}
 		
-		try {
-			con.setAutoCommit(false);
-			PreparedStatement stmnt = con.prepareStatement(UPDATE_SQL);
-			stmnt.setInt(1, record.getCategoryId());
-			stmnt.setDouble(2, record.getBudgetAmount());
-			stmnt.setDouble(3, record.getActualAmount());
-			stmnt.setInt(4, record.getId());
-			recordsAffected = stmnt.executeUpdate();
-			con.commit();
-		} catch (SQLException e) {
-			LOG.error("Error updating Budget record", e);
-			return false;
+			return recordsAffected == 1;
+		} finally {
+			metrics.update.stop(start);
 		}
-		
-		return recordsAffected == 1;
 	}
 
 	@Override
 	public boolean delete(Integer key) {
-		if (!connection.isPresent()) {
-			return false;
-		}
+		long start = metrics.delete.start();
+		try {
+			int recordsAffected = 0;
 		
-		Connection con = connection.get();
-		int recordsAffected = 0;
+			try (ConnectionLease lease = connections.writer()) {
+				Connection con = lease.get();
+				con.setAutoCommit(false);
+				PreparedStatement stmnt = StatementCache.of(con).prepare(DELETE_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, DELETE_SQL);
+				try {
+					stmnt.setInt(1, key);
+					trace.bound();
+					recordsAffected = stmnt.executeUpdate();
+					trace.executed();
+					trace.changed(recordsAffected);
+				} finally {
+					trace.end();
+				}
+				con.commit();
+			} catch (SQLException e) {
+				LOG.error("Error deleting Budget record", e);
+				return false;
+			}
 		
+			return recordsAffected == 1;
+		} finally {
+			metrics.delete.stop(start);
+		}
+	}
+	
+	@Override
+	public List<Budget> createAll(Collection<Budget> records, int chunkSize) {
+		metrics.batchSize.record(records.size());
+		long start = metrics.createAll.start();
 		try {
-			con.setAutoCommit(false);
-			PreparedStatement stmnt = con.prepareStatement(DELETE_SQL);
-			stmnt.setInt(1, key);
-			recordsAffected = stmnt.executeUpdate();
-			con.commit();
-		} catch (SQLException e) {
-			LOG.error("Error deleting Budget record", e);
-			return false;
+			try (ConnectionLease lease = connections.writer()) {
+				return BatchExecutor.insert(lease.get(), INSERT_SQL, records, chunkSize, 
+						this::bindInsert, Budget::setId, "Budget");
+			} catch (SQLException e) {
+				LOG.error("Error creating Budget records", e);
+				return new ArrayList<>();
+			}
+		} finally {
+			metrics.createAll.stop(start);
+		}
+	}
+
+	@Override
+	public boolean updateAll(Collection<Budget> records, int chunkSize) {
+		metrics.batchSize.record(records.size());
+		long start = metrics.updateAll.start();
+		try {
+			try (ConnectionLease lease = connections.writer()) {
+				return BatchExecutor.execute(lease.get(), UPDATE_SQL, records, chunkSize, 
+						this::bindUpdate, "Budget");
+			} catch (SQLException e) {
+				LOG.error("Error updating Budget records", e);
+				return false;
+			}
+		} finally {
+			metrics.updateAll.stop(start);
+		}
+	}
+
+	@Override
+	public boolean deleteAll(Collection<Integer> keys, int chunkSize) {
+		metrics.batchSize.record(keys.size());
+		long start = metrics.deleteAll.start();
+		try {
+			try (ConnectionLease lease = connections.writer()) {
+				return BatchExecutor.execute(lease.get(), DELETE_SQL, keys, chunkSize, 
+						(stmnt, key) -> stmnt.setInt(1, key), "Budget");
+			} catch (SQLException e) {
+				LOG.error("Error deleting Budget records", e);
+				return false;
+			}
+		} finally {
+			metrics.deleteAll.stop(start);
 		}
-		
-		return recordsAffected == 1;
 	}
 	
 	@Override
 	public List<Budget> list() {
-		List<Budget> list = new ArrayList<>();
+		long start = metrics.list.start();
+		try {
+			List<Budget> list = new ArrayList<>();
 		
-		if (!connection.isPresent()) {
-			return list;
-		}
+			// Look up each category only once
+			Map<Integer, Optional<Category>> categories = new HashMap<>();
 		
-		Connection con = connection.get();
-		ResultSet rs;
+			try (ConnectionLease lease = connections.reader()) {
+				PreparedStatement stmnt = StatementCache.of(lease.get()).prepare(LIST_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, LIST_SQL);
+				try {
+			
+					try (ResultSet rs = stmnt.executeQuery()) {
+						trace.executed();
+						while (rs.next()) {
+							long mapStart = trace.startRow();
+							Budget record = mapRow(rs, categories);
+							trace.endRow(mapStart);
+					
+							if (record != null) {
+								list.add(record);
+							}
+						}
+					}
+				} finally {
+					trace.end();
+				}
+			} catch (SQLException e) {
+				LOG.error("Error getting Budget list", e);
+				return list;
+			}
 		
+			return list;
+		} finally {
+			metrics.list.stop(start);
+		}
+	}
+	
+	/**
+	 * List all budgets with their actual amounts for a period. The actual of a
+	 * budget is the total of the {@link EntryType#OUT} entries in its category
+	 * with dates in the period. This is worked out by the database in one
+	 * query; the stored actual amount is not used.
+	 * 
+	 * @param from the first date of the period
+	 * @param to the last date of the period
+	 * @return the budgets with their actuals. The list will be empty if there is 
+	 *         an SQL exception.
+	 */
+	public List<Budget> listActuals(LocalDate from, LocalDate to) {
+		long start = listActualsTimer.start();
 		try {
-			Statement stmnt = con.createStatement();
-			rs = stmnt.executeQuery(LIST_SQL);
+			List<Budget> list = new ArrayList<>();
+			Map<Integer, Optional<Category>> categories = new HashMap<>();
+		
+			try (ConnectionLease lease = connections.reader()) {
+				PreparedStatement stmnt = StatementCache.of(lease.get()).prepare(ACTUALS_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, ACTUALS_SQL);
+				try {
+					stmnt.setInt(1, EntryType.OUT.getCode());
+					stmnt.setLong(2, from.toEpochDay());
+					stmnt.setLong(3, to.toEpochDay());
+					trace.bound();
 			
-			while (rs.next()) {
-				int key = rs.getInt(1);
-				int categoryId = rs.getInt(2);
-				double budgetAmt = rs.getDouble(3);
-				double actualAmt = rs.getDouble(4);
-				CategoryDao categoryDao = new CategoryDao(con);
-				Optional<Category> categoryOpt = categoryDao.read(categoryId);
-				if (!categoryOpt.isPresent()) {
-					LOG.error("Budget record error: Category could not be found");
-					return list;
+					try (ResultSet rs = stmnt.executeQuery()) {
+						trace.executed();
+						while (rs.next()) {
+							long mapStart = trace.startRow();
+							Budget record = mapRow(rs, categories);
+							trace.endRow(mapStart);
+					
+							if (record != null) {
+								list.add(record);
+							}
+						}
+					}
+				} finally {
+					trace.end();
 				}
-				list.add(new Budget(key, categoryOpt.get(), budgetAmt, actualAmt));
+			} catch (SQLException e) {
+				LOG.error("Error getting Budget actuals", e);
+				return list;
 			}
-		} catch (SQLException e) {
-			LOG.error("Error getting Budget list", e);
+		
 			return list;
+		} finally {
+			listActualsTimer.stop(start);
 		}
-		
-		return list;
+	}
+	
+	@Override
+	public Stream<Budget> stream() {
+		long start = metrics.stream.start();
+		try {
+			Map<Integer, Optional<Category>> categories = new HashMap<>();
+			return ResultSetStream.of(connections, LIST_SQL, stmnt -> {}, 
+					rs -> mapRow(rs, categories), "Budget list");
+		} finally {
+			metrics.stream.stop(start);
+		}
+	}
+	
+	/**
+	 * Build a {@link Budget} from the current row of a ResultSet selected with 
+	 * LIST_SQL or ACTUALS_SQL. The category comes from the {@link CategoryCache}.
+	 * 
+	 * @param rs the ResultSet, positioned on the row to map
+	 * @param categories the categories already looked up, by ID. New categories are added.
+	 * @return the Budget, or {@code null} if its category is not on file
+	 * @throws SQLException if a column cannot be read
+	 */
+	private Budget mapRow(ResultSet rs, Map<Integer, Optional<Category>> categories) throws SQLException {
+		int key = rs.getInt(1);
+		int categoryId = rs.getInt(2);
+		Money budgetAmt = Money.ofCents(rs.getLong(3));
+		Money actualAmt = Money.ofCents(rs.getLong(4));
+		Optional<Category> category = categories.computeIfAbsent(categoryId, categoryDao::read);
+		return category.isPresent() 
+				? new Budget(key, category.get(), budgetAmt, actualAmt)
+				: null;
+	}
+	
+	private void bindInsert(PreparedStatement stmnt, Budget record) throws SQLException {
+		stmnt.setInt(1, record.getCategoryId());
+		stmnt.setLong(2, record.getBudgetAmount().getCents());
+		stmnt.setLong(3, record.getActualAmount().getCents());
+	}
+	
+	private void bindUpdate(PreparedStatement stmnt, Budget record) throws SQLException {
+		bindInsert(stmnt, record);
+		stmnt.setInt(4, record.getId());
 	}
 }
@@ -0,0 +1,82 @@
+package net.snortum.homefinance.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * One row of the budget table, with amounts in cents.
+ * {@link LedgerDao#scanBudgets} fills the same row again for each budget;
+ * {@link LedgerDao.Restorer#budgets} takes rows made with the constructor.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public final class BudgetRow {
+	private int id;
+	private int categoryId;
+	private long budgetAmount;
+	private long actualAmount;
+
+	BudgetRow() {
+	}
+
+	public BudgetRow(int id, int categoryId, long budgetAmount, long actualAmount) {
+		this.id = id;
+		this.categoryId = categoryId;
+		this.budgetAmount = budgetAmount;
+		this.actualAmount = actualAmount;
+	}
+
+	// Columns in the order of LedgerDao.SCAN_BUDGETS_SQL
+	BudgetRow read(ResultSet rs) throws SQLException {
+		id = rs.getInt(1);
+		categoryId = rs.getInt(2);
+		budgetAmount = rs.getLong(3);
+		actualAmount = rs.getLong(4);
+		return this;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public int getCategoryId() {
+		return categoryId;
+	}
+
+	/**
+	 * @return the budgeted amount in cents
+	 */
+	public long getBudgetAmount() {
+		return budgetAmount;
+	}
+
+	/**
+	 * @return the stored actual amount in cents, which reports do not use
+	 */
+	public long getActualAmount() {
+		return actualAmount;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof BudgetRow)) {
+			return false;
+		}
+		BudgetRow other = (BudgetRow) obj;
+		return id == other.id && categoryId == other.categoryId
+				&& budgetAmount == other.budgetAmount && actualAmount == other.actualAmount;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, categoryId, budgetAmount, actualAmount);
+	}
+
+	@Override
+	public String toString() {
+		return "BudgetRow [id=" + id + ", categoryId=" + categoryId + ", budgetAmount="
+				+ budgetAmount + ", actualAmount=" + actualAmount + "]";
+	}
+}
@@ -0,0 +1,228 @@
+package net.snortum.homefinance.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+import net.snortum.homefinance.model.Category;
+import net.snortum.homefinance.util.ConnectionSource;
+
+/**
+ * All the {@link Category} rows of one database, held in memory and found by
+ * ID or by description. There are only ever a few categories and they seldom
+ * change, so the whole table is loaded on first use by {@link CategoryDao},
+ * which keeps the cache up to date as it writes. Once loaded, every lookup is
+ * answered from memory, including lookups of categories that do not exist.
+ * <p>
+ * All DAOs using the same {@link ConnectionSource} share one cache. If the
+ * category table is changed some other way, call {@link #invalidate()}.
+ * <p>
+ * Callers get copies of the cached categories, so changing one does not change
+ * the cache.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public final class CategoryCache {
+
+	private static final Map<ConnectionSource, CategoryCache> CACHES = new WeakHashMap<>();
+
+	private final Map<Integer, Category> byId = new TreeMap<>();
+	private final Map<String, Category> byDescription = new HashMap<>();
+	private boolean loaded = false;
+	private long generation = 0;
+	private long hits = 0;
+	private long misses = 0;
+
+	private CategoryCache() {
+	}
+
+	/**
+	 * Get the category cache for a connection source, creating it if needed.
+	 *
+	 * @param connections
+	 *            the connection source
+	 * @return the cache shared by all users of this connection source
+	 */
+	public static CategoryCache of(ConnectionSource connections) {
+		synchronized (CACHES) {
+			CategoryCache cache = CACHES.get(connections);
+			if (cache == null) {
+				cache = new CategoryCache();
+				CACHES.put(connections, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Forget all categories. They are loaded again on the next lookup.
+	 */
+	public synchronized void invalidate() {
+		generation++;
+		loaded = false;
+		byId.clear();
+		byDescription.clear();
+	}
+
+	/**
+	 * Count a lookup. It is a hit if the whole category table is in memory.
+	 *
+	 * @return true if the cache is loaded, false if it must be loaded first
+	 */
+	synchronized boolean lookup() {
+		if (loaded) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return loaded;
+	}
+
+	/**
+	 * @return the generation to pass to {@link #load(Collection, long)}
+	 */
+	synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Replace the cache with the whole category table. If a category was
+	 * written since the load started, the rows read may be stale, so they are
+	 * not kept.
+	 *
+	 * @param categories
+	 *            every category row
+	 * @param loadGeneration
+	 *            the generation from {@link #getGeneration()} before the
+	 *            rows were read
+	 * @return true if the rows were kept
+	 */
+	synchronized boolean load(Collection<Category> categories, long loadGeneration) {
+		if (loadGeneration != generation) {
+			return false;
+		}
+
+		byId.clear();
+		byDescription.clear();
+		categories.forEach(this::add);
+		loaded = true;
+		return true;
+	}
+
+	/**
+	 * Look up a category by ID. Only call this once the cache is loaded.
+	 *
+	 * @param id
+	 *            the category ID
+	 * @return a copy of the category, or empty if there is none with this ID
+	 */
+	synchronized Optional<Category> get(int id) {
+		return copy(byId.get(id));
+	}
+
+	/**
+	 * Look up a category by description. Only call this once the cache is
+	 * loaded.
+	 *
+	 * @param description
+	 *            the category description
+	 * @return a copy of the category, or empty if there is none with this
+	 *         description
+	 */
+	synchronized Optional<Category> get(String description) {
+		return copy(byDescription.get(description));
+	}
+
+	/**
+	 * @return copies of all categories, in ID order. Only call this once the
+	 *         cache is loaded.
+	 */
+	synchronized List<Category> getAll() {
+		List<Category> all = new ArrayList<>(byId.size());
+		byId.values().forEach(category -> all.add(copy(category).get()));
+		return all;
+	}
+
+	/**
+	 * Add or replace a category that was just written to the database
+	 *
+	 * @param category
+	 *            the category as it is now on file
+	 */
+	synchronized void put(Category category) {
+		generation++;
+		remove(category.getId());
+		add(new Category(category.getId(), category.getDescription()));
+	}
+
+	/**
+	 * Drop a category that was just deleted from the database
+	 *
+	 * @param id
+	 *            the ID of the deleted category
+	 */
+	synchronized void evict(int id) {
+		generation++;
+		remove(id);
+	}
+
+	/**
+	 * @return the number of lookups answered from memory
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups that had to load the table first
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the fraction of lookups answered from memory, or zero if there
+	 *         have been none
+	 */
+	public synchronized double getHitRatio() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * @return the number of categories in memory
+	 */
+	public synchronized int size() {
+		return byId.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("CategoryCache: %d categories, %d hits, %d misses, %.1f%% hit ratio",
+				byId.size(), hits, misses, getHitRatio() * 100);
+	}
+
+	private void add(Category category) {
+		byId.put(category.getId(), category);
+		byDescription.put(category.getDescription(), category);
+	}
+
+	private void remove(int id) {
+		Category old = byId.remove(id);
+		if (old != null) {
+			byDescription.remove(old.getDescription());
+		}
+	}
+
+	private static Optional<Category> copy(Category category) {
+		return category == null
+				? Optional.empty()
+				: Optional.of(new Category(category.getId(), category.getDescription()));
+	}
+}
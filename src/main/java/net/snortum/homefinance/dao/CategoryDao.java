@@ -4,16 +4,20 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import net.snortum.homefinance.model.Category;
+import net.snortum.homefinance.util.ConnectionLease;
+import net.snortum.homefinance.util.ConnectionSource;
 import net.snortum.homefinance.util.DbConnection;
+import net.snortum.homefinance.util.Metrics;
 
 public class CategoryDao implements GenericDao<Category, Integer> {
 	
@@ -24,18 +28,6 @@ public class CategoryDao implements GenericDao<Category, Integer> {
 			+ "description " 
 			+ ") VALUES (?)";
 	
-	private static final String SELECT_SQL = 
-			"SELECT "
-			+ "description "
-			+ "FROM category "
-			+ "WHERE id = ?";
-	
-	private static final String SELECT_BY_DESC_SQL = 
-			"SELECT "
-			+ "id "
-			+ "FROM category "
-			+ "WHERE description = ?";
-	
 	private static final String UPDATE_SQL =
 			"UPDATE category "
 			+ "SET description = ? "
@@ -50,15 +42,19 @@ public class CategoryDao implements GenericDao<Category, Integer> {
 			+ "description "  // 2
 			+ "FROM category;";
 	
-	private final Optional<Connection> connection;
+	private final ConnectionSource connections;
+	private final CategoryCache cache;
+	private final DaoMetrics metrics = new DaoMetrics("category");
+	private final Metrics.Timer readByDescriptionTimer = metrics.timer("readByDescription");
 
 	/**
-	 * Create an CategoryDao with the default connection.
+	 * Create an CategoryDao with the default connection pool.
 	 * 
 	 * @see DbConnection
 	 */
 	public CategoryDao() {
-		connection = DbConnection.getConnection();
+		connections = DbConnection.getSource();
+		cache = CategoryCache.of(connections);
 	}
 	
 	/**
@@ -67,167 +63,314 @@ public class CategoryDao implements GenericDao<Category, Integer> {
 	 * @param con the connection object to use
 	 */
 	public CategoryDao(Connection con) {
-		connection = Optional.of(con);
+		connections = ConnectionSource.of(con);
+		cache = CategoryCache.of(connections);
+	}
+	
+	/**
+	 * Create an CategoryDao with the passed-in connection source.
+	 * 
+	 * @param connections where to get connections from
+	 */
+	public CategoryDao(ConnectionSource connections) {
+		this.connections = connections;
+		cache = CategoryCache.of(connections);
 	}
 
 	@Override
 	public Optional<Category> create(Category record) {
-		if (!connection.isPresent()) {
-			return Optional.empty();
-		}
-
-		Connection con = connection.get();
+		long start = metrics.create.start();
 		try {
-			con.setAutoCommit(false);
-			PreparedStatement stmnt = con.prepareStatement(INSERT_SQL);
-			stmnt.setString(1, record.getDescription());
-			stmnt.executeUpdate();
-			int id = stmnt.getGeneratedKeys().getInt(1);
-			record.setId(id);
-			con.commit();
-		} catch (SQLException e) {
+			try (ConnectionLease lease = connections.writer()) {
+				Connection con = lease.get();
+				con.setAutoCommit(false);
+				PreparedStatement stmnt = StatementCache.of(con).prepare(INSERT_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, INSERT_SQL);
+				try {
+					bindInsert(stmnt, record);
+					trace.bound();
+					int rows = stmnt.executeUpdate();
+					trace.executed();
+					trace.changed(rows);
+					try (ResultSet keys = stmnt.getGeneratedKeys()) {
+						record.setId(keys.getInt(1));
+					}
+				} finally {
+					trace.end();
+				}
+				con.commit();
+				cache.put(record);
+			} catch (SQLException e) {
 			
-			// A duplicate does not log an error
-			if ( !e.getMessage().contains("UNIQUE constraint failed") ) {
-				LOG.error("Error inserting a Category record", e);
+				// A duplicate does not log an error. The lease rolls back.
+				if ( !e.getMessage().contains("UNIQUE constraint failed") ) {
+					LOG.error("Error inserting a Category record", e);
+				}
 			}
 
-			try {
-				con.rollback();
-			} catch (SQLException e1) {
-				LOG.error(e1.getMessage());
-			}
+			return Optional.of(record);
+		} finally {
+			metrics.create.stop(start);
 		}
-
-		return Optional.of(record);
 	}
 
 	@Override
 	public Optional<Category> read(Integer key) {
-		if (!connection.isPresent() || key < 0) {
-			return Optional.empty();
-		}
-
-		Connection con = connection.get();
-		String desc;
-		
+		long start = metrics.read.start();
 		try {
-			PreparedStatement stmnt = con.prepareStatement(SELECT_SQL);
-			stmnt.setInt(1, key);
-			ResultSet rs = stmnt.executeQuery();
-			if (!rs.next()) {
-				LOG.warn("Category record, ID = " + key + ": ResultSet is empty");
+			if (key < 0 || !loadCache()) {
 				return Optional.empty();
 			}
-			desc = rs.getString(1);
-		} catch (SQLException e) {
-			LOG.error("Error reading Category record", e);
-			return Optional.empty();
-		}
+
+			Optional<Category> record = cache.get(key);
 		
-		Category record = new Category(key, desc);
-			
-		return Optional.of(record);
+			if (!record.isPresent()) {
+				LOG.warn("Category record, ID = " + key + ": not found");
+			}
+		
+			return record;
+		} finally {
+			metrics.read.stop(start);
+		}
 	}
 	
 	public Optional<Category> readByDescription(String desc) {
-		if (!connection.isPresent()) {
-			return Optional.empty();
-		}
-
-		Connection con = connection.get();
-		int key;
-		
+		long start = readByDescriptionTimer.start();
 		try {
-			PreparedStatement stmnt = con.prepareStatement(SELECT_BY_DESC_SQL);
-			stmnt.setString(1, desc);
-			ResultSet rs = stmnt.executeQuery();
-			if (!rs.next()) {
-				LOG.warn("Category record, DESCRIPTION = " + desc + ": ResultSet is empty");
+			if (!loadCache()) {
 				return Optional.empty();
 			}
-			key = rs.getInt(1);
-		} catch (SQLException e) {
-			LOG.error("Error reading Category record", e);
-			return Optional.empty();
-		}
 		
-		Category record = new Category(key, desc);
-			
-		return Optional.of(record);
+			Optional<Category> record = cache.get(desc);
+		
+			if (!record.isPresent()) {
+				LOG.warn("Category record, DESCRIPTION = " + desc + ": not found");
+			}
+		
+			return record;
+		} finally {
+			readByDescriptionTimer.stop(start);
+		}
 	}
 
 	@Override
 	public boolean update(Category record) {
-		if (!connection.isPresent()) {
-			return false;
-		}
+		long start = metrics.update.start();
+		try {
+			int recordsAffected = 0;
+		
+			try (ConnectionLease lease = connections.writer()) {
+				Connection con = lease.get();
+				con.setAutoCommit(false);
+				PreparedStatement stmnt = StatementCache.of(con).prepare(UPDATE_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, UPDATE_SQL);
+				try {
+					bindUpdate(stmnt, record);
+					trace.bound();
+					recordsAffected = stmnt.executeUpdate();
+					trace.executed();
+					trace.changed(recordsAffected);
+				} finally {
+					trace.end();
+				}
+				con.commit();
+			} catch (SQLException e) {
+				LOG.error("Error updating Category record", e);
+				return false;
+			}
 		
-		Connection con = connection.get();
-		int recordsAffected = 0;
+			if (recordsAffected == 1) {
+				cache.put(record);
+			}
 		
-		try {
-			con.setAutoCommit(false);
-			PreparedStatement stmnt = con.prepareStatement(UPDATE_SQL);
-			stmnt.setString(1, record.getDescription());
-			stmnt.setInt(2, record.getId());
-			recordsAffected = stmnt.executeUpdate();
-			con.commit();
-		} catch (SQLException e) {
-			LOG.error("Error updating Category record", e);
-			return false;
+			return recordsAffected == 1;
+		} finally {
+			metrics.update.stop(start);
 		}
-		
-		return recordsAffected == 1;
 	}
 
 	@Override
 	public boolean delete(Integer key) {
-		if (!connection.isPresent()) {
-			return false;
-		}
+		long start = metrics.delete.start();
+		try {
+			int recordsAffected = 0;
 		
-		Connection con = connection.get();
-		int recordsAffected = 0;
+			try (ConnectionLease lease = connections.writer()) {
+				Connection con = lease.get();
+				con.setAutoCommit(false);
+				PreparedStatement stmnt = StatementCache.of(con).prepare(DELETE_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, DELETE_SQL);
+				try {
+					stmnt.setInt(1, key);
+					trace.bound();
+					recordsAffected = stmnt.executeUpdate();
+					trace.executed();
+					trace.changed(recordsAffected);
+				} finally {
+					trace.end();
+				}
+				con.commit();
+			} catch (SQLException e) {
+				LOG.error("Error deleting Category record", e);
+				return false;
+			}
+		
+			if (recordsAffected == 1) {
+				cache.evict(key);
+			}
 		
+			return recordsAffected == 1;
+		} finally {
+			metrics.delete.stop(start);
+		}
+	}
+
+	@Override
+	public List<Category> createAll(Collection<Category> records, int chunkSize) {
+		metrics.batchSize.record(records.size());
+		long start = metrics.createAll.start();
 		try {
-			con.setAutoCommit(false);
-			PreparedStatement stmnt = con.prepareStatement(DELETE_SQL);
-			stmnt.setInt(1, key);
-			recordsAffected = stmnt.executeUpdate();
-			con.commit();
-		} catch (SQLException e) {
-			LOG.error("Error deleting Category record", e);
-			return false;
+			try (ConnectionLease lease = connections.writer()) {
+				List<Category> created = BatchExecutor.insert(lease.get(), INSERT_SQL, records, 
+						chunkSize, this::bindInsert, Category::setId, "Category");
+				created.forEach(cache::put);
+				return created;
+			} catch (SQLException e) {
+				LOG.error("Error creating Category records", e);
+				return new ArrayList<>();
+			}
+		} finally {
+			metrics.createAll.stop(start);
+		}
+	}
+
+	@Override
+	public boolean updateAll(Collection<Category> records, int chunkSize) {
+		metrics.batchSize.record(records.size());
+		long start = metrics.updateAll.start();
+		try {
+			try (ConnectionLease lease = connections.writer()) {
+				boolean updated = BatchExecutor.execute(lease.get(), UPDATE_SQL, records, chunkSize, 
+						this::bindUpdate, "Category");
+				if (updated) {
+					records.forEach(cache::put);
+				}
+				return updated;
+			} catch (SQLException e) {
+				LOG.error("Error updating Category records", e);
+				return false;
+			}
+		} finally {
+			metrics.updateAll.stop(start);
+		}
+	}
+
+	@Override
+	public boolean deleteAll(Collection<Integer> keys, int chunkSize) {
+		metrics.batchSize.record(keys.size());
+		long start = metrics.deleteAll.start();
+		try {
+			try (ConnectionLease lease = connections.writer()) {
+				boolean deleted = BatchExecutor.execute(lease.get(), DELETE_SQL, keys, chunkSize, 
+						(stmnt, key) -> stmnt.setInt(1, key), "Category");
+				if (deleted) {
+					keys.forEach(cache::evict);
+				}
+				return deleted;
+			} catch (SQLException e) {
+				LOG.error("Error deleting Category records", e);
+				return false;
+			}
+		} finally {
+			metrics.deleteAll.stop(start);
 		}
-		
-		return recordsAffected == 1;
 	}
 
 	@Override
 	public List<Category> list() {
-		List<Category> list = new ArrayList<>();
+		long start = metrics.list.start();
+		try {
+			if (!loadCache()) {
+				return new ArrayList<>();
+			}
 		
-		if (!connection.isPresent()) {
-			return list;
+			return cache.getAll();
+		} finally {
+			metrics.list.stop(start);
 		}
-		
-		Connection con = connection.get();
-		
+	}
+
+	/**
+	 * @return a stream of all categories, from the cache
+	 */
+	@Override
+	public Stream<Category> stream() {
+		long start = metrics.stream.start();
 		try {
-			Statement stmnt = con.createStatement();
-			ResultSet rs = stmnt.executeQuery(LIST_SQL);
+			return list().stream();
+		} finally {
+			metrics.stream.stop(start);
+		}
+	}
+	
+	/**
+	 * @return the cache this DAO reads categories from
+	 */
+	public CategoryCache getCache() {
+		return cache;
+	}
+	
+	/**
+	 * Read the whole category table into the cache, unless it is there already.
+	 * 
+	 * @return true if the cache is loaded, false if there was an SQL exception
+	 */
+	private boolean loadCache() {
+		if (cache.lookup()) {
+			return true;
+		}
+		
+		// A write while the table is read makes the rows stale, so read again
+		boolean kept;
+		do {
+			long generation = cache.getGeneration();
+			List<Category> categories = new ArrayList<>();
 			
-			while (rs.next()) {
-				int id = rs.getInt(1);
-				String description = rs.getString(2);
-				list.add(new Category(id, description)); 
+			try (ConnectionLease lease = connections.reader()) {
+				PreparedStatement stmnt = StatementCache.of(lease.get()).prepare(LIST_SQL);
+				SqlTrace trace = SqlTrace.begin(stmnt, LIST_SQL);
+				try {
+				
+					try (ResultSet rs = stmnt.executeQuery()) {
+						trace.executed();
+						while (rs.next()) {
+							long mapStart = trace.startRow();
+							int id = rs.getInt(1);
+							String description = rs.getString(2);
+							categories.add(new Category(id, description)); 
+							trace.endRow(mapStart);
+						}
+					}
+				} finally {
+					trace.end();
+				}
+			} catch (SQLException e) {
+				LOG.error("Error retrieving Category list", e);
+				return false;
 			}
-		} catch (SQLException e) {
-			LOG.error("Error retrieving Category list", e);
-			return list;
-		}
+			
+			kept = cache.load(categories, generation);
+		} while (!kept);
 		
-		return list;
+		return true;
+	}
+	
+	private void bindInsert(PreparedStatement stmnt, Category record) throws SQLException {
+		stmnt.setString(1, record.getDescription());
+	}
+	
+	private void bindUpdate(PreparedStatement stmnt, Category record) throws SQLException {
+		stmnt.setString(1, record.getDescription());
+		stmnt.setInt(2, record.getId());
 	}
 }
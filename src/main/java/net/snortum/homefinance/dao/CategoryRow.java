@@ -0,0 +1,60 @@
+package net.snortum.homefinance.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * One row of the category table. {@link LedgerDao#scanCategories} fills the
+ * same row again for each category; {@link LedgerDao.Restorer#categories}
+ * takes rows made with the constructor.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public final class CategoryRow {
+	private int id;
+	private String description;
+
+	CategoryRow() {
+	}
+
+	public CategoryRow(int id, String description) {
+		this.id = id;
+		this.description = description;
+	}
+
+	// Columns in the order of LedgerDao.SCAN_CATEGORIES_SQL
+	CategoryRow read(ResultSet rs) throws SQLException {
+		id = rs.getInt(1);
+		description = rs.getString(2);
+		return this;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof CategoryRow)) {
+			return false;
+		}
+		CategoryRow other = (CategoryRow) obj;
+		return id == other.id && Objects.equals(description, other.description);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, description);
+	}
+
+	@Override
+	public String toString() {
+		return "CategoryRow [id=" + id + ", description=" + description + "]";
+	}
+}
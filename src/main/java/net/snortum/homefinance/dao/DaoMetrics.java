@@ -0,0 +1,50 @@
+package net.snortum.homefinance.dao;
+
+import net.snortum.homefinance.util.Metrics;
+
+/**
+ * The {@link Metrics} of one DAO: a timer for each {@link GenericDao} method,
+ * named like "dao.category.read", and a histogram of the number of records
+ * in each batch call.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+final class DaoMetrics {
+	final Metrics.Timer create;
+	final Metrics.Timer read;
+	final Metrics.Timer update;
+	final Metrics.Timer delete;
+	final Metrics.Timer list;
+	final Metrics.Timer stream;
+	final Metrics.Timer createAll;
+	final Metrics.Timer updateAll;
+	final Metrics.Timer deleteAll;
+	final Metrics.Histogram batchSize;
+	private final String prefix;
+
+	/**
+	 * @param name the DAO name, such as "category"
+	 */
+	DaoMetrics(String name) {
+		prefix = "dao." + name + ".";
+		create = timer("create");
+		read = timer("read");
+		update = timer("update");
+		delete = timer("delete");
+		list = timer("list");
+		stream = timer("stream");
+		createAll = timer("createAll");
+		updateAll = timer("updateAll");
+		deleteAll = timer("deleteAll");
+		batchSize = Metrics.histogram(prefix + "batchSize");
+	}
+
+	/**
+	 * @param method a method name
+	 * @return a timer for a method that is not in {@link GenericDao}
+	 */
+	Metrics.Timer timer(String method) {
+		return Metrics.timer(prefix + method);
+	}
+}
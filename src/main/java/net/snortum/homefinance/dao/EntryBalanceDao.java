@@ -3,6 +3,7 @@ package net.snortum.homefinance.dao;
 import java.sql.Connection;
 
 import net.snortum.homefinance.model.EntryType;
+import net.snortum.homefinance.util.ConnectionSource;
 
 public class EntryBalanceDao extends AbstractEntryDao {
 
@@ -14,4 +15,8 @@ public class EntryBalanceDao extends AbstractEntryDao {
 		super(EntryType.BAL, connection);
 	}
 
+	public EntryBalanceDao(ConnectionSource connections) {
+		super(EntryType.BAL, connections);
+	}
+
 }
@@ -0,0 +1,47 @@
+package net.snortum.homefinance.dao;
+
+import java.time.LocalDate;
+
+/**
+ * The position of the last {@link net.snortum.homefinance.model.Entry} seen
+ * when paging through entries. Entries are ordered by date, then ID, so the
+ * next page starts right after this date and ID.
+ * 
+ * @author Knute Snortum
+ * @version 2026-10-18
+ * @see AbstractEntryDao#page(LocalDate, LocalDate, java.util.Optional, int)
+ */
+public final class EntryCursor {
+
+	private final LocalDate date;
+	private final int id;
+
+	/**
+	 * Create a cursor
+	 * 
+	 * @param date
+	 *            the date of the last entry seen
+	 * @param id
+	 *            the ID of the last entry seen
+	 */
+	public EntryCursor(LocalDate date, int id) {
+		if (date == null) {
+			throw new IllegalArgumentException("Date cannot be null");
+		}
+		this.date = date;
+		this.id = id;
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public String toString() {
+		return "EntryCursor: " + date + ", " + id;
+	}
+}
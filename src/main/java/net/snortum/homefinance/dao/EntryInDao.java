@@ -3,6 +3,7 @@ package net.snortum.homefinance.dao;
 import java.sql.Connection;
 
 import net.snortum.homefinance.model.EntryType;
+import net.snortum.homefinance.util.ConnectionSource;
 
 public class EntryInDao extends AbstractEntryDao {
 
@@ -14,4 +15,8 @@ public class EntryInDao extends AbstractEntryDao {
 		super(EntryType.IN, connection);
 	}
 
+	public EntryInDao(ConnectionSource connections) {
+		super(EntryType.IN, connections);
+	}
+
 }
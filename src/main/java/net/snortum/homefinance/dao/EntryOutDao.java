@@ -3,6 +3,7 @@ package net.snortum.homefinance.dao;
 import java.sql.Connection;
 
 import net.snortum.homefinance.model.EntryType;
+import net.snortum.homefinance.util.ConnectionSource;
 
 public class EntryOutDao extends AbstractEntryDao {
 
@@ -14,4 +15,8 @@ public class EntryOutDao extends AbstractEntryDao {
 		super(EntryType.OUT, connection);
 	}
 
+	public EntryOutDao(ConnectionSource connections) {
+		super(EntryType.OUT, connections);
+	}
+
 }
@@ -0,0 +1,44 @@
+package net.snortum.homefinance.dao;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import net.snortum.homefinance.model.Entry;
+
+/**
+ * One page of {@link Entry} objects and the cursor to the next page, if any.
+ * 
+ * @author Knute Snortum
+ * @version 2026-10-18
+ * @see AbstractEntryDao#page(java.time.LocalDate, java.time.LocalDate, Optional, int)
+ */
+public final class EntryPage {
+
+	private final List<Entry> entries;
+	private final Optional<EntryCursor> next;
+
+	EntryPage(List<Entry> entries, Optional<EntryCursor> next) {
+		this.entries = Collections.unmodifiableList(entries);
+		this.next = next;
+	}
+
+	/**
+	 * @return the entries on this page, in date then ID order
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * @return the cursor to pass in to get the next page. Empty if this is the
+	 *         last page.
+	 */
+	public Optional<EntryCursor> getNext() {
+		return next;
+	}
+
+	public boolean hasNext() {
+		return next.isPresent();
+	}
+}
@@ -0,0 +1,166 @@
+package net.snortum.homefinance.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+import net.snortum.homefinance.model.Entry;
+import net.snortum.homefinance.model.EntryType;
+
+/**
+ * One row of the entry table, as it is stored: amounts in cents, dates as
+ * epoch days, the category as its ID. {@link LedgerDao#scanEntries} fills the
+ * same row again for each entry, so a whole ledger can be read without
+ * building an {@link Entry}, with its properties, for every row. Copy any
+ * value that must outlive the call. {@link LedgerDao.Restorer#entries} takes
+ * rows made with the constructor.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public final class EntryRow {
+	private int id;
+	private String description;
+	private EntryType type;
+	private int flags;
+	private long amount;
+	private String comment;
+	private String url;
+	private long date;
+	private int categoryId;
+
+	EntryRow() {
+	}
+
+	/**
+	 * @param id the entry ID
+	 * @param description the description
+	 * @param type the type, which must not be {@code null}
+	 * @param flags the bits of the flags column
+	 * @param amount the amount in cents
+	 * @param comment the comment
+	 * @param url the URL text
+	 * @param date the date as a count of days from 1970-01-01
+	 * @param categoryId the category ID, or -1 for none
+	 */
+	public EntryRow(int id, String description, EntryType type, int flags, long amount,
+			String comment, String url, long date, int categoryId) {
+		this.id = id;
+		this.description = description;
+		this.type = type;
+		this.flags = flags;
+		this.amount = amount;
+		this.comment = comment;
+		this.url = url;
+		this.date = date;
+		this.categoryId = categoryId;
+	}
+
+	// Columns in the order of LedgerDao.SCAN_ENTRIES_SQL
+	EntryRow read(ResultSet rs) throws SQLException {
+		id = rs.getInt(1);
+		description = rs.getString(2);
+		type = EntryType.fromCode(rs.getInt(3));
+		flags = rs.getInt(4);
+		amount = rs.getLong(5);
+		comment = rs.getString(6);
+		url = rs.getString(7);
+		date = rs.getLong(8);
+		categoryId = rs.getInt(9);
+		return this;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * @return the type, or {@code null} if the code in the row is unknown
+	 */
+	public EntryType getType() {
+		return type;
+	}
+
+	public boolean isRecurring() {
+		return (flags & AbstractEntryDao.RECURRING_FLAG) != 0;
+	}
+
+	public boolean isPaid() {
+		return (flags & AbstractEntryDao.PAID_FLAG) != 0;
+	}
+
+	public boolean isReconciled() {
+		return (flags & AbstractEntryDao.RECONCILED_FLAG) != 0;
+	}
+
+	/**
+	 * @return the bits of the flags column
+	 */
+	public int getFlags() {
+		return flags;
+	}
+
+	/**
+	 * @return the amount in cents, never negative; the type says which way the
+	 *         money went
+	 */
+	public long getAmount() {
+		return amount;
+	}
+
+	/**
+	 * @return the comment, which may be empty or {@code null}
+	 */
+	public String getComment() {
+		return comment;
+	}
+
+	/**
+	 * @return the URL text, which may be empty or {@code null}
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * @return the date as a count of days from 1970-01-01
+	 */
+	public long getDate() {
+		return date;
+	}
+
+	/**
+	 * @return the category ID, or -1 if there is no category
+	 */
+	public int getCategoryId() {
+		return categoryId;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof EntryRow)) {
+			return false;
+		}
+		EntryRow other = (EntryRow) obj;
+		return id == other.id && type == other.type && flags == other.flags
+				&& amount == other.amount && date == other.date && categoryId == other.categoryId
+				&& Objects.equals(description, other.description)
+				&& Objects.equals(comment, other.comment) && Objects.equals(url, other.url);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, description, type, flags, amount, comment, url, date, categoryId);
+	}
+
+	@Override
+	public String toString() {
+		return "EntryRow [id=" + id + ", description=" + description + ", type=" + type
+				+ ", flags=" + flags + ", amount=" + amount + ", comment=" + comment + ", url="
+				+ url + ", date=" + date + ", categoryId=" + categoryId + "]";
+	}
+}
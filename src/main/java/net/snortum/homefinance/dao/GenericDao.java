@@ -1,13 +1,81 @@
 package net.snortum.homefinance.dao;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface GenericDao<T, PK extends Serializable> {
+	
+	/** The default number of records sent to the database in one JDBC batch */
+	static final int DEFAULT_CHUNK_SIZE = 500;
+	
 	Optional<T> create(T record);
 	Optional<T> read(PK key);
 	boolean update(T record);
 	boolean delete(PK key);
 	List<T> list();
+	
+	/**
+	 * Stream the same records as {@link #list()} straight from the database,
+	 * one row at a time. The stream holds an open cursor, so close it, for
+	 * instance with try-with-resources:
+	 * 
+	 * <pre>
+	 * try (Stream&lt;Entry&gt; entries = dao.stream()) {
+	 *     entries.forEach(exporter::write);
+	 * }
+	 * </pre>
+	 * 
+	 * @return a stream of all records. The stream will be empty if there is no
+	 *         DB connection or if there is an SQL exception.
+	 */
+	Stream<T> stream();
+	
+	/**
+	 * Create many records in one transaction, sending them to the database in
+	 * JDBC batches of {@code chunkSize}. The generated ID is set into each
+	 * record.
+	 * 
+	 * @param records the records to create
+	 * @param chunkSize the number of records per batch
+	 * @return the created records, or an empty list if there was an error, in
+	 *         which case nothing was created
+	 */
+	List<T> createAll(Collection<T> records, int chunkSize);
+	
+	/**
+	 * Update many records in one transaction, in JDBC batches of
+	 * {@code chunkSize}.
+	 * 
+	 * @param records the records to update
+	 * @param chunkSize the number of records per batch
+	 * @return false if there was an error or if any record did not update
+	 *         exactly one row, in which case nothing was updated
+	 */
+	boolean updateAll(Collection<T> records, int chunkSize);
+	
+	/**
+	 * Delete many records by key in one transaction, in JDBC batches of
+	 * {@code chunkSize}.
+	 * 
+	 * @param keys the keys of the records to delete
+	 * @param chunkSize the number of keys per batch
+	 * @return false if there was an error or if any key did not delete
+	 *         exactly one row, in which case nothing was deleted
+	 */
+	boolean deleteAll(Collection<PK> keys, int chunkSize);
+	
+	default List<T> createAll(Collection<T> records) {
+		return createAll(records, DEFAULT_CHUNK_SIZE);
+	}
+	
+	default boolean updateAll(Collection<T> records) {
+		return updateAll(records, DEFAULT_CHUNK_SIZE);
+	}
+	
+	default boolean deleteAll(Collection<PK> keys) {
+		return deleteAll(keys, DEFAULT_CHUNK_SIZE);
+	}
 }
@@ -0,0 +1,649 @@
+package net.snortum.homefinance.dao;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.snortum.homefinance.model.Entry;
+import net.snortum.homefinance.util.ConnectionLease;
+import net.snortum.homefinance.util.ConnectionSource;
+import net.snortum.homefinance.util.DbConnection;
+import net.snortum.homefinance.util.Metrics;
+
+/**
+ * Queries over the whole ledger, of every entry type at once, for work such
+ * as importing and exporting that would otherwise read it one
+ * {@link net.snortum.homefinance.model.Entry} at a time.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class LedgerDao {
+
+	private static final Logger LOG = LogManager.getLogger();
+
+	private static final String STATE_SQL =
+			"SELECT count(*), "            // 1
+			+ "coalesce(max(id), 0), "     // 2
+			+ "coalesce(sum(amount), 0), " // 3
+			+ "coalesce(sum(date), 0), "   // 4
+			+ "(SELECT generation FROM entry_generation) " // 5
+			+ "FROM entry";
+
+	static final String SCAN_CATEGORIES_SQL =
+			"SELECT id, "     // 1
+			+ "description "  // 2
+			+ "FROM category "
+			+ "ORDER BY id";
+
+	static final String SCAN_BUDGETS_SQL =
+			"SELECT id, "     // 1
+			+ "category_id, " // 2
+			+ "budget_amt, "  // 3
+			+ "actual_amt "   // 4
+			+ "FROM budget "
+			+ "ORDER BY id";
+
+	static final String SCAN_ENTRIES_SQL =
+			"SELECT id, "     // 1
+			+ "description, " // 2
+			+ "type, "        // 3
+			+ "flags, "       // 4
+			+ "amount, "      // 5
+			+ "comment, "     // 6
+			+ "url, "         // 7
+			+ "date, "        // 8
+			+ "category_id "  // 9
+			+ "FROM entry "
+			+ "ORDER BY id";
+
+	// Run once in every transaction that writes entries
+	private static final String ADVANCE_GENERATION_SQL =
+			"UPDATE entry_generation SET generation = generation + 1";
+
+	private static final String COUNT_ROWS_SQL =
+			"SELECT (SELECT count(*) FROM category) "
+			+ "+ (SELECT count(*) FROM budget) "
+			+ "+ (SELECT count(*) FROM entry)";
+
+	// Entries and budgets name categories, so they go first
+	private static final String[] CLEAR_SQL = {
+			"DELETE FROM entry",
+			"DELETE FROM budget",
+			"DELETE FROM category" };
+
+	private static final String RESTORE_CATEGORY_SQL =
+			"INSERT INTO category ("
+			+ "id, "          // 1
+			+ "description"   // 2
+			+ ") VALUES (?, ?)";
+
+	private static final String RESTORE_BUDGET_SQL =
+			"INSERT INTO budget ("
+			+ "id, "          // 1
+			+ "category_id, " // 2
+			+ "budget_amt, "  // 3
+			+ "actual_amt"    // 4
+			+ ") VALUES (?, ?, ?, ?)";
+
+	private static final String RESTORE_ENTRY_SQL =
+			"INSERT INTO entry ("
+			+ "id, "          // 1
+			+ "description, " // 2
+			+ "type, "        // 3
+			+ "flags, "       // 4
+			+ "amount, "      // 5
+			+ "comment, "     // 6
+			+ "url, "         // 7
+			+ "date, "        // 8
+			+ "category_id"   // 9
+			+ ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final ConnectionSource connections;
+	private final DaoMetrics metrics = new DaoMetrics("ledger");
+	private final Metrics.Timer stateTimer = metrics.timer("state");
+	private final Metrics.Timer scanCategoriesTimer = metrics.timer("scanCategories");
+	private final Metrics.Timer scanBudgetsTimer = metrics.timer("scanBudgets");
+	private final Metrics.Timer scanEntriesTimer = metrics.timer("scanEntries");
+	private final Metrics.Timer scanTogetherTimer = metrics.timer("scanTogether");
+	private final Metrics.Timer countRowsTimer = metrics.timer("countRows");
+	private final Metrics.Timer createEntriesTimer = metrics.timer("createEntries");
+	private final Metrics.Timer clearTimer = metrics.timer("clear");
+	private final Metrics.Timer restoreTimer = metrics.timer("restore");
+
+	/**
+	 * Create a LedgerDao with the default connection pool.
+	 *
+	 * @see DbConnection
+	 */
+	public LedgerDao() {
+		connections = DbConnection.getSource();
+	}
+
+	/**
+	 * Create a LedgerDao with the passed-in connection.
+	 *
+	 * @param con the connection object to use
+	 */
+	public LedgerDao(Connection con) {
+		connections = ConnectionSource.of(con);
+	}
+
+	/**
+	 * Create a LedgerDao with the passed-in connection source.
+	 *
+	 * @param connections where to get connections from
+	 */
+	public LedgerDao(ConnectionSource connections) {
+		this.connections = connections;
+	}
+
+	/**
+	 * @return a summary of the entry table that changes whenever an entry is
+	 *         added, removed or changed. Optional will be empty if there is an
+	 *         SQL exception.
+	 */
+	public Optional<State> state() {
+		long start = stateTimer.start();
+		try (ConnectionLease lease = connections.reader()) {
+			return Optional.of(readState(lease.get()));
+		} catch (SQLException e) {
+			LOG.error("Error getting the ledger state", e);
+			return Optional.empty();
+		} finally {
+			stateTimer.stop(start);
+		}
+	}
+
+	/**
+	 * Pass every category, in ID order, to an action. The same
+	 * {@link CategoryRow} is filled for each category.
+	 *
+	 * @param action what to do with each row
+	 * @return true if every category was read, false if there is an SQL
+	 *         exception
+	 */
+	public boolean scanCategories(Consumer<CategoryRow> action) {
+		CategoryRow row = new CategoryRow();
+		return scan(SCAN_CATEGORIES_SQL, scanCategoriesTimer, row::read, action, "categories");
+	}
+
+	/**
+	 * Pass every budget, in ID order, to an action. The same {@link BudgetRow}
+	 * is filled for each budget.
+	 *
+	 * @param action what to do with each row
+	 * @return true if every budget was read, false if there is an SQL
+	 *         exception
+	 */
+	public boolean scanBudgets(Consumer<BudgetRow> action) {
+		BudgetRow row = new BudgetRow();
+		return scan(SCAN_BUDGETS_SQL, scanBudgetsTimer, row::read, action, "budgets");
+	}
+
+	/**
+	 * Pass every entry, in ID order, to an action. The same {@link EntryRow}
+	 * is filled for each entry, so memory does not grow with the ledger.
+	 *
+	 * @param action what to do with each row
+	 * @return true if every entry was read, false if there is an SQL exception
+	 */
+	public boolean scanEntries(Consumer<EntryRow> action) {
+		EntryRow row = new EntryRow();
+		return scan(SCAN_ENTRIES_SQL, scanEntriesTimer, row::read, action, "entries");
+	}
+
+	/**
+	 * Run a scan that reads several tables, and perhaps the {@link State},
+	 * on one reader connection inside one read transaction, so everything it
+	 * reads comes from the same commit even while entries are being written.
+	 *
+	 * @param scan reads the ledger through a {@link Scanner}
+	 * @return false if there is an SQL exception or the scan fails
+	 */
+	public boolean scanTogether(Scan scan) {
+		long start = scanTogetherTimer.start();
+		try (ConnectionLease lease = connections.reader()) {
+			Connection con = lease.get();
+
+			// A scan inside another transaction reads in that one
+			boolean begin = con.getAutoCommit();
+			if (begin) {
+				con.setAutoCommit(false);
+			}
+
+			try {
+				scan.scan(new Scanner(con));
+				if (begin) {
+					con.commit();
+				}
+			} finally {
+				if (begin) {
+					con.setAutoCommit(true);
+				}
+			}
+			return true;
+		} catch (SQLException | IOException e) {
+			LOG.error("Error scanning the ledger", e);
+			return false;
+		} finally {
+			scanTogetherTimer.stop(start);
+		}
+	}
+
+	/**
+	 * @return the number of categories, budgets and entries, added up.
+	 *         Optional will be empty if there is an SQL exception.
+	 */
+	public Optional<Long> countRows() {
+		long start = countRowsTimer.start();
+		try (ConnectionLease lease = connections.reader()) {
+			PreparedStatement stmnt = StatementCache.of(lease.get()).prepare(COUNT_ROWS_SQL);
+			SqlTrace trace = SqlTrace.begin(stmnt, COUNT_ROWS_SQL);
+			long count;
+			try {
+				trace.bound();
+				try (ResultSet rs = stmnt.executeQuery()) {
+					trace.executed();
+					rs.next();
+					count = rs.getLong(1);
+				}
+			} finally {
+				trace.end();
+			}
+			return Optional.of(count);
+		} catch (SQLException e) {
+			LOG.error("Error counting the ledger rows", e);
+			return Optional.empty();
+		} finally {
+			countRowsTimer.stop(start);
+		}
+	}
+
+	/**
+	 * Create entries of any type in one transaction, in the order given, so
+	 * their new IDs follow that order.
+	 *
+	 * @param records the entries to insert
+	 * @return the records with their new IDs. The list will be empty if there
+	 *         is an SQL exception, in which case nothing is created.
+	 */
+	public List<Entry> createEntries(Collection<Entry> records) {
+		long start = createEntriesTimer.start();
+		try (ConnectionLease lease = connections.writer()) {
+			return BatchExecutor.insert(lease.get(), AbstractEntryDao.INSERT_SQL, records,
+					GenericDao.DEFAULT_CHUNK_SIZE,
+					(stmnt, record) -> AbstractEntryDao.bindEntry(stmnt, record, record.getType()),
+					Entry::setId, LedgerDao::advanceGeneration, "Entry");
+		} catch (SQLException e) {
+			LOG.error("Error creating Entry records", e);
+			return new ArrayList<>();
+		} finally {
+			createEntriesTimer.stop(start);
+		}
+	}
+
+	/**
+	 * Delete every entry, budget and category, in one transaction.
+	 *
+	 * @return false if there is an SQL exception, in which case nothing is
+	 *         deleted
+	 */
+	public boolean clear() {
+		long start = clearTimer.start();
+		try (ConnectionLease lease = connections.writer()) {
+			Connection con = lease.get();
+			con.setAutoCommit(false);
+			deleteAll(con);
+			advanceGeneration(con);
+			con.commit();
+			return true;
+		} catch (SQLException e) {
+
+			// The lease rolls back
+			LOG.error("Error clearing the ledger", e);
+			return false;
+		} finally {
+			CategoryCache.of(connections).invalidate();
+			clearTimer.stop(start);
+		}
+	}
+
+	/**
+	 * Replace every entry, budget and category with the rows a loader hands
+	 * to a {@link Restorer}, all in one transaction on the writer connection.
+	 * The loader can pass the rows a batch at a time, so they need not all be
+	 * in memory at once.
+	 *
+	 * @param loader reads the rows to restore
+	 * @return false if there is an SQL exception or the loader fails, in which
+	 *         case the ledger is left as it was
+	 */
+	public boolean restore(Loader loader) {
+		long start = restoreTimer.start();
+		try (ConnectionLease lease = connections.writer()) {
+			Connection con = lease.get();
+			con.setAutoCommit(false);
+			deleteAll(con);
+			loader.load(new Restorer(con));
+			advanceGeneration(con);
+			con.commit();
+			return true;
+		} catch (SQLException | IOException e) {
+
+			// The lease rolls back
+			LOG.error("Error restoring the ledger, it is left as it was", e);
+			return false;
+		} finally {
+			CategoryCache.of(connections).invalidate();
+			restoreTimer.stop(start);
+		}
+	}
+
+	/**
+	 * Add one to the generation of the entry table. Every transaction that
+	 * writes entries calls this once before it commits, so the generation in
+	 * {@link State} moves whenever the entries change.
+	 *
+	 * @param con the writer connection, inside the writing transaction
+	 * @throws SQLException if the generation cannot be written
+	 */
+	static void advanceGeneration(Connection con) throws SQLException {
+		PreparedStatement stmnt = StatementCache.of(con).prepare(ADVANCE_GENERATION_SQL);
+		SqlTrace trace = SqlTrace.begin(stmnt, ADVANCE_GENERATION_SQL);
+		try {
+			trace.bound();
+			int rows = stmnt.executeUpdate();
+			trace.executed();
+			trace.changed(rows);
+		} finally {
+			trace.end();
+		}
+	}
+
+	private static void deleteAll(Connection con) throws SQLException {
+		for (String sql : CLEAR_SQL) {
+			PreparedStatement stmnt = StatementCache.of(con).prepare(sql);
+			SqlTrace trace = SqlTrace.begin(stmnt, sql);
+			try {
+				trace.bound();
+				int rows = stmnt.executeUpdate();
+				trace.executed();
+				trace.changed(rows);
+			} finally {
+				trace.end();
+			}
+		}
+	}
+
+	private static State readState(Connection con) throws SQLException {
+		PreparedStatement stmnt = StatementCache.of(con).prepare(STATE_SQL);
+		SqlTrace trace = SqlTrace.begin(stmnt, STATE_SQL);
+		try {
+			trace.bound();
+			try (ResultSet rs = stmnt.executeQuery()) {
+				trace.executed();
+				rs.next();
+				return new State(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4),
+						rs.getLong(5));
+			}
+		} finally {
+			trace.end();
+		}
+	}
+
+	// Read a whole table on a reader of its own
+	private <T> boolean scan(String sql, Metrics.Timer timer, RowMapper<T> mapper,
+			Consumer<T> action, String what) {
+		long start = timer.start();
+		try (ConnectionLease lease = connections.reader()) {
+			scan(lease.get(), sql, mapper, action);
+			return true;
+		} catch (SQLException e) {
+			LOG.error("Error scanning the " + what, e);
+			return false;
+		} finally {
+			timer.stop(start);
+		}
+	}
+
+	// Read a whole table, handing each row to the action as it is read
+	private static <T> void scan(Connection con, String sql, RowMapper<T> mapper,
+			Consumer<T> action) throws SQLException {
+		PreparedStatement stmnt = StatementCache.of(con).prepare(sql);
+		SqlTrace trace = SqlTrace.begin(stmnt, sql);
+		try {
+			trace.bound();
+			try (ResultSet rs = stmnt.executeQuery()) {
+				trace.executed();
+				while (rs.next()) {
+					long mapStart = trace.startRow();
+					T row = mapper.map(rs);
+					trace.endRow(mapStart);
+					action.accept(row);
+				}
+			}
+		} finally {
+			trace.end();
+		}
+	}
+
+	/**
+	 * Reads the ledger through a {@link Scanner}, inside the read transaction
+	 * of {@link LedgerDao#scanTogether(Scan)}.
+	 */
+	@FunctionalInterface
+	public interface Scan {
+		void scan(Scanner scanner) throws IOException, SQLException;
+	}
+
+	/**
+	 * Reads the state and whole tables, all on the connection and in the
+	 * read transaction of {@link LedgerDao#scanTogether(Scan)}. Each scan
+	 * fills the same row object for every row, as
+	 * {@link LedgerDao#scanEntries(Consumer)} does.
+	 */
+	public final class Scanner {
+		private final Connection con;
+
+		private Scanner(Connection con) {
+			this.con = con;
+		}
+
+		/**
+		 * @return the state of the entry table
+		 * @throws SQLException if it cannot be read
+		 */
+		public State state() throws SQLException {
+			long start = stateTimer.start();
+			try {
+				return readState(con);
+			} finally {
+				stateTimer.stop(start);
+			}
+		}
+
+		/**
+		 * @param action what to do with each category, in ID order
+		 * @throws SQLException if the categories cannot be read
+		 */
+		public void categories(Consumer<CategoryRow> action) throws SQLException {
+			CategoryRow row = new CategoryRow();
+			timed(SCAN_CATEGORIES_SQL, scanCategoriesTimer, row::read, action);
+		}
+
+		/**
+		 * @param action what to do with each budget, in ID order
+		 * @throws SQLException if the budgets cannot be read
+		 */
+		public void budgets(Consumer<BudgetRow> action) throws SQLException {
+			BudgetRow row = new BudgetRow();
+			timed(SCAN_BUDGETS_SQL, scanBudgetsTimer, row::read, action);
+		}
+
+		/**
+		 * @param action what to do with each entry, in ID order
+		 * @throws SQLException if the entries cannot be read
+		 */
+		public void entries(Consumer<EntryRow> action) throws SQLException {
+			EntryRow row = new EntryRow();
+			timed(SCAN_ENTRIES_SQL, scanEntriesTimer, row::read, action);
+		}
+
+		private <T> void timed(String sql, Metrics.Timer timer, RowMapper<T> mapper,
+				Consumer<T> action) throws SQLException {
+			long start = timer.start();
+			try {
+				scan(con, sql, mapper, action);
+			} finally {
+				timer.stop(start);
+			}
+		}
+	}
+
+	/**
+	 * Reads the rows of a ledger being restored and hands them to a
+	 * {@link Restorer}, categories first, then budgets, then entries.
+	 */
+	@FunctionalInterface
+	public interface Loader {
+		void load(Restorer restorer) throws IOException, SQLException;
+	}
+
+	/**
+	 * Inserts rows with the IDs they have, inside the transaction of
+	 * {@link LedgerDao#restore(Loader)}. Each call sends its rows in JDBC
+	 * batches, without committing.
+	 */
+	public static final class Restorer {
+		private final Connection con;
+
+		private Restorer(Connection con) {
+			this.con = con;
+		}
+
+		/**
+		 * @param rows categories to insert
+		 * @throws SQLException if a row cannot be inserted
+		 */
+		public void categories(Collection<CategoryRow> rows) throws SQLException {
+			BatchExecutor.executeInTransaction(con, RESTORE_CATEGORY_SQL, rows,
+					GenericDao.DEFAULT_CHUNK_SIZE, (stmnt, row) -> {
+						stmnt.setInt(1, row.getId());
+						stmnt.setString(2, row.getDescription());
+					});
+		}
+
+		/**
+		 * @param rows budgets to insert
+		 * @throws SQLException if a row cannot be inserted
+		 */
+		public void budgets(Collection<BudgetRow> rows) throws SQLException {
+			BatchExecutor.executeInTransaction(con, RESTORE_BUDGET_SQL, rows,
+					GenericDao.DEFAULT_CHUNK_SIZE, (stmnt, row) -> {
+						stmnt.setInt(1, row.getId());
+						stmnt.setInt(2, row.getCategoryId());
+						stmnt.setLong(3, row.getBudgetAmount());
+						stmnt.setLong(4, row.getActualAmount());
+					});
+		}
+
+		/**
+		 * @param rows entries to insert
+		 * @throws SQLException if a row cannot be inserted
+		 */
+		public void entries(Collection<EntryRow> rows) throws SQLException {
+			BatchExecutor.executeInTransaction(con, RESTORE_ENTRY_SQL, rows,
+					GenericDao.DEFAULT_CHUNK_SIZE, (stmnt, row) -> {
+						stmnt.setInt(1, row.getId());
+						stmnt.setString(2, row.getDescription());
+						stmnt.setInt(3, row.getType().getCode());
+						stmnt.setInt(4, row.getFlags());
+						stmnt.setLong(5, row.getAmount());
+						stmnt.setString(6, row.getComment());
+						stmnt.setString(7, row.getUrl());
+						stmnt.setLong(8, row.getDate());
+						stmnt.setInt(9, row.getCategoryId());
+					});
+		}
+	}
+
+	/**
+	 * The number of entries, the highest ID, the totals of the amounts and
+	 * dates, and the generation of the entry table, which goes up by one with
+	 * every transaction that writes entries. Two equal states mean no entry
+	 * has been written in between; the totals tell apart two copies of a
+	 * database that were changed in different ways after they were copied.
+	 */
+	public static final class State {
+		private final long count;
+		private final long lastId;
+		private final long amountTotal;
+		private final long dateTotal;
+		private final long generation;
+
+		public State(long count, long lastId, long amountTotal, long dateTotal, long generation) {
+			this.count = count;
+			this.lastId = lastId;
+			this.amountTotal = amountTotal;
+			this.dateTotal = dateTotal;
+			this.generation = generation;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getLastId() {
+			return lastId;
+		}
+
+		public long getAmountTotal() {
+			return amountTotal;
+		}
+
+		public long getDateTotal() {
+			return dateTotal;
+		}
+
+		public long getGeneration() {
+			return generation;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof State)) {
+				return false;
+			}
+			State other = (State) obj;
+			return count == other.count && lastId == other.lastId
+					&& amountTotal == other.amountTotal && dateTotal == other.dateTotal
+					&& generation == other.generation;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode((((count * 31 + lastId) * 31 + amountTotal) * 31 + dateTotal) * 31
+					+ generation);
+		}
+
+		@Override
+		public String toString() {
+			return "State [count=" + count + ", lastId=" + lastId + ", amountTotal=" + amountTotal
+					+ ", dateTotal=" + dateTotal + ", generation=" + generation + "]";
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package net.snortum.homefinance.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.snortum.homefinance.util.ConnectionLease;
+import net.snortum.homefinance.util.ConnectionSource;
+
+/**
+ * Turns a live {@link ResultSet} into a {@link Stream}. Rows are mapped one at
+ * a time as the stream is consumed, so only the current row is held in memory.
+ * The ResultSet, its statement and the borrowed connection are given back when
+ * the stream is closed or when the last row has been read.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+final class ResultSetStream {
+
+	private static final Logger LOG = LogManager.getLogger();
+
+	/**
+	 * Sets the parameters of a query
+	 */
+	@FunctionalInterface
+	interface ParameterSetter {
+		void set(PreparedStatement stmnt) throws SQLException;
+	}
+
+	private ResultSetStream() {
+	}
+
+	/**
+	 * Run a query on a reader connection and stream its rows. The statement
+	 * is prepared just for this stream, not taken from the
+	 * {@link StatementCache}, because the stream owns it until it is closed.
+	 *
+	 * @param connections
+	 *            where to borrow the reader connection from
+	 * @param sql
+	 *            the query
+	 * @param parameters
+	 *            sets the query parameters
+	 * @param mapper
+	 *            maps each row to an object. Rows mapped to {@code null} are
+	 *            skipped.
+	 * @param description
+	 *            what is being streamed, for the log
+	 * @return a stream of the mapped rows. The stream will be empty if the query
+	 *         fails. Errors while reading end the stream early.
+	 */
+	static <T> Stream<T> of(ConnectionSource connections, String sql, ParameterSetter parameters,
+			RowMapper<T> mapper, String description) {
+		ConnectionLease lease = null;
+		PreparedStatement stmnt = null;
+		ResultSet rs;
+		SqlTrace trace = null;
+
+		try {
+			lease = connections.reader();
+			stmnt = SlowQueryLog.capture(lease.get().prepareStatement(sql));
+			trace = SqlTrace.beginStream(stmnt, sql);
+			parameters.set(stmnt);
+			trace.bound();
+			rs = stmnt.executeQuery();
+			trace.executed();
+		} catch (SQLException e) {
+			LOG.error("Error streaming " + description, e);
+			if (trace != null) {
+				trace.end();
+			}
+			close(lease, stmnt, null);
+			return Stream.empty();
+		}
+
+		RowSpliterator<T> spliterator = new RowSpliterator<>(lease, stmnt, rs, mapper, description,
+				trace);
+		return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+	}
+
+	private static void close(ConnectionLease lease, PreparedStatement stmnt, ResultSet rs) {
+		try {
+			if (rs != null) {
+				rs.close();
+			}
+			if (stmnt != null) {
+				stmnt.close();
+			}
+		} catch (SQLException e) {
+			LOG.error("Error closing streamed statement", e);
+		}
+
+		if (lease != null) {
+			lease.close();
+		}
+	}
+
+	private static class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+		private final ConnectionLease lease;
+		private final PreparedStatement stmnt;
+		private final ResultSet rs;
+		private final RowMapper<T> mapper;
+		private final String description;
+		private final SqlTrace trace;
+		private boolean closed = false;
+
+		RowSpliterator(ConnectionLease lease, PreparedStatement stmnt, ResultSet rs,
+				RowMapper<T> mapper, String description, SqlTrace trace) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.lease = lease;
+			this.stmnt = stmnt;
+			this.rs = rs;
+			this.mapper = mapper;
+			this.description = description;
+			this.trace = trace;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (closed) {
+				return false;
+			}
+
+			try {
+				while (next()) {
+					long mapStart = trace.startRow();
+					T record = mapper.map(rs);
+					trace.endRow(mapStart);
+
+					if (record != null) {
+						action.accept(record);
+						return true;
+					}
+				}
+			} catch (SQLException e) {
+				LOG.error("Error streaming " + description, e);
+			}
+
+			// Exhausted or failed, so let go of the cursor now
+			close();
+			return false;
+		}
+
+		// SQLite finds each row as it is asked for, so that is query time too
+		private boolean next() throws SQLException {
+			long fetchStart = trace.startRow();
+			boolean more = rs.next();
+			trace.fetched(fetchStart);
+			return more;
+		}
+
+		void close() {
+			if (!closed) {
+				closed = true;
+				// The JFR event covers the stream's whole life, as the rows
+				// are read only as it is consumed. End it while the connection
+				// is still held, so a slow stream can be explained.
+				trace.end();
+				ResultSetStream.close(lease, stmnt, rs);
+			}
+		}
+	}
+}
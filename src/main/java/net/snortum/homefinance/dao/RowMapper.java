@@ -0,0 +1,23 @@
+package net.snortum.homefinance.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to an object.
+ * 
+ * @author Knute Snortum
+ * @version 2026-10-18
+ *
+ * @param <T> the type of object to map to
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+	
+	/**
+	 * @param rs the ResultSet, positioned on the row to map
+	 * @return the mapped object, or {@code null} to skip this row
+	 * @throws SQLException if a column cannot be read
+	 */
+	T map(ResultSet rs) throws SQLException;
+}
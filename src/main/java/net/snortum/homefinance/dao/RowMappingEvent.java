@@ -0,0 +1,40 @@
+package net.snortum.homefinance.dao;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for turning the rows of one query into
+ * objects. The event's duration covers the whole read loop, which includes
+ * SQLite stepping through the rows; the mapping time is just the time spent
+ * in the row mappers.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ * @see SqlTrace
+ */
+@Name(RowMappingEvent.NAME)
+@Label("Row Mapping")
+@Category({ "Home Finance", "Database" })
+@Description("Rows of a query mapped to model objects")
+@StackTrace(false)
+public class RowMappingEvent extends Event {
+
+	/** The event type name, for reading recordings */
+	public static final String NAME = "net.snortum.homefinance.RowMapping";
+
+	@Label("SQL")
+	String sql;
+
+	@Label("Rows")
+	long rows;
+
+	@Label("Mapping Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long mappingTime;
+}
@@ -0,0 +1,167 @@
+package net.snortum.homefinance.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Logs statements that take longer than a threshold, with their bind values
+ * and the output of {@code EXPLAIN QUERY PLAN}, to the {@value #LOGGER_NAME}
+ * logger. The log is off unless {@code -Dhomefinance.slowQueryMillis} gives
+ * the threshold; a negative value also turns it off.
+ * <p>
+ * The bind values are captured by wrapping each prepared statement in a
+ * dynamic proxy (see {@link #capture(PreparedStatement)}), which slows every
+ * call on it, so the log is meant for diagnosing, not for everyday use.
+ * Nothing is wrapped when it is off. For a batch, the values are those of its
+ * last row. For a stream, the time is that spent running the query and
+ * reading its rows, not the time the caller kept the stream open.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ * @see SqlTrace
+ */
+final class SlowQueryLog {
+
+	/** The logger, and the log4j2 configuration name, of slow statements */
+	static final String LOGGER_NAME = "net.snortum.homefinance.SlowQuery";
+
+	/** The system property for the threshold, in milliseconds */
+	static final String THRESHOLD_PROPERTY = "homefinance.slowQueryMillis";
+
+	/** The threshold when none is given, which turns the log off */
+	static final long DEFAULT_MILLIS = -1;
+
+	private static final Logger LOG = LogManager.getLogger(LOGGER_NAME);
+	private static final long THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(
+			Long.getLong(THRESHOLD_PROPERTY, DEFAULT_MILLIS));
+	private static final boolean ENABLED = THRESHOLD_NANOS >= 0 && LOG.isWarnEnabled();
+
+	private SlowQueryLog() {
+	}
+
+	/**
+	 * @return true if slow statements are being logged
+	 */
+	static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * Wrap a statement so its bind values can be logged.
+	 *
+	 * @param stmnt a newly prepared statement
+	 * @return a statement that records its parameters, or {@code stmnt} itself
+	 *         if the log is off
+	 */
+	static PreparedStatement capture(PreparedStatement stmnt) {
+		if (!ENABLED) {
+			return stmnt;
+		}
+
+		return (PreparedStatement) Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class, Captured.class },
+				new CapturingHandler(stmnt));
+	}
+
+	/**
+	 * Log a statement if it took longer than the threshold.
+	 *
+	 * @param stmnt the statement, from {@link #capture(PreparedStatement)}
+	 * @param sql the SQL of the statement
+	 * @param nanos how long it took
+	 * @param rows the rows it returned or changed
+	 */
+	static void check(PreparedStatement stmnt, String sql, long nanos, long rows) {
+		if (!ENABLED || nanos < THRESHOLD_NANOS) {
+			return;
+		}
+
+		Map<Integer, Object> parameters = stmnt instanceof Captured
+				? ((Captured) stmnt).parameters()
+				: new TreeMap<>();
+		String nl = System.lineSeparator();
+		StringBuilder message = new StringBuilder("Slow SQL (")
+				.append(TimeUnit.NANOSECONDS.toMillis(nanos)).append(" ms, ")
+				.append(rows).append(" rows): ")
+				.append(sql.replaceAll("\\s+", " ").trim()).append(nl)
+				.append("  parameters: ").append(parameters).append(nl)
+				.append("  plan:");
+
+		for (String step : explain(stmnt, sql, parameters)) {
+			message.append(nl).append("    ").append(step);
+		}
+
+		LOG.warn(message);
+	}
+
+	private static List<String> explain(PreparedStatement stmnt, String sql,
+			Map<Integer, Object> parameters) {
+		List<String> plan = new ArrayList<>();
+
+		try (PreparedStatement explain = stmnt.getConnection()
+				.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+			for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+				explain.setObject(parameter.getKey(), parameter.getValue());
+			}
+
+			try (ResultSet rs = explain.executeQuery()) {
+				while (rs.next()) {
+					plan.add(rs.getString("detail"));
+				}
+			}
+		} catch (SQLException e) {
+			plan.add("(no plan: " + e.getMessage() + ")");
+		}
+
+		return plan;
+	}
+
+	// Lets the log read back what a wrapped statement was bound with
+	interface Captured {
+		Map<Integer, Object> parameters();
+	}
+
+	private static class CapturingHandler implements InvocationHandler {
+		private final PreparedStatement stmnt;
+		private final Map<Integer, Object> parameters = new HashMap<>();
+
+		CapturingHandler(PreparedStatement stmnt) {
+			this.stmnt = stmnt;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getDeclaringClass() == Captured.class) {
+				return new TreeMap<>(parameters);
+			}
+
+			String name = method.getName();
+			if (name.equals("clearParameters")) {
+				parameters.clear();
+			} else if (name.startsWith("set") && args != null && args.length >= 2
+					&& args[0] instanceof Integer) {
+				parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+			}
+
+			try {
+				return method.invoke(stmnt, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
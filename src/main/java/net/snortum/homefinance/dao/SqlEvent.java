@@ -0,0 +1,41 @@
+package net.snortum.homefinance.dao;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for one SQL statement, or one JDBC batch. The
+ * event's duration covers binding, executing and reading the results.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ * @see SqlTrace
+ */
+@Name(SqlEvent.NAME)
+@Label("SQL Statement")
+@Category({ "Home Finance", "Database" })
+@Description("A SQL statement run by a DAO")
+public class SqlEvent extends Event {
+
+	/** The event type name, for reading recordings */
+	public static final String NAME = "net.snortum.homefinance.SqlStatement";
+
+	@Label("SQL")
+	String sql;
+
+	@Label("Bind Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long bindTime;
+
+	@Label("Execute Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long executeTime;
+
+	@Label("Rows")
+	@Description("Rows returned by a query, or rows changed by an update")
+	long rows;
+}
@@ -0,0 +1,174 @@
+package net.snortum.homefinance.dao;
+
+import java.sql.PreparedStatement;
+
+/**
+ * Records the {@link SqlEvent} and {@link RowMappingEvent} of one statement.
+ * Call the methods in the order the work is done:
+ *
+ * <pre>
+ * SqlTrace trace = SqlTrace.begin(stmnt, LIST_SQL);
+ * try {
+ *     stmnt.setInt(...);
+ *     trace.bound();
+ *     try (ResultSet rs = stmnt.executeQuery()) {
+ *         trace.executed();
+ *         while (rs.next()) {
+ *             long start = trace.startRow();
+ *             Entry record = mapRow(rs, categories);
+ *             trace.endRow(start);
+ *         }
+ *     }
+ * } finally {
+ *     trace.end();
+ * }
+ * </pre>
+ *
+ * Ending the trace in a {@code finally} block records a statement that
+ * returns early or fails too. Only the first call to {@link #end()} records
+ * anything. When the trace ends, a statement that took too long is also
+ * passed to the {@link SlowQueryLog}. When the events are not enabled in the
+ * recording and the slow query log is off, no clock is read.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+final class SqlTrace {
+	private final SqlEvent sql = new SqlEvent();
+	private final RowMappingEvent mapping = new RowMappingEvent();
+	private final PreparedStatement stmnt;
+	private final boolean timed;
+	private final boolean streamed;
+	private long started;
+	private long mark;
+	private long rowNanos;
+	private boolean ended = false;
+
+	private SqlTrace(PreparedStatement stmnt, String statement, boolean streamed) {
+		this.stmnt = stmnt;
+		this.streamed = streamed;
+		timed = sql.isEnabled() || SlowQueryLog.isEnabled();
+		if (timed) {
+			sql.sql = statement;
+			sql.begin();
+			started = System.nanoTime();
+			mark = started;
+		}
+	}
+
+	/**
+	 * @param stmnt the prepared statement about to run
+	 * @param statement the SQL constant it was prepared from
+	 * @return a trace that has begun
+	 */
+	static SqlTrace begin(PreparedStatement stmnt, String statement) {
+		return new SqlTrace(stmnt, statement, false);
+	}
+
+	/**
+	 * Begin the trace of a query whose rows are read as a stream is consumed.
+	 * Its time for the {@link SlowQueryLog} is only that spent binding,
+	 * running and reading rows (see {@link #fetched(long)}), not the time
+	 * between rows, which belongs to the caller.
+	 *
+	 * @param stmnt the prepared statement about to run
+	 * @param statement the SQL it was prepared from
+	 * @return a trace that has begun
+	 */
+	static SqlTrace beginStream(PreparedStatement stmnt, String statement) {
+		return new SqlTrace(stmnt, statement, true);
+	}
+
+	/**
+	 * The parameters are bound.
+	 */
+	void bound() {
+		if (timed) {
+			long now = System.nanoTime();
+			sql.bindTime += now - mark;
+			mark = now;
+		}
+	}
+
+	/**
+	 * The statement has run. For a query, rows are mapped from here on.
+	 */
+	void executed() {
+		if (timed) {
+			long now = System.nanoTime();
+			sql.executeTime += now - mark;
+			mark = now;
+		}
+
+		if (mapping.isEnabled()) {
+			mapping.sql = sql.sql;
+			mapping.begin();
+		}
+	}
+
+	/**
+	 * Add rows changed by an update, or a batch.
+	 *
+	 * @param rows the number of rows
+	 */
+	void changed(long rows) {
+		sql.rows += rows;
+	}
+
+	/**
+	 * @return the start time to pass to {@link #endRow(long)}
+	 */
+	long startRow() {
+		return timed || mapping.isEnabled() ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * A stream has moved to its next row.
+	 *
+	 * @param start the value {@link #startRow()} returned before moving
+	 */
+	void fetched(long start) {
+		if (timed) {
+			rowNanos += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * A row has been mapped.
+	 *
+	 * @param start the value {@link #startRow()} returned
+	 */
+	void endRow(long start) {
+		sql.rows++;
+		if (timed || mapping.isEnabled()) {
+			long nanos = System.nanoTime() - start;
+			rowNanos += nanos;
+			if (mapping.isEnabled()) {
+				mapping.rows++;
+				mapping.mappingTime += nanos;
+			}
+		}
+	}
+
+	/**
+	 * The statement and any reading of rows are done, so record the events.
+	 */
+	void end() {
+		if (ended) {
+			return;
+		}
+		ended = true;
+
+		if (mapping.isEnabled() && mapping.rows > 0) {
+			mapping.commit();
+		}
+		sql.commit();
+
+		if (timed) {
+			long nanos = streamed
+					? sql.bindTime + sql.executeTime + rowNanos
+					: System.nanoTime() - started;
+			SlowQueryLog.check(stmnt, sql.sql, nanos, sql.rows);
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package net.snortum.homefinance.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A cache of {@link PreparedStatement}s for one {@link Connection}, keyed by
+ * SQL text. All DAOs using the same connection share the same cache, so each
+ * statement is parsed by SQLite once instead of on every call. The least
+ * recently used statement is closed when the cache is full.
+ * <p>
+ * Statements from the cache belong to the cache: set the parameters, execute,
+ * and close any ResultSet, but do not close the statement.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public final class StatementCache {
+
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** The number of statements kept per connection */
+	public static final int DEFAULT_CAPACITY = 32;
+
+	private static final Map<Connection, StatementCache> CACHES = new IdentityHashMap<>();
+
+	private final Connection connection;
+	private final Map<String, PreparedStatement> statements;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	private StatementCache(Connection connection, int capacity) {
+		this.connection = connection;
+
+		// Access order makes the eldest entry the least recently used one
+		this.statements = new LinkedHashMap<String, PreparedStatement>(capacity, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() > capacity) {
+					evictions++;
+					closeQuietly(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Get the statement cache for a connection, creating it if needed. A new
+	 * cache also drops the caches of connections that have been closed, for
+	 * connections that were never {@link #release(Connection) released}.
+	 *
+	 * @param con
+	 *            the connection
+	 * @return the cache shared by all users of this connection
+	 */
+	public static StatementCache of(Connection con) {
+		synchronized (CACHES) {
+			StatementCache cache = CACHES.get(con);
+			if (cache == null) {
+				forgetClosed();
+				cache = new StatementCache(con, DEFAULT_CAPACITY);
+				CACHES.put(con, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Close all cached statements of a connection and forget the cache. Call
+	 * this before closing the connection.
+	 *
+	 * @param con
+	 *            the connection
+	 */
+	public static void release(Connection con) {
+		StatementCache cache;
+		synchronized (CACHES) {
+			cache = CACHES.remove(con);
+		}
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Get a prepared statement for the SQL text, preparing it only if it is
+	 * not already cached.
+	 *
+	 * @param sql
+	 *            the SQL text
+	 * @return the cached statement
+	 * @throws SQLException
+	 *             if the statement cannot be prepared
+	 */
+	public synchronized PreparedStatement prepare(String sql) throws SQLException {
+		PreparedStatement stmnt = statements.get(sql);
+
+		if (stmnt != null && !stmnt.isClosed()) {
+			hits++;
+			return stmnt;
+		}
+
+		misses++;
+		stmnt = SlowQueryLog.capture(connection.prepareStatement(sql));
+		statements.put(sql, stmnt);
+		return stmnt;
+	}
+
+	/**
+	 * Close all cached statements. Counters are kept.
+	 */
+	public synchronized void clear() {
+		Iterator<PreparedStatement> it = statements.values().iterator();
+		while (it.hasNext()) {
+			closeQuietly(it.next());
+			it.remove();
+		}
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized int size() {
+		return statements.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "StatementCache: " + size() + " statements, "
+				+ hits + " hits, "
+				+ misses + " misses, "
+				+ evictions + " evictions";
+	}
+
+	// Called with the CACHES lock held
+	private static void forgetClosed() {
+		Iterator<Map.Entry<Connection, StatementCache>> it = CACHES.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Connection, StatementCache> entry = it.next();
+			boolean closed;
+			try {
+				closed = entry.getKey().isClosed();
+			} catch (SQLException e) {
+				LOG.error("Error checking connection", e);
+				closed = true;
+			}
+
+			if (closed) {
+				entry.getValue().clear();
+				it.remove();
+			}
+		}
+	}
+
+	private static void closeQuietly(PreparedStatement stmnt) {
+		try {
+			stmnt.close();
+		} catch (SQLException e) {
+			LOG.error("Error closing cached statement", e);
+		}
+	}
+}
@@ -0,0 +1,358 @@
+package net.snortum.homefinance.io;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.snortum.homefinance.controller.EntryValidator;
+import net.snortum.homefinance.dao.LedgerDao;
+import net.snortum.homefinance.util.ConnectionSource;
+import net.snortum.homefinance.util.DbConnection;
+
+/**
+ * Import a bank statement in CSV form. The file is memory-mapped and read with
+ * {@link MappedCsvReader}, through an {@link ImportPipeline} that parses,
+ * validates and categorizes rows on several threads while one thread writes
+ * them, {@value #DEFAULT_BATCH_SIZE} entries to a transaction. A file of any
+ * size is imported in a fixed amount of memory.
+ * <p>
+ * The first row names the columns. Date, description and amount are needed;
+ * category, comment and URL are used if they are there. Column names are
+ * matched without regard to case, and can be changed with the builder. A
+ * positive amount is a deposit and a negative one a withdrawal. Rows are
+ * checked with the rules of {@link EntryValidator}: the date must be
+ * YYYY-MM-DD, the amount a number such as "1,234.56", and the URL, if any,
+ * valid. Dates and amounts are parsed from the bytes of the file rather than
+ * with {@link EntryValidator#parseAmountText(String)}, so the decimal point
+ * is always '.'. Rows that fail are logged and skipped. Imported entries are
+ * paid but not reconciled. An unknown category is left off.
+ * <p>
+ * Bank statements often overlap, so rows already in the ledger, with the same
+ * date, amount and description, are skipped. They are found with a
+ * {@link DedupIndex} of the ledger, built by reading the entry table once. If
+ * the builder names an index file, the index is saved there after each import
+ * and only rebuilt when the ledger has changed since.
+ *
+ * <pre>
+ * Optional&lt;ImportResult&gt; result = new CsvImporter.Builder()
+ *         .amountColumn("Value")
+ *         .build()
+ *         .importFile(file, DbConnection.getSource());
+ * </pre>
+ *
+ * To import into the application's database from the command line:
+ *
+ * <pre>
+ * mvn exec:java -Dexec.mainClass=net.snortum.homefinance.io.CsvImporter -Dexec.args="statement.csv"
+ * </pre>
+ *
+ * which keeps its index in finance.db.dedup.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class CsvImporter {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** Entries written in one transaction, unless the builder says otherwise */
+	public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+	/** Threads for each parallel stage, unless the builder says otherwise */
+	public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+	private final char delimiter;
+	private final Charset charset;
+	private final int batchSize;
+	private final int threads;
+	private final boolean skipDuplicates;
+	private final Path indexFile;
+	private final String dateColumn;
+	private final String descriptionColumn;
+	private final String amountColumn;
+	private final String categoryColumn;
+	private final String commentColumn;
+	private final String urlColumn;
+
+	/**
+	 * Build a {@link CsvImporter}. The defaults are a comma delimiter, UTF-8,
+	 * the columns "Date", "Description", "Amount", "Category", "Comment" and
+	 * "URL", and skipping duplicates with an index that is not saved.
+	 */
+	public static class Builder {
+		private char delimiter = ',';
+		private Charset charset = StandardCharsets.UTF_8;
+		private int batchSize = DEFAULT_BATCH_SIZE;
+		private int threads = DEFAULT_THREADS;
+		private boolean skipDuplicates = true;
+		private Path indexFile = null;
+		private String dateColumn = "Date";
+		private String descriptionColumn = "Description";
+		private String amountColumn = "Amount";
+		private String categoryColumn = "Category";
+		private String commentColumn = "Comment";
+		private String urlColumn = "URL";
+
+		public Builder delimiter(char delimiter) {
+			this.delimiter = delimiter;
+			return this;
+		}
+
+		public Builder charset(Charset charset) {
+			this.charset = charset;
+			return this;
+		}
+
+		public Builder batchSize(int batchSize) {
+			if (batchSize < 1) {
+				throw new IllegalArgumentException("Batch size must be at least 1");
+			}
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		/**
+		 * @param threads the threads for each of the parse, validate and
+		 *            categorize stages of the {@link ImportPipeline}
+		 * @return this builder
+		 */
+		public Builder threads(int threads) {
+			if (threads < 1) {
+				throw new IllegalArgumentException("Threads must be at least 1");
+			}
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * @param skipDuplicates false to import rows even if they are already
+		 *            in the ledger
+		 * @return this builder
+		 */
+		public Builder skipDuplicates(boolean skipDuplicates) {
+			this.skipDuplicates = skipDuplicates;
+			return this;
+		}
+
+		/**
+		 * @param indexFile where to keep the index of the entries in the
+		 *            ledger between imports
+		 * @return this builder
+		 */
+		public Builder indexFile(Path indexFile) {
+			this.indexFile = indexFile;
+			return this;
+		}
+
+		public Builder dateColumn(String dateColumn) {
+			this.dateColumn = dateColumn;
+			return this;
+		}
+
+		public Builder descriptionColumn(String descriptionColumn) {
+			this.descriptionColumn = descriptionColumn;
+			return this;
+		}
+
+		public Builder amountColumn(String amountColumn) {
+			this.amountColumn = amountColumn;
+			return this;
+		}
+
+		public Builder categoryColumn(String categoryColumn) {
+			this.categoryColumn = categoryColumn;
+			return this;
+		}
+
+		public Builder commentColumn(String commentColumn) {
+			this.commentColumn = commentColumn;
+			return this;
+		}
+
+		public Builder urlColumn(String urlColumn) {
+			this.urlColumn = urlColumn;
+			return this;
+		}
+
+		public CsvImporter build() {
+			return new CsvImporter(this);
+		}
+	}
+
+	private CsvImporter(Builder builder) {
+		delimiter = builder.delimiter;
+		charset = builder.charset;
+		batchSize = builder.batchSize;
+		threads = builder.threads;
+		skipDuplicates = builder.skipDuplicates;
+		indexFile = builder.indexFile;
+		dateColumn = builder.dateColumn;
+		descriptionColumn = builder.descriptionColumn;
+		amountColumn = builder.amountColumn;
+		categoryColumn = builder.categoryColumn;
+		commentColumn = builder.commentColumn;
+		urlColumn = builder.urlColumn;
+	}
+
+	/**
+	 * @param file the CSV file
+	 * @param connections where to write the entries
+	 * @return what was imported, or empty if the file could not be read or an
+	 *         entry could not be written. Entries written by earlier
+	 *         transactions are kept.
+	 */
+	public Optional<ImportResult> importFile(Path file, ConnectionSource connections) {
+		try (MappedCsvReader csv = new MappedCsvReader(file, delimiter, charset)) {
+			if (!csv.next()) {
+				LOG.error(file + " is empty");
+				return Optional.empty();
+			}
+
+			String[] header = new String[csv.getFieldCount()];
+			for (int i = 0; i < header.length; i++) {
+				header[i] = csv.getString(i);
+			}
+
+			Optional<Columns> columns = Columns.of(header, this);
+			if (!columns.isPresent()) {
+				return Optional.empty();
+			}
+
+			DedupIndex dedup = null;
+			LedgerDao ledger = new LedgerDao(connections);
+			if (skipDuplicates) {
+				Optional<DedupIndex> index = DedupIndex.open(indexFile, ledger);
+				if (!index.isPresent()) {
+					LOG.error("Could not index the ledger to find duplicates");
+					return Optional.empty();
+				}
+				dedup = index.get();
+			}
+
+			ImportPipeline pipeline = new ImportPipeline(file, delimiter, charset,
+					columns.get(), threads, batchSize, connections, dedup);
+			Optional<ImportResult> result = pipeline.run(csv);
+
+			// After a failed import the saved index no longer matches the
+			// ledger, so it is rebuilt next time
+			if (result.isPresent() && dedup != null && indexFile != null) {
+				saveIndex(dedup, ledger, result.get().getImported(), pipeline.getTransactions());
+			}
+
+			return result;
+		} catch (IOException e) {
+			LOG.error("Could not read " + file, e);
+			return Optional.empty();
+		}
+	}
+
+	// The rows just imported are added to the index before it is saved. If
+	// anything else wrote entries during the import, the index is missing
+	// them, so the file is deleted and the index rebuilt next time.
+	private void saveIndex(DedupIndex dedup, LedgerDao ledger, long imported, long transactions) {
+		try {
+			dedup.commit();
+		} catch (IllegalStateException e) {
+			LOG.error("Could not add the imported rows to the duplicate index", e);
+			deleteIndex();
+			return;
+		}
+
+		Optional<LedgerDao.State> state = ledger.state();
+		if (!state.isPresent()) {
+			deleteIndex();
+			return;
+		}
+
+		LedgerDao.State opened = dedup.getState();
+		if (state.get().getGeneration() != opened.getGeneration() + transactions
+				|| state.get().getCount() != opened.getCount() + imported) {
+			LOG.info("Entries were written during the import, the duplicate index will be rebuilt");
+			deleteIndex();
+			return;
+		}
+
+		dedup.save(indexFile, state.get());
+	}
+
+	private void deleteIndex() {
+		try {
+			Files.deleteIfExists(indexFile);
+		} catch (IOException e) {
+			LOG.warn("Could not delete the duplicate index " + indexFile, e);
+		}
+	}
+
+	// Where each field is in a row; -1 if the column is not there
+	static class Columns {
+		final int date;
+		final int description;
+		final int amount;
+		final int category;
+		final int comment;
+		final int url;
+
+		private Columns(Map<String, Integer> index, CsvImporter importer) {
+			date = find(index, importer.dateColumn);
+			description = find(index, importer.descriptionColumn);
+			amount = find(index, importer.amountColumn);
+			category = find(index, importer.categoryColumn);
+			comment = find(index, importer.commentColumn);
+			url = find(index, importer.urlColumn);
+		}
+
+		static Optional<Columns> of(String[] header, CsvImporter importer) {
+			Map<String, Integer> index = new HashMap<>();
+			for (int i = 0; i < header.length; i++) {
+				index.putIfAbsent(header[i].trim().toLowerCase(Locale.ROOT), i);
+			}
+
+			Columns columns = new Columns(index, importer);
+			if (columns.date < 0 || columns.description < 0 || columns.amount < 0) {
+				LOG.error("The header must have the columns " + importer.dateColumn + ", "
+						+ importer.descriptionColumn + " and " + importer.amountColumn);
+				return Optional.empty();
+			}
+
+			return Optional.of(columns);
+		}
+
+		private static int find(Map<String, Integer> index, String name) {
+			return index.getOrDefault(name.trim().toLowerCase(Locale.ROOT), -1);
+		}
+	}
+
+	/**
+	 * Import a CSV file into {@value DbConnection#DB}, skipping rows that are
+	 * already there.
+	 *
+	 * @param args the CSV file, then optionally the delimiter
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: CsvImporter file.csv [delimiter]");
+			System.exit(2);
+		}
+
+		CsvImporter.Builder builder = new CsvImporter.Builder()
+				.indexFile(Paths.get(DbConnection.DB + DedupIndex.SUFFIX));
+		if (args.length > 1 && !args[1].isEmpty()) {
+			builder.delimiter(args[1].charAt(0));
+		}
+
+		Optional<ImportResult> result = builder.build()
+				.importFile(Paths.get(args[0]), DbConnection.getSource());
+		DbConnection.close();
+		result.ifPresent(System.out::println);
+		System.exit(result.isPresent() ? 0 : 1);
+	}
+}
@@ -0,0 +1,157 @@
+package net.snortum.homefinance.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time, so a file of any size is read in a fixed
+ * amount of memory. Fields may be quoted with double quotes; a quoted field
+ * may hold the delimiter, line breaks and doubled quotes. Lines may end with
+ * LF or CRLF, and a byte order mark at the start is skipped.
+ *
+ * <pre>
+ * try (CsvReader csv = new CsvReader(Files.newBufferedReader(file), ',')) {
+ *     for (String[] fields = csv.next(); fields != null; fields = csv.next()) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class CsvReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final char QUOTE = '"';
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+	private final Reader reader;
+	private final char delimiter;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private final StringBuilder field = new StringBuilder();
+	private final List<String> fields = new ArrayList<>();
+	private int position = 0;
+	private int limit = 0;
+	private long lineNumber = 0;
+	private long recordLine = 0;
+	private boolean started = false;
+
+	/**
+	 * @param reader where to read the CSV text from. It is buffered here, so
+	 *            need not be buffered already.
+	 * @param delimiter the field delimiter, such as ',' or ';'
+	 */
+	public CsvReader(Reader reader, char delimiter) {
+		if (delimiter == QUOTE || delimiter == '\r' || delimiter == '\n') {
+			throw new IllegalArgumentException("Invalid delimiter: " + delimiter);
+		}
+		this.reader = reader;
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * @return the fields of the next record, or {@code null} at the end of the
+	 *         input. A blank line is a record with one empty field.
+	 * @throws IOException if the input cannot be read, or ends inside a
+	 *             quoted field
+	 */
+	public String[] next() throws IOException {
+		int c = read();
+
+		if (!started) {
+			started = true;
+			if (c == BYTE_ORDER_MARK) {
+				c = read();
+			}
+		}
+
+		if (c < 0) {
+			return null;
+		}
+
+		lineNumber++;
+		recordLine = lineNumber;
+		fields.clear();
+		field.setLength(0);
+
+		while (true) {
+			if (c == QUOTE && field.length() == 0) {
+				c = readQuoted();
+			} else if (c == delimiter) {
+				endField();
+				c = read();
+			} else if (c == '\n' || c < 0) {
+				break;
+			} else if (c == '\r') {
+				c = read();
+				if (c >= 0 && c != '\n') {
+					// A lone CR ends the line too; keep what follows it
+					position--;
+				}
+				break;
+			} else {
+				field.append((char) c);
+				c = read();
+			}
+		}
+
+		endField();
+		return fields.toArray(new String[0]);
+	}
+
+	/**
+	 * @return the line the last record started on, counting from 1
+	 */
+	public long getLineNumber() {
+		return recordLine;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	// Read up to the closing quote and return the character after it
+	private int readQuoted() throws IOException {
+		while (true) {
+			int c = read();
+
+			if (c < 0) {
+				throw new IOException("End of input in a quoted field starting on line "
+						+ recordLine);
+			}
+
+			if (c == QUOTE) {
+				c = read();
+				if (c != QUOTE) {
+					return c;
+				}
+			} else if (c == '\n') {
+				lineNumber++;
+			}
+
+			field.append((char) c);
+		}
+	}
+
+	private void endField() {
+		fields.add(field.toString());
+		field.setLength(0);
+	}
+
+	private int read() throws IOException {
+		if (position == limit) {
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		return buffer[position++];
+	}
+}
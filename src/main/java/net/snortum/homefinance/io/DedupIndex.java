@@ -0,0 +1,354 @@
+package net.snortum.homefinance.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.snortum.homefinance.dao.LedgerDao;
+import net.snortum.homefinance.model.EntryType;
+
+/**
+ * Finds the rows of a statement that are already in the ledger, as when two
+ * bank exports overlap. Each entry is known by a 64-bit fingerprint of its
+ * date, signed amount and description, held in a hash table with a count, so
+ * two identical purchases on one day are two entries and a third is new. No
+ * row is looked up in the database.
+ * <p>
+ * The index is built by reading the entry table once. It can be saved to a
+ * file with the {@link LedgerDao.State} it was built from, and is read from
+ * the file again if the ledger is still in that state, or rebuilt if not.
+ * <p>
+ * During an import, a row that matches an entry uses up one of its count;
+ * rows that do not match are remembered with {@link #add(long)} and only
+ * join the index at {@link #commit()}, so repeated rows within one statement
+ * are all kept. Two different rows with the same fingerprint would be taken
+ * for one another, but with 64 bits the chance of that is about one in ten
+ * million for a ledger of a million entries.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+final class DedupIndex {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** Added to the database file name to name its index file */
+	static final String SUFFIX = ".dedup";
+
+	private static final int MAGIC = 0x48464458; // "HFDX"
+	private static final int VERSION = 2;
+
+	private final FingerprintTable entries;
+	private final LedgerDao.State state;
+	private final FingerprintTable matched = new FingerprintTable(16);
+	private final FingerprintTable added = new FingerprintTable(16);
+
+	private DedupIndex(FingerprintTable entries, LedgerDao.State state) {
+		this.entries = entries;
+		this.state = state;
+	}
+
+	/**
+	 * Read the index from a file, or build it from the entry table if the file
+	 * is missing, cannot be read, or was saved for a different ledger state.
+	 *
+	 * @param file the index file, or {@code null} to always build it
+	 * @param ledger the ledger to index
+	 * @return the index, or empty if the ledger could not be read or has too
+	 *         many different entries to index
+	 */
+	static Optional<DedupIndex> open(Path file, LedgerDao ledger) {
+		DedupIndex[] opened = new DedupIndex[1];
+		boolean scanned;
+		try {
+
+			// The state and the entries are read in one transaction, so the
+			// index holds exactly the entries of the state it is kept with
+			scanned = ledger.scanTogether(scanner -> {
+				LedgerDao.State state = scanner.state();
+				Optional<DedupIndex> saved = file == null ? Optional.empty() : read(file, state);
+				opened[0] = saved.isPresent() ? saved.get() : build(scanner, state);
+			});
+		} catch (IllegalStateException e) {
+			LOG.error("Could not index the ledger", e);
+			return Optional.empty();
+		}
+
+		return scanned ? Optional.of(opened[0]) : Optional.empty();
+	}
+
+	private static DedupIndex build(LedgerDao.Scanner scanner, LedgerDao.State state)
+			throws SQLException {
+		long start = System.nanoTime();
+		FingerprintTable table = new FingerprintTable(state.getCount());
+		scanner.entries(row -> {
+			if (row.getType() != null) {
+				long cents = row.getType() == EntryType.OUT ? -row.getAmount() : row.getAmount();
+				table.add(fingerprint(cents, row.getDate(), row.getDescription()), 1);
+			}
+		});
+
+		LOG.info(String.format("Built the duplicate index of %,d entries in %,d ms",
+				table.total(), (System.nanoTime() - start) / 1_000_000));
+		return new DedupIndex(table, state);
+	}
+
+	/**
+	 * @param cents the amount, negative for money going out
+	 * @param date the date
+	 * @param description the description; spaces around it are ignored
+	 * @return the fingerprint of an entry
+	 */
+	static long fingerprint(long cents, LocalDate date, String description) {
+		return fingerprint(cents, date.toEpochDay(), description);
+	}
+
+	private static long fingerprint(long cents, long epochDay, String description) {
+
+		// FNV-1a over the description, then the number fields, then mixed
+		long hash = 0xCBF29CE484222325L;
+		String text = description == null ? "" : description.trim();
+		for (int i = 0; i < text.length(); i++) {
+			hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+		}
+		hash = mix(hash ^ mix(epochDay * 0x9E3779B97F4A7C15L + cents));
+
+		// 0 marks an empty slot in the table
+		return hash == 0 ? 1 : hash;
+	}
+
+	/**
+	 * @return the state of the ledger the index was opened for, before any
+	 *         rows were added
+	 */
+	LedgerDao.State getState() {
+		return state;
+	}
+
+	/**
+	 * Use up one match of an entry already in the ledger.
+	 *
+	 * @param fingerprint the fingerprint of a row
+	 * @return true if the row is a duplicate and should not be imported
+	 */
+	boolean match(long fingerprint) {
+		int count = entries.get(fingerprint);
+		if (count == 0 || matched.get(fingerprint) >= count) {
+			return false;
+		}
+
+		matched.add(fingerprint, 1);
+		return true;
+	}
+
+	/**
+	 * @param fingerprint the fingerprint of a row that is imported
+	 * @throws IllegalStateException if the index is full
+	 */
+	void add(long fingerprint) {
+		added.add(fingerprint, 1);
+	}
+
+	/**
+	 * Make the rows added since the last commit part of the index, so the
+	 * next statement finds them.
+	 *
+	 * @throws IllegalStateException if the index is full
+	 */
+	void commit() {
+		if (added.size() > 0) {
+			added.forEach(entries::add);
+			added.clear();
+		}
+		matched.clear();
+	}
+
+	/**
+	 * Save the index, replacing the file only once it is written.
+	 *
+	 * @param file where to save it
+	 * @param state the state of the ledger the index now matches
+	 * @return true if the index was saved
+	 */
+	boolean save(Path file, LedgerDao.State state) {
+		Path writing = file.resolveSibling(file.getFileName() + ".writing");
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(writing)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(state.getCount());
+			out.writeLong(state.getLastId());
+			out.writeLong(state.getAmountTotal());
+			out.writeLong(state.getDateTotal());
+			out.writeLong(state.getGeneration());
+			out.writeInt(entries.size());
+			for (int i = 0; i < entries.keys.length; i++) {
+				if (entries.keys[i] != 0) {
+					out.writeLong(entries.keys[i]);
+					out.writeInt(entries.counts[i]);
+				}
+			}
+		} catch (IOException e) {
+			LOG.error("Could not write the duplicate index " + writing, e);
+			return false;
+		}
+
+		try {
+			Files.move(writing, file, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			LOG.error("Could not replace the duplicate index " + file, e);
+			return false;
+		}
+	}
+
+	private static Optional<DedupIndex> read(Path file, LedgerDao.State state) {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				LOG.warn(file + " is not a duplicate index of this version, rebuilding it");
+				return Optional.empty();
+			}
+
+			LedgerDao.State saved = new LedgerDao.State(in.readLong(), in.readLong(), in.readLong(),
+					in.readLong(), in.readLong());
+			if (!saved.equals(state)) {
+				LOG.info("The ledger has changed since " + file + " was saved, rebuilding it");
+				return Optional.empty();
+			}
+
+			int size = in.readInt();
+			FingerprintTable table = new FingerprintTable(size);
+			for (int i = 0; i < size; i++) {
+				table.add(in.readLong(), in.readInt());
+			}
+			return Optional.of(new DedupIndex(table, state));
+		} catch (IllegalStateException e) {
+			LOG.warn("Could not read the duplicate index " + file + ", rebuilding it", e);
+			return Optional.empty();
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException e) {
+			LOG.warn("Could not read the duplicate index " + file + ", rebuilding it", e);
+			return Optional.empty();
+		}
+	}
+
+	// The finalizer of MurmurHash3, so every bit of the input moves the output
+	private static long mix(long h) {
+		h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+		h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return h ^ (h >>> 33);
+	}
+
+	@FunctionalInterface
+	private interface FingerprintConsumer {
+		void accept(long fingerprint, int count);
+	}
+
+	// Counts by fingerprint, in open addressing with linear probing. Keys of 0
+	// are empty slots; fingerprints are never 0.
+	private static class FingerprintTable {
+		private static final int MAX_CAPACITY = 1 << 30;
+
+		long[] keys;
+		int[] counts;
+		private int size;
+		private long total;
+
+		FingerprintTable(long expected) {
+			int capacity = 16;
+			while (capacity < expected * 2 && capacity < MAX_CAPACITY) {
+				capacity <<= 1;
+			}
+			keys = new long[capacity];
+			counts = new int[capacity];
+		}
+
+		int get(long key) {
+			int mask = keys.length - 1;
+			for (int i = (int) key & mask; keys[i] != 0; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					return counts[i];
+				}
+			}
+			return 0;
+		}
+
+		void add(long key, int count) {
+			if ((size + 1) * 3L > keys.length * 2L) {
+				grow();
+			}
+
+			int mask = keys.length - 1;
+			int i = (int) key & mask;
+			while (keys[i] != 0 && keys[i] != key) {
+				i = (i + 1) & mask;
+			}
+			if (keys[i] == 0) {
+				keys[i] = key;
+				size++;
+			}
+			counts[i] += count;
+			total += count;
+		}
+
+		int size() {
+			return size;
+		}
+
+		long total() {
+			return total;
+		}
+
+		void forEach(FingerprintConsumer action) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != 0) {
+					action.accept(keys[i], counts[i]);
+				}
+			}
+		}
+
+		void clear() {
+			if (size > 0) {
+				Arrays.fill(keys, 0);
+				Arrays.fill(counts, 0);
+				size = 0;
+				total = 0;
+			}
+		}
+
+		private void grow() {
+			if (keys.length >= MAX_CAPACITY) {
+				throw new IllegalStateException(String.format(
+						"The duplicate index is full at %,d fingerprints", size));
+			}
+
+			long[] oldKeys = keys;
+			int[] oldCounts = counts;
+			keys = new long[oldKeys.length * 2];
+			counts = new int[oldKeys.length * 2];
+			size = 0;
+			total = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0) {
+					add(oldKeys[i], oldCounts[i]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package net.snortum.homefinance.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What an export wrote: the rows and bytes of each table, and how fast.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class ExportResult {
+	private final List<Table> tables;
+	private final long nanos;
+
+	/**
+	 * @param tables the tables written, in order
+	 * @param nanos how long the export took
+	 */
+	public ExportResult(List<Table> tables, long nanos) {
+		this.tables = Collections.unmodifiableList(new ArrayList<>(tables));
+		this.nanos = nanos;
+	}
+
+	public List<Table> getTables() {
+		return tables;
+	}
+
+	/**
+	 * @return the rows written to all the files, not counting headers
+	 */
+	public long getRows() {
+		return tables.stream().mapToLong(Table::getRows).sum();
+	}
+
+	/**
+	 * @return the bytes written to all the files
+	 */
+	public long getBytes() {
+		return tables.stream().mapToLong(Table::getBytes).sum();
+	}
+
+	public long getMillis() {
+		return nanos / 1_000_000;
+	}
+
+	public long getRowsPerSecond() {
+		return perSecond(getRows(), nanos);
+	}
+
+	public long getBytesPerSecond() {
+		return perSecond(getBytes(), nanos);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(String.format(
+				"Exported %,d rows, %,d bytes in %,d ms (%,d rows/s, %,d KB/s)",
+				getRows(), getBytes(), getMillis(), getRowsPerSecond(), getBytesPerSecond() / 1024));
+		tables.forEach(table -> text.append(System.lineSeparator()).append("  ").append(table));
+		return text.toString();
+	}
+
+	private static long perSecond(long count, long nanos) {
+		return nanos == 0 ? 0 : (long) (count * 1_000_000_000.0 / nanos);
+	}
+
+	/**
+	 * One table, written to one file.
+	 */
+	public static class Table {
+		private final String name;
+		private final long rows;
+		private final long bytes;
+		private final long nanos;
+
+		/**
+		 * @param name the table name
+		 * @param rows the rows written
+		 * @param bytes the bytes written, with the header
+		 * @param nanos how long it took
+		 */
+		public Table(String name, long rows, long bytes, long nanos) {
+			this.name = name;
+			this.rows = rows;
+			this.bytes = bytes;
+			this.nanos = nanos;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getRows() {
+			return rows;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		public long getMillis() {
+			return nanos / 1_000_000;
+		}
+
+		public long getRowsPerSecond() {
+			return perSecond(rows, nanos);
+		}
+
+		public long getBytesPerSecond() {
+			return perSecond(bytes, nanos);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-9s %,d rows, %,d bytes in %,d ms (%,d rows/s, %,d KB/s)",
+					name, rows, bytes, getMillis(), getRowsPerSecond(), getBytesPerSecond() / 1024);
+		}
+	}
+}
@@ -0,0 +1,555 @@
+package net.snortum.homefinance.io;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.snortum.homefinance.controller.EntryValidator;
+import net.snortum.homefinance.dao.CategoryDao;
+import net.snortum.homefinance.dao.LedgerDao;
+import net.snortum.homefinance.model.AbstractEntry;
+import net.snortum.homefinance.model.Category;
+import net.snortum.homefinance.model.Entry;
+import net.snortum.homefinance.model.EntryIn;
+import net.snortum.homefinance.model.EntryOut;
+import net.snortum.homefinance.model.Money;
+import net.snortum.homefinance.util.ConnectionSource;
+import net.snortum.homefinance.util.Metrics;
+
+/**
+ * Imports the rows of a CSV file in chunks of {@value #CHUNK_ROWS}, passed
+ * through stages joined by bounded queues:
+ * <ol>
+ * <li><b>split</b>: the calling thread finds where each chunk starts and ends
+ * in the file, without decoding it
+ * <li><b>parse</b>: dates, amounts and text fields are read from the mapped
+ * file
+ * <li><b>validate</b>: rows are checked with the rules of
+ * {@link EntryValidator}
+ * <li><b>categorize</b>: categories are looked up and the entries built
+ * <li><b>persist</b>: one thread drops the rows its {@link DedupIndex} finds
+ * in the ledger and writes the rest, in file order, a batch to a transaction
+ * </ol>
+ * Parse, validate and categorize each run on several threads. When a stage
+ * falls behind, its queue fills and the stages in front of it wait, so no
+ * more than a few chunks per thread are ever in memory.
+ * <p>
+ * Each stage's busy, waiting and blocked time, and the depth of its queue,
+ * are reported in the {@link ImportResult}, and kept as {@link Metrics}
+ * named "import.<i>stage</i>".
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+final class ImportPipeline {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** Rows passed between stages at a time */
+	static final int CHUNK_ROWS = 1_000;
+
+	// The queue in front of a stage holds this many chunks per thread
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	// After this many, rejected rows are counted but not logged
+	private static final int MAX_LOGGED_REJECTS = 20;
+
+	// Tells a stage thread there are no more chunks
+	private static final Chunk END = new Chunk(-1, 0, 0, 0);
+
+	private final Path file;
+	private final char delimiter;
+	private final Charset charset;
+	private final CsvImporter.Columns columns;
+	private final int threads;
+	private final int batchSize;
+	private final CategoryDao categoryDao;
+	private final EntryBatch batch;
+	private final DedupIndex dedup;
+	private final AtomicBoolean failed = new AtomicBoolean();
+	private final AtomicLong rejected = new AtomicLong();
+	private final Map<String, Optional<Category>> categories = new ConcurrentHashMap<>();
+
+	// Only touched by the persist thread
+	private final Map<Long, Chunk> outOfOrder = new HashMap<>();
+	private long nextSequence = 0;
+	private long read = 0;
+	private long duplicates = 0;
+
+	/**
+	 * @param file the CSV file
+	 * @param delimiter the field delimiter
+	 * @param charset the charset of the text fields
+	 * @param columns where the fields are in each row
+	 * @param threads the threads for each of parse, validate and categorize
+	 * @param batchSize the entries written in one transaction
+	 * @param connections where to write the entries
+	 * @param dedup the entries already in the ledger, or {@code null} to
+	 *            import every row
+	 */
+	ImportPipeline(Path file, char delimiter, Charset charset, CsvImporter.Columns columns,
+			int threads, int batchSize, ConnectionSource connections, DedupIndex dedup) {
+		this.file = file;
+		this.delimiter = delimiter;
+		this.charset = charset;
+		this.columns = columns;
+		this.threads = threads;
+		this.batchSize = batchSize;
+		categoryDao = new CategoryDao(connections);
+		batch = new EntryBatch(connections);
+		this.dedup = dedup;
+	}
+
+	/**
+	 * Import the rest of a file.
+	 *
+	 * @param csv a reader of the file, just past the header
+	 * @return what was imported, or empty if the file could not be read or an
+	 *         entry could not be written. Entries written by earlier
+	 *         transactions are kept.
+	 */
+	Optional<ImportResult> run(MappedCsvReader csv) {
+		long start = System.nanoTime();
+
+		Stage parse = new Stage("parse", threads, this::parse);
+		Stage validate = new Stage("validate", threads, this::validate);
+		Stage categorize = new Stage("categorize", threads, this::categorize);
+		Stage persist = new Stage("persist", 1, this::persist);
+		List<Stage> stages = Arrays.asList(parse, validate, categorize, persist);
+		parse.next = validate;
+		validate.next = categorize;
+		categorize.next = persist;
+		persist.onEnd = this::flush;
+		stages.forEach(Stage::start);
+
+		ImportResult.Stage split = split(csv, parse);
+		stages.forEach(Stage::join);
+
+		if (failed.get()) {
+			return Optional.empty();
+		}
+
+		List<ImportResult.Stage> reports = new ArrayList<>();
+		reports.add(split);
+		stages.forEach(stage -> reports.add(stage.report()));
+
+		ImportResult result = new ImportResult(read, batch.getWritten(), rejected.get(), duplicates,
+				System.nanoTime() - start, reports);
+		LOG.info(file + ": " + result);
+		return Optional.of(result);
+	}
+
+	/**
+	 * @return the transactions that wrote entries, each of which moved the
+	 *         ledger's generation by one
+	 */
+	long getTransactions() {
+		return batch.getTransactions();
+	}
+
+	// Hand the parse stage chunks of rows, then tell it there are no more
+	private ImportResult.Stage split(MappedCsvReader csv, Stage parse) {
+		long sequence = 0;
+		long rows = 0;
+		long busyNanos = 0;
+		long blockedNanos = 0;
+
+		try {
+			while (!failed.get()) {
+				long started = System.nanoTime();
+				long from = csv.getPosition();
+				long line = csv.getNextLineNumber();
+				int count = 0;
+				while (count < CHUNK_ROWS && csv.next()) {
+					count++;
+				}
+
+				long found = System.nanoTime();
+				busyNanos += found - started;
+				if (count == 0) {
+					break;
+				}
+
+				rows += count;
+				parse.queue.put(new Chunk(sequence++, from, csv.getPosition(), line));
+				blockedNanos += System.nanoTime() - found;
+			}
+		} catch (IOException e) {
+			LOG.error("Could not read " + file, e);
+			failed.set(true);
+		} catch (InterruptedException e) {
+			LOG.error("Import of " + file + " interrupted", e);
+			failed.set(true);
+			Thread.currentThread().interrupt();
+		} finally {
+			parse.end();
+		}
+
+		return new ImportResult.Stage("split", 1, rows, busyNanos, 0, blockedNanos, 0, 0);
+	}
+
+	private void parse(Chunk chunk) throws IOException {
+		try (MappedCsvReader csv = new MappedCsvReader(file, delimiter, charset, chunk.start,
+				chunk.end, chunk.firstLine)) {
+			while (csv.next()) {
+				if (csv.getFieldCount() == 1 && csv.isBlank(0)) {
+					continue;
+				}
+
+				Row row = new Row();
+				row.line = csv.getLineNumber();
+				row.date = csv.getDate(columns.date);
+				row.cents = csv.getCents(columns.amount);
+				row.description = text(csv, columns.description);
+				row.comment = text(csv, columns.comment);
+				row.urlText = text(csv, columns.url);
+				row.categoryText = text(csv, columns.category);
+				chunk.rows.add(row);
+			}
+		}
+	}
+
+	private void validate(Chunk chunk) {
+		for (Row row : chunk.rows) {
+			// Entries hold the size of the amount; categorize uses the sign
+			if (row.cents != MappedCsvReader.NOT_A_NUMBER) {
+				row.amount = Money.ofCents(Math.abs(row.cents));
+			}
+
+			List<String> errors = EntryValidator.validate(row.date, row.amount, row.urlText);
+			row.valid = errors.isEmpty();
+			if (row.valid && !row.urlText.isEmpty()) {
+				row.url = Optional.of(EntryValidator.getUrl(row.urlText));
+			} else if (!row.valid && rejected.getAndIncrement() < MAX_LOGGED_REJECTS) {
+				LOG.warn(file + ", line " + row.line + ": " + String.join("; ", errors));
+			}
+		}
+	}
+
+	private void categorize(Chunk chunk) {
+		chunk.entries = new ArrayList<>(chunk.rows.size());
+		if (dedup != null) {
+			chunk.fingerprints = new long[chunk.rows.size()];
+		}
+
+		for (Row row : chunk.rows) {
+			if (!row.valid) {
+				continue;
+			}
+
+			if (dedup != null) {
+				chunk.fingerprints[chunk.entries.size()] = DedupIndex.fingerprint(row.cents, row.date,
+						row.description);
+			}
+
+			// The sign says which way the money went
+			AbstractEntry.Builder builder = row.cents < 0 ? new EntryOut.Builder() : new EntryIn.Builder();
+			chunk.entries.add(builder
+					.description(row.description)
+					.amount(row.amount)
+					.comment(row.comment)
+					.url(row.url)
+					.date(row.date)
+					.paid(true)
+					.category(category(row.categoryText))
+					.build());
+		}
+
+		chunk.read = chunk.rows.size();
+		chunk.rows = null;
+	}
+
+	// Chunks can finish categorizing out of order, so hold them until the
+	// ones before them are written
+	private void persist(Chunk chunk) {
+		outOfOrder.put(chunk.sequence, chunk);
+
+		for (Chunk next = outOfOrder.remove(nextSequence); next != null;
+				next = outOfOrder.remove(nextSequence)) {
+			nextSequence++;
+			read += next.read;
+			for (int i = 0; i < next.entries.size(); i++) {
+				if (dedup != null) {
+					if (dedup.match(next.fingerprints[i])) {
+						duplicates++;
+						continue;
+					}
+					dedup.add(next.fingerprints[i]);
+				}
+				batch.add(next.entries.get(i));
+			}
+
+			if (batch.size() >= batchSize && !batch.flush()) {
+				failed.set(true);
+				return;
+			}
+		}
+	}
+
+	private void flush() {
+		if (!batch.flush()) {
+			failed.set(true);
+		}
+	}
+
+	private Optional<Category> category(String description) {
+		if (description.isEmpty()) {
+			return Optional.empty();
+		}
+
+		return categories.computeIfAbsent(description, key -> {
+			Optional<Category> category = categoryDao.readByDescription(key);
+			if (!category.isPresent()) {
+				LOG.warn("Unknown category " + key + ", imported without a category");
+			}
+			return category;
+		});
+	}
+
+	private static String text(MappedCsvReader csv, int column) {
+		return csv.isBlank(column) ? "" : csv.getString(column).trim();
+	}
+
+	@FunctionalInterface
+	private interface Task {
+		void run(Chunk chunk) throws IOException;
+	}
+
+	// A run of rows in the file, and what the stages have made of them
+	private static class Chunk {
+		final long sequence;
+		final long start;
+		final long end;
+		final long firstLine;
+		List<Row> rows = new ArrayList<>();
+		List<Entry> entries;
+		long[] fingerprints;
+		int read;
+
+		Chunk(long sequence, long start, long end, long firstLine) {
+			this.sequence = sequence;
+			this.start = start;
+			this.end = end;
+			this.firstLine = firstLine;
+		}
+
+		int size() {
+			return rows != null ? rows.size() : read;
+		}
+	}
+
+	private static class Row {
+		long line;
+		LocalDate date;
+		long cents;
+		String description;
+		String comment;
+		String urlText;
+		String categoryText;
+		Money amount;
+		Optional<URL> url = Optional.empty();
+		boolean valid;
+	}
+
+	// The threads of one stage, taking chunks from its queue and passing
+	// them to the next stage's queue
+	private class Stage {
+		final String name;
+		final int threadCount;
+		final Task task;
+		final BlockingQueue<Chunk> queue;
+		final List<Thread> workers = new ArrayList<>();
+		final AtomicInteger running;
+		Stage next;
+		Runnable onEnd;
+
+		final LongAdder rows = new LongAdder();
+		final LongAdder busyNanos = new LongAdder();
+		final LongAdder waitNanos = new LongAdder();
+		final LongAdder blockedNanos = new LongAdder();
+		final LongAdder depthTotal = new LongAdder();
+		final LongAdder depthSamples = new LongAdder();
+		final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+		final Metrics.Timer timer;
+		final Metrics.Histogram depth;
+
+		Stage(String name, int threadCount, Task task) {
+			this.name = name;
+			this.threadCount = threadCount;
+			this.task = task;
+			queue = new ArrayBlockingQueue<>(threadCount * CHUNKS_PER_THREAD);
+			running = new AtomicInteger(threadCount);
+			timer = Metrics.timer("import." + name);
+			depth = Metrics.histogram("import." + name + ".queue");
+		}
+
+		void start() {
+			for (int i = 1; i <= threadCount; i++) {
+				Thread thread = new Thread(this::work, "import-" + name + "-" + i);
+				thread.setDaemon(true);
+				workers.add(thread);
+				thread.start();
+			}
+		}
+
+		// Tell every thread of this stage that the chunks have all been sent
+		void end() {
+			boolean interrupted = false;
+
+			for (int i = 0; i < threadCount; i++) {
+				while (true) {
+					try {
+						queue.put(END);
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			}
+
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		void join() {
+			for (Thread worker : workers) {
+				try {
+					worker.join();
+				} catch (InterruptedException e) {
+					failed.set(true);
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+		ImportResult.Stage report() {
+			long samples = depthSamples.sum();
+			return new ImportResult.Stage(name, threadCount, rows.sum(), busyNanos.sum(),
+					waitNanos.sum(), blockedNanos.sum(),
+					samples == 0 ? 0 : (double) depthTotal.sum() / samples, maxDepth.get());
+		}
+
+		private void work() {
+			try {
+				while (true) {
+					long waiting = System.nanoTime();
+					Chunk chunk = queue.take();
+					long started = System.nanoTime();
+					waitNanos.add(started - waiting);
+
+					if (chunk == END) {
+						break;
+					}
+
+					int waitingChunks = queue.size();
+					depthTotal.add(waitingChunks);
+					depthSamples.increment();
+					maxDepth.accumulate(waitingChunks);
+					depth.record(waitingChunks);
+
+					// After a failure, keep taking chunks so no stage waits forever
+					if (!failed.get()) {
+						run(chunk);
+					}
+
+					long done = System.nanoTime();
+					busyNanos.add(done - started);
+					timer.stop(started);
+
+					if (next != null) {
+						next.queue.put(chunk);
+						blockedNanos.add(System.nanoTime() - done);
+					}
+				}
+			} catch (InterruptedException e) {
+				LOG.error("Import stage " + name + " interrupted", e);
+				failed.set(true);
+			} finally {
+				if (running.decrementAndGet() == 0) {
+					if (onEnd != null && !failed.get()) {
+						onEnd.run();
+					}
+					if (next != null) {
+						next.end();
+					}
+				}
+			}
+		}
+
+		private void run(Chunk chunk) {
+			try {
+				task.run(chunk);
+				rows.add(chunk.size());
+			} catch (IOException | RuntimeException e) {
+				LOG.error("Import stage " + name + " failed on the chunk starting on line "
+						+ chunk.firstLine, e);
+				failed.set(true);
+			}
+		}
+	}
+
+	// Entries waiting to be written, in file order
+	private static class EntryBatch {
+		private final LedgerDao ledgerDao;
+		private final List<Entry> entries = new ArrayList<>();
+		private long written = 0;
+		private long transactions = 0;
+
+		EntryBatch(ConnectionSource connections) {
+			ledgerDao = new LedgerDao(connections);
+		}
+
+		void add(Entry entry) {
+			entries.add(entry);
+		}
+
+		int size() {
+			return entries.size();
+		}
+
+		// Both types go in one transaction, so a failure writes none of the batch
+		boolean flush() {
+			if (entries.isEmpty()) {
+				return true;
+			}
+
+			if (ledgerDao.createEntries(entries).size() != entries.size()) {
+				LOG.error("Could not write " + entries.size() + " entries");
+				return false;
+			}
+
+			written += entries.size();
+			transactions++;
+			entries.clear();
+			return true;
+		}
+
+		long getWritten() {
+			return written;
+		}
+
+		long getTransactions() {
+			return transactions;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package net.snortum.homefinance.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What an import did: how many rows were read, written, rejected and found
+ * to be already in the ledger, how long it took, and how busy each stage of the {@link ImportPipeline} was.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class ImportResult {
+	private final long read;
+	private final long imported;
+	private final long rejected;
+	private final long duplicates;
+	private final long nanos;
+	private final List<Stage> stages;
+
+	/**
+	 * @param read the data rows read, not counting the header
+	 * @param imported the entries written
+	 * @param rejected the rows that failed validation
+	 * @param duplicates the valid rows not written because they were already
+	 *            in the ledger
+	 * @param nanos how long the import took
+	 * @param stages the stages of the pipeline, in order
+	 */
+	public ImportResult(long read, long imported, long rejected, long duplicates, long nanos,
+			List<Stage> stages) {
+		this.read = read;
+		this.imported = imported;
+		this.rejected = rejected;
+		this.duplicates = duplicates;
+		this.nanos = nanos;
+		this.stages = Collections.unmodifiableList(new ArrayList<>(stages));
+	}
+
+	public long getRead() {
+		return read;
+	}
+
+	public long getImported() {
+		return imported;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	public long getMillis() {
+		return nanos / 1_000_000;
+	}
+
+	/**
+	 * @return the rows read per second
+	 */
+	public long getRowsPerSecond() {
+		return nanos == 0 ? 0 : read * 1_000_000_000L / nanos;
+	}
+
+	public List<Stage> getStages() {
+		return stages;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(String.format(
+				"Imported %,d of %,d rows (%,d rejected, %,d duplicates) in %,d ms (%,d rows/s)",
+				imported, read, rejected, duplicates, getMillis(), getRowsPerSecond()));
+		stages.forEach(stage -> text.append(System.lineSeparator()).append("  ").append(stage));
+		return text.toString();
+	}
+
+	/**
+	 * How one stage of the pipeline spent its time. A stage whose threads are
+	 * always busy, while the queue in front of it stays full, is the one that
+	 * limits the import.
+	 */
+	public static class Stage {
+		private final String name;
+		private final int threads;
+		private final long rows;
+		private final long busyNanos;
+		private final long waitNanos;
+		private final long blockedNanos;
+		private final double meanQueue;
+		private final long maxQueue;
+
+		/**
+		 * @param name the stage name
+		 * @param threads the threads running it
+		 * @param rows the rows it handled
+		 * @param busyNanos the time its threads spent working, added up
+		 * @param waitNanos the time its threads waited for work
+		 * @param blockedNanos the time its threads waited for room in the
+		 *            next stage's queue
+		 * @param meanQueue the mean number of chunks waiting in its queue
+		 * @param maxQueue the most chunks waiting in its queue
+		 */
+		public Stage(String name, int threads, long rows, long busyNanos, long waitNanos,
+				long blockedNanos, double meanQueue, long maxQueue) {
+			this.name = name;
+			this.threads = threads;
+			this.rows = rows;
+			this.busyNanos = busyNanos;
+			this.waitNanos = waitNanos;
+			this.blockedNanos = blockedNanos;
+			this.meanQueue = meanQueue;
+			this.maxQueue = maxQueue;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getThreads() {
+			return threads;
+		}
+
+		public long getRows() {
+			return rows;
+		}
+
+		public long getBusyMillis() {
+			return busyNanos / 1_000_000;
+		}
+
+		public long getWaitMillis() {
+			return waitNanos / 1_000_000;
+		}
+
+		public long getBlockedMillis() {
+			return blockedNanos / 1_000_000;
+		}
+
+		public double getMeanQueue() {
+			return meanQueue;
+		}
+
+		public long getMaxQueue() {
+			return maxQueue;
+		}
+
+		/**
+		 * @return the rows per second the stage could handle if it never
+		 *         waited, with all its threads
+		 */
+		public long getCapacity() {
+			return busyNanos == 0 ? 0 : rows * threads * 1_000_000_000L / busyNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-10s %2d threads, %,d rows, busy %,d ms, waiting %,d ms, "
+					+ "blocked %,d ms, capacity %,d rows/s, queue mean %.1f max %d",
+					name, threads, rows, getBusyMillis(), getWaitMillis(), getBlockedMillis(),
+					getCapacity(), meanQueue, maxQueue);
+		}
+	}
+}
@@ -0,0 +1,526 @@
+package net.snortum.homefinance.io;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.snortum.homefinance.dao.BudgetRow;
+import net.snortum.homefinance.dao.CategoryRow;
+import net.snortum.homefinance.dao.EntryRow;
+import net.snortum.homefinance.dao.LedgerDao;
+import net.snortum.homefinance.model.EntryType;
+import net.snortum.homefinance.util.ConnectionSource;
+import net.snortum.homefinance.util.DbConnection;
+
+/**
+ * Export the categories, budgets and entries of the ledger to category,
+ * budget and entry files, as CSV or JSON. Each row goes from the
+ * {@link LedgerDao} straight to a buffered writer, so no list of the rows
+ * and no {@link net.snortum.homefinance.model.Entry} is ever built, and a
+ * ledger of any size is exported in the same memory. Only the category names
+ * are held, to write them in place of category IDs.
+ * <p>
+ * Amounts are written in dollars and cents, negative for money going out,
+ * and dates as YYYY-MM-DD, so an entry file in CSV can be read back with
+ * {@link CsvImporter}. A CSV file starts with a row of column names; a JSON
+ * file is an array with one object per row, one row to a line.
+ *
+ * <pre>
+ * Optional&lt;ExportResult&gt; result = new LedgerExporter.Builder()
+ *         .format(LedgerExporter.Format.JSON)
+ *         .build()
+ *         .export(directory, DbConnection.getSource());
+ * </pre>
+ *
+ * To export the application's database from the command line:
+ *
+ * <pre>
+ * mvn exec:java -Dexec.mainClass=net.snortum.homefinance.io.LedgerExporter -Dexec.args="export json"
+ * </pre>
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class LedgerExporter {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** The size of the writer's buffer, unless the builder says otherwise */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final String[] CATEGORY_COLUMNS = { "id", "description" };
+	private static final String[] BUDGET_COLUMNS = { "id", "category", "budget", "actual" };
+	private static final String[] ENTRY_COLUMNS = { "id", "date", "type", "description", "amount",
+			"category", "recurring", "paid", "reconciled", "comment", "url" };
+
+	/**
+	 * The kinds of file an export can write
+	 */
+	public enum Format {
+		CSV, JSON;
+
+		/**
+		 * @return the file name extension, such as "csv"
+		 */
+		public String getExtension() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private final Format format;
+	private final char delimiter;
+	private final Charset charset;
+	private final int bufferSize;
+
+	/**
+	 * Build a {@link LedgerExporter}. The defaults are CSV with a comma
+	 * delimiter, in UTF-8.
+	 */
+	public static class Builder {
+		private Format format = Format.CSV;
+		private char delimiter = ',';
+		private Charset charset = StandardCharsets.UTF_8;
+		private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+		public Builder format(Format format) {
+			this.format = format;
+			return this;
+		}
+
+		/**
+		 * @param delimiter the field delimiter of a CSV file
+		 * @return this builder
+		 */
+		public Builder delimiter(char delimiter) {
+			this.delimiter = delimiter;
+			return this;
+		}
+
+		public Builder charset(Charset charset) {
+			this.charset = charset;
+			return this;
+		}
+
+		public Builder bufferSize(int bufferSize) {
+			if (bufferSize < 1) {
+				throw new IllegalArgumentException("Buffer size must be at least 1");
+			}
+			this.bufferSize = bufferSize;
+			return this;
+		}
+
+		public LedgerExporter build() {
+			return new LedgerExporter(this);
+		}
+	}
+
+	private LedgerExporter(Builder builder) {
+		format = builder.format;
+		delimiter = builder.delimiter;
+		charset = builder.charset;
+		bufferSize = builder.bufferSize;
+	}
+
+	/**
+	 * Write category, budget and entry files, such as "entry.csv", to a
+	 * directory. Each file is written under another name and only renamed
+	 * once it is complete.
+	 *
+	 * @param directory where to write the files; it is created if need be
+	 * @param connections where to read the ledger
+	 * @return what was written, or empty if the ledger could not be read or a
+	 *         file could not be written
+	 */
+	public Optional<ExportResult> export(Path directory, ConnectionSource connections) {
+		long start = System.nanoTime();
+		LedgerDao ledger = new LedgerDao(connections);
+		Map<Integer, String> categories = new HashMap<>();
+		List<ExportResult.Table> tables = new ArrayList<>();
+
+		try {
+			Files.createDirectories(directory);
+
+			// One read transaction, so the files agree with each other
+			boolean read = ledger.scanTogether(scanner -> {
+
+				// Categories come first, so the others can name them
+				tables.add(write(directory, "category", CATEGORY_COLUMNS,
+						out -> scanner.categories(row -> {
+							categories.put(row.getId(), row.getDescription());
+							out.record(row, LedgerExporter::writeCategory);
+						})));
+
+				tables.add(write(directory, "budget", BUDGET_COLUMNS,
+						out -> scanner.budgets(
+								row -> out.record(row, (o, r) -> writeBudget(o, r, categories)))));
+
+				tables.add(write(directory, "entry", ENTRY_COLUMNS,
+						out -> scanner.entries(
+								row -> out.record(row, (o, r) -> writeEntry(o, r, categories)))));
+			});
+			if (!read) {
+				LOG.error("Could not export the ledger to " + directory);
+				return Optional.empty();
+			}
+		} catch (IOException | UncheckedIOException e) {
+			LOG.error("Could not export the ledger to " + directory, e);
+			return Optional.empty();
+		}
+
+		ExportResult result = new ExportResult(tables, System.nanoTime() - start);
+		LOG.info(directory + ": " + result);
+		return Optional.of(result);
+	}
+
+	@FunctionalInterface
+	private interface TableScan {
+
+		/**
+		 * Write every row of a table
+		 */
+		void scan(RecordWriter out) throws SQLException;
+	}
+
+	// Write one table to a file, with the scan that reads it
+	private ExportResult.Table write(Path directory, String table, String[] columns,
+			TableScan scan) throws IOException, SQLException {
+		long start = System.nanoTime();
+		Path file = directory.resolve(table + "." + format.getExtension());
+		Path writing = directory.resolve(table + "." + format.getExtension() + ".writing");
+		CountingOutputStream counter = new CountingOutputStream(Files.newOutputStream(writing));
+		RecordWriter out;
+
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(counter, charset), bufferSize)) {
+			out = format == Format.CSV
+					? new CsvRecordWriter(writer, columns, delimiter)
+					: new JsonRecordWriter(writer, columns);
+			out.begin();
+			scan.scan(out);
+			out.finish();
+		} catch (IOException | SQLException | RuntimeException e) {
+			Files.deleteIfExists(writing);
+			throw e;
+		}
+
+		Files.move(writing, file, StandardCopyOption.REPLACE_EXISTING);
+		return new ExportResult.Table(table, out.getRows(), counter.getCount(),
+				System.nanoTime() - start);
+	}
+
+	private static void writeCategory(RecordWriter out, CategoryRow row) throws IOException {
+		out.number(row.getId());
+		out.text(row.getDescription());
+	}
+
+	private static void writeBudget(RecordWriter out, BudgetRow row,
+			Map<Integer, String> categories) throws IOException {
+		out.number(row.getId());
+		out.text(categories.get(row.getCategoryId()));
+		out.money(row.getBudgetAmount());
+		out.money(row.getActualAmount());
+	}
+
+	private static void writeEntry(RecordWriter out, EntryRow row, Map<Integer, String> categories)
+			throws IOException {
+		EntryType type = row.getType();
+		out.number(row.getId());
+		out.text(LocalDate.ofEpochDay(row.getDate()).toString());
+		out.text(type == null ? null : type.getDesc());
+		out.text(row.getDescription());
+		out.money(type == EntryType.OUT ? -row.getAmount() : row.getAmount());
+		out.text(categories.get(row.getCategoryId()));
+		out.bool(row.isRecurring());
+		out.bool(row.isPaid());
+		out.bool(row.isReconciled());
+		out.text(row.getComment());
+		out.text(row.getUrl());
+	}
+
+	@FunctionalInterface
+	private interface Fields<T> {
+		void write(RecordWriter out, T row) throws IOException;
+	}
+
+	// Writes rows in one format. The fields of a row are written in the
+	// order of the columns; null text is written as an empty field in CSV
+	// and as null in JSON.
+	private abstract static class RecordWriter {
+		final Writer writer;
+		final String[] columns;
+		int field;
+		long rows;
+
+		RecordWriter(Writer writer, String[] columns) {
+			this.writer = writer;
+			this.columns = columns;
+		}
+
+		abstract void begin() throws IOException;
+
+		abstract void startRecord() throws IOException;
+
+		abstract void endRecord() throws IOException;
+
+		abstract void finish() throws IOException;
+
+		abstract void name() throws IOException;
+
+		abstract void quoted(String value) throws IOException;
+
+		abstract void nullText() throws IOException;
+
+		// Write a row from inside a scan, which cannot throw IOException
+		<T> void record(T row, Fields<T> fields) {
+			try {
+				startRecord();
+				field = 0;
+				fields.write(this, row);
+				endRecord();
+				rows++;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		void text(String value) throws IOException {
+			name();
+			if (value == null) {
+				nullText();
+			} else {
+				quoted(value);
+			}
+		}
+
+		void number(long value) throws IOException {
+			name();
+			writer.write(Long.toString(value));
+		}
+
+		void bool(boolean value) throws IOException {
+			name();
+			writer.write(value ? "true" : "false");
+		}
+
+		// Cents as dollars and cents, such as -12.05
+		void money(long cents) throws IOException {
+			name();
+			if (cents < 0) {
+				writer.write('-');
+			}
+			long size = Math.abs(cents);
+			writer.write(Long.toString(size / 100));
+			writer.write('.');
+			writer.write((char) ('0' + size % 100 / 10));
+			writer.write((char) ('0' + size % 10));
+		}
+
+		long getRows() {
+			return rows;
+		}
+	}
+
+	private static class CsvRecordWriter extends RecordWriter {
+		private final char delimiter;
+
+		CsvRecordWriter(Writer writer, String[] columns, char delimiter) {
+			super(writer, columns);
+			this.delimiter = delimiter;
+		}
+
+		@Override
+		void begin() throws IOException {
+			for (int i = 0; i < columns.length; i++) {
+				if (i > 0) {
+					writer.write(delimiter);
+				}
+				writer.write(columns[i]);
+			}
+			writer.write("\r\n");
+		}
+
+		@Override
+		void startRecord() {
+		}
+
+		@Override
+		void endRecord() throws IOException {
+			writer.write("\r\n");
+		}
+
+		@Override
+		void finish() {
+		}
+
+		@Override
+		void name() throws IOException {
+			if (field++ > 0) {
+				writer.write(delimiter);
+			}
+		}
+
+		// Quote a field only if it needs it, as RFC 4180 says
+		@Override
+		void quoted(String value) throws IOException {
+			boolean quote = false;
+			for (int i = 0; i < value.length() && !quote; i++) {
+				char c = value.charAt(i);
+				quote = c == delimiter || c == '"' || c == '\r' || c == '\n';
+			}
+
+			if (!quote) {
+				writer.write(value);
+				return;
+			}
+
+			writer.write('"');
+			writer.write(value.replace("\"", "\"\""));
+			writer.write('"');
+		}
+
+		@Override
+		void nullText() {
+		}
+	}
+
+	private static class JsonRecordWriter extends RecordWriter {
+
+		JsonRecordWriter(Writer writer, String[] columns) {
+			super(writer, columns);
+		}
+
+		@Override
+		void begin() throws IOException {
+			writer.write('[');
+		}
+
+		@Override
+		void startRecord() throws IOException {
+			writer.write(rows == 0 ? "\n{" : ",\n{");
+		}
+
+		@Override
+		void endRecord() throws IOException {
+			writer.write('}');
+		}
+
+		@Override
+		void finish() throws IOException {
+			writer.write("\n]\n");
+		}
+
+		@Override
+		void name() throws IOException {
+			if (field > 0) {
+				writer.write(',');
+			}
+			writer.write('"');
+			writer.write(columns[field++]);
+			writer.write("\":");
+		}
+
+		@Override
+		void quoted(String value) throws IOException {
+			writer.write('"');
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				switch (c) {
+				case '"':
+					writer.write("\\\"");
+					break;
+				case '\\':
+					writer.write("\\\\");
+					break;
+				case '\n':
+					writer.write("\\n");
+					break;
+				case '\r':
+					writer.write("\\r");
+					break;
+				case '\t':
+					writer.write("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						writer.write(String.format("\\u%04x", (int) c));
+					} else {
+						writer.write(c);
+					}
+				}
+			}
+			writer.write('"');
+		}
+
+		@Override
+		void nullText() throws IOException {
+			writer.write("null");
+		}
+	}
+
+	// Counts the bytes that reach the file, after the charset has encoded them
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count = 0;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+
+	/**
+	 * Export {@value DbConnection#DB} to a directory.
+	 *
+	 * @param args the directory, then optionally "csv" or "json"
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: LedgerExporter directory [csv|json]");
+			System.exit(2);
+		}
+
+		LedgerExporter.Builder builder = new LedgerExporter.Builder();
+		if (args.length > 1) {
+			builder.format(Format.valueOf(args[1].toUpperCase(Locale.ROOT)));
+		}
+
+		Optional<ExportResult> result = builder.build()
+				.export(Paths.get(args[0]), DbConnection.getSource());
+		DbConnection.close();
+		result.ifPresent(System.out::println);
+		System.exit(result.isPresent() ? 0 : 1);
+	}
+}
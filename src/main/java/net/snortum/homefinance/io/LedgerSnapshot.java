@@ -0,0 +1,720 @@
+package net.snortum.homefinance.io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.snortum.homefinance.dao.BudgetRow;
+import net.snortum.homefinance.dao.CategoryRow;
+import net.snortum.homefinance.dao.EntryRow;
+import net.snortum.homefinance.dao.LedgerDao;
+import net.snortum.homefinance.model.EntryType;
+import net.snortum.homefinance.util.ConnectionSource;
+import net.snortum.homefinance.util.DbConnection;
+
+/**
+ * Save the whole ledger to a compact binary snapshot, and restore it again.
+ * The categories, budgets and entries are read and written a row at a time,
+ * so a ledger of any size is saved and restored in the same memory.
+ * <p>
+ * Version {@value #VERSION} of the format is:
+ * <ol>
+ * <li>the magic number "HFSN" and the version, as 4-byte integers
+ * <li>the categories, budgets and entries, in ID order. Each table is a run
+ * of rows ended by a 0. Every row starts with the difference from the ID
+ * before it, which is never 0.
+ * <li>the CRC-32 of everything before it, as a 4-byte integer
+ * </ol>
+ * Numbers are varints, 7 bits to a byte, and those that may be negative are
+ * zigzag encoded first, so small numbers of either sign take one byte. An
+ * entry's date is stored as the days from the entry before it, and its type
+ * and flags share one number. Text is stored once; later rows with the same
+ * text refer to it by number, for the first {@value #MAX_DICTIONARY} strings
+ * of up to {@value #MAX_DICTIONARY_LENGTH} characters.
+ * <p>
+ * A restore replaces the ledger in one transaction, reading the snapshot
+ * {@value #DEFAULT_BATCH_SIZE} rows at a time. A damaged snapshot is found by
+ * its checksum before the transaction commits, so the ledger is only ever
+ * wholly restored or left as it was.
+ * {@link #verify(Path, ConnectionSource)} compares a snapshot with the
+ * ledger, row by row.
+ *
+ * <pre>
+ * mvn exec:java -Dexec.mainClass=net.snortum.homefinance.io.LedgerSnapshot -Dexec.args="save ledger.snapshot"
+ * </pre>
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class LedgerSnapshot {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** The version of the format written */
+	public static final int VERSION = 1;
+
+	/** Rows read into memory and written at once, unless the builder says otherwise */
+	public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+	/** The most strings stored only once */
+	static final int MAX_DICTIONARY = 1 << 16;
+
+	/** The longest string stored only once */
+	static final int MAX_DICTIONARY_LENGTH = 255;
+
+	private static final int MAGIC = 0x4846534E; // "HFSN"
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// Ends the rows of a table, where an ID difference would be
+	private static final int END = 0;
+
+	private final int batchSize;
+
+	/**
+	 * Build a {@link LedgerSnapshot}.
+	 */
+	public static class Builder {
+		private int batchSize = DEFAULT_BATCH_SIZE;
+
+		/**
+		 * @param batchSize the rows read into memory and written at once
+		 * @return this builder
+		 */
+		public Builder batchSize(int batchSize) {
+			if (batchSize < 1) {
+				throw new IllegalArgumentException("Batch size must be at least 1");
+			}
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		public LedgerSnapshot build() {
+			return new LedgerSnapshot(this);
+		}
+	}
+
+	private LedgerSnapshot(Builder builder) {
+		batchSize = builder.batchSize;
+	}
+
+	/**
+	 * Save the ledger to a file. The file is written under another name and
+	 * only renamed once it is complete.
+	 *
+	 * @param file the snapshot file
+	 * @param connections where to read the ledger
+	 * @return the rows and bytes of each table, or empty if the ledger could
+	 *         not be read or the file could not be written
+	 */
+	public Optional<ExportResult> save(Path file, ConnectionSource connections) {
+		long start = System.nanoTime();
+		LedgerDao ledger = new LedgerDao(connections);
+		Path writing = file.resolveSibling(file.getFileName() + ".writing");
+		List<ExportResult.Table> tables = new ArrayList<>();
+
+		try {
+			boolean read;
+			try (SnapshotWriter out = new SnapshotWriter(Files.newOutputStream(writing))) {
+
+				// One read transaction, so the tables agree with each other
+				read = ledger.scanTogether(scanner -> {
+					tables.add(out.table("category", () -> scanner.categories(out::category)));
+					tables.add(out.table("budget", () -> scanner.budgets(out::budget)));
+					tables.add(out.table("entry", () -> scanner.entries(out::entry)));
+				});
+				if (read) {
+					out.finish();
+				}
+			}
+
+			if (!read) {
+				LOG.error("Could not save a snapshot to " + file + ", the ledger could not be read");
+				delete(writing);
+				return Optional.empty();
+			}
+			Files.move(writing, file, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | UncheckedIOException e) {
+			LOG.error("Could not save a snapshot to " + file, e);
+			delete(writing);
+			return Optional.empty();
+		}
+
+		ExportResult result = new ExportResult(tables, System.nanoTime() - start);
+		LOG.info(file + ": " + result);
+		return Optional.of(result);
+	}
+
+	/**
+	 * Replace every category, budget and entry with those in a snapshot, in
+	 * one transaction.
+	 *
+	 * @param file the snapshot file
+	 * @param connections where to write the ledger
+	 * @return the rows restored, or empty if the snapshot is not valid or the
+	 *         ledger could not be written, in which case the ledger is left as
+	 *         it was
+	 */
+	public Optional<ImportResult> restore(Path file, ConnectionSource connections) {
+		long start = System.nanoTime();
+		long[] rows = new long[1];
+
+		try (SnapshotReader in = new SnapshotReader(Files.newInputStream(file))) {
+			boolean restored = new LedgerDao(connections).restore(restorer -> {
+				rows[0] += restore(in::nextCategory, restorer::categories);
+				rows[0] += restore(in::nextBudget, restorer::budgets);
+				rows[0] += restore(in::nextEntry, restorer::entries);
+				in.finish();
+			});
+			if (!restored) {
+				LOG.error("Could not restore " + file + ", the ledger is left as it was");
+				return Optional.empty();
+			}
+		} catch (IOException | IllegalStateException e) {
+			LOG.error("Could not restore " + file + ", the ledger is left as it was", e);
+			return Optional.empty();
+		}
+
+		ImportResult result = new ImportResult(rows[0], rows[0], 0, 0, System.nanoTime() - start,
+				Collections.emptyList());
+		LOG.info(file + ": " + result);
+		return Optional.of(result);
+	}
+
+	/**
+	 * Compare a snapshot with the ledger, row by row. The first difference is
+	 * logged.
+	 *
+	 * @param file the snapshot file
+	 * @param connections where to read the ledger
+	 * @return true if the snapshot is valid and holds exactly the rows of the
+	 *         ledger
+	 */
+	public boolean verify(Path file, ConnectionSource connections) {
+		LedgerDao ledger = new LedgerDao(connections);
+		List<String> differences = new ArrayList<>();
+
+		try (SnapshotReader in = new SnapshotReader(Files.newInputStream(file))) {
+			boolean read = ledger.scanTogether(scanner -> {
+				scanner.categories(
+						row -> compare("category", row, read(in::nextCategory), differences));
+				compareRest("category", in::nextCategory, differences);
+
+				scanner.budgets(row -> compare("budget", row, read(in::nextBudget), differences));
+				compareRest("budget", in::nextBudget, differences);
+
+				scanner.entries(row -> compare("entry", row, read(in::nextEntry), differences));
+				compareRest("entry", in::nextEntry, differences);
+			});
+			if (!read) {
+				LOG.error(file + " could not be compared with the ledger");
+				return false;
+			}
+			in.finish();
+		} catch (IOException | UncheckedIOException e) {
+			LOG.error(file + " is not a valid snapshot", e);
+			return false;
+		}
+
+		if (!differences.isEmpty()) {
+			LOG.error(file + " does not match the ledger: " + differences.get(0));
+			return false;
+		}
+
+		LOG.info(file + " matches the ledger");
+		return true;
+	}
+
+	@FunctionalInterface
+	private interface RowSource<T> {
+
+		/**
+		 * @return the next row of a table, or {@code null} after the last
+		 */
+		T next() throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface TableScan {
+
+		/**
+		 * Write every row of a table
+		 */
+		void scan() throws SQLException;
+	}
+
+	@FunctionalInterface
+	private interface BatchWriter<T> {
+		void write(List<T> batch) throws SQLException;
+	}
+
+	// Write the rows of one table a batch at a time
+	private <T> long restore(RowSource<T> source, BatchWriter<T> writer)
+			throws IOException, SQLException {
+		List<T> batch = new ArrayList<>(batchSize);
+		long rows = 0;
+
+		for (T row = source.next(); row != null; row = source.next()) {
+			batch.add(row);
+			if (batch.size() == batchSize) {
+				write(batch, writer);
+				rows += batchSize;
+			}
+		}
+
+		rows += batch.size();
+		write(batch, writer);
+		return rows;
+	}
+
+	private static <T> void write(List<T> batch, BatchWriter<T> writer) throws SQLException {
+		if (!batch.isEmpty()) {
+			writer.write(batch);
+		}
+		batch.clear();
+	}
+
+	private static <T> T read(RowSource<T> source) {
+		try {
+			return source.next();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Only the first difference is kept
+	private static void compare(String table, Object ledgerRow, Object snapshotRow,
+			List<String> differences) {
+		if (differences.isEmpty() && !ledgerRow.equals(snapshotRow)) {
+			differences.add(table + " " + ledgerRow + " in the ledger, "
+					+ (snapshotRow == null ? "no more rows" : snapshotRow.toString())
+					+ " in the snapshot");
+		}
+	}
+
+	// Rows left in the snapshot after the ledger's last row are differences
+	private static <T> void compareRest(String table, RowSource<T> source,
+			List<String> differences) throws IOException {
+		for (T row = source.next(); row != null; row = source.next()) {
+			if (differences.isEmpty()) {
+				differences.add(table + " " + row + " in the snapshot only");
+			}
+		}
+	}
+
+	private static void delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOG.warn("Could not delete " + file, e);
+		}
+	}
+
+	/**
+	 * Writes a snapshot, through its own buffer so that each varint costs no
+	 * more than a few array stores.
+	 */
+	private static class SnapshotWriter implements Closeable {
+		private final OutputStream out;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private final CRC32 crc = new CRC32();
+		private final Map<String, Integer> dictionary = new HashMap<>();
+		private int position = 0;
+		private long written = 0;
+		private long lastId;
+		private long lastDate;
+		private long rows;
+
+		SnapshotWriter(OutputStream out) throws IOException {
+			this.out = out;
+			writeInt(MAGIC);
+			writeInt(VERSION);
+		}
+
+		// Write one table with the scan that reads it
+		ExportResult.Table table(String name, TableScan scan) throws IOException, SQLException {
+			long start = System.nanoTime();
+			long before = getSize();
+			lastId = 0;
+			rows = 0;
+
+			scan.scan();
+			writeVarLong(END);
+
+			return new ExportResult.Table(name, rows, getSize() - before, System.nanoTime() - start);
+		}
+
+		void category(CategoryRow row) {
+			try {
+				startRow(row.getId());
+				writeText(row.getDescription());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		void budget(BudgetRow row) {
+			try {
+				startRow(row.getId());
+				writeZigZag(row.getCategoryId());
+				writeZigZag(row.getBudgetAmount());
+				writeZigZag(row.getActualAmount());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		void entry(EntryRow row) {
+			try {
+				EntryType type = row.getType();
+				if (type == null) {
+					throw new IOException("Entry " + row.getId() + " has an unknown type");
+				}
+
+				startRow(row.getId());
+				writeZigZag(row.getDate() - lastDate);
+				lastDate = row.getDate();
+				writeVarLong((long) row.getFlags() << 2 | type.getCode());
+				writeZigZag(row.getAmount());
+				writeZigZag(row.getCategoryId());
+				writeText(row.getDescription());
+				writeText(row.getComment());
+				writeText(row.getUrl());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		// The checksum covers everything written before it
+		void finish() throws IOException {
+			flush();
+			writeInt((int) crc.getValue());
+			out.write(buffer, 0, position);
+			written += position;
+			position = 0;
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+
+		private long getSize() {
+			return written + position;
+		}
+
+		private void startRow(long id) throws IOException {
+			if (id <= lastId) {
+				throw new IOException("IDs must be positive and in order, found " + id + " after "
+						+ lastId);
+			}
+			writeVarLong(id - lastId);
+			lastId = id;
+			rows++;
+		}
+
+		// null is 0, a new string is 1 then its UTF-8 bytes, and a string
+		// seen before is its number in the dictionary plus 2
+		private void writeText(String text) throws IOException {
+			if (text == null) {
+				writeVarLong(0);
+				return;
+			}
+
+			Integer index = dictionary.get(text);
+			if (index != null) {
+				writeVarLong(index + 2L);
+				return;
+			}
+
+			byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(1);
+			writeVarLong(bytes.length);
+			for (int offset = 0; offset < bytes.length;) {
+				if (position == buffer.length) {
+					flush();
+				}
+				int length = Math.min(bytes.length - offset, buffer.length - position);
+				System.arraycopy(bytes, offset, buffer, position, length);
+				position += length;
+				offset += length;
+			}
+
+			if (dictionary.size() < MAX_DICTIONARY && text.length() <= MAX_DICTIONARY_LENGTH) {
+				dictionary.put(text, dictionary.size());
+			}
+		}
+
+		private void writeZigZag(long value) throws IOException {
+			writeVarLong((value << 1) ^ (value >> 63));
+		}
+
+		private void writeVarLong(long value) throws IOException {
+			if (buffer.length - position < 10) {
+				flush();
+			}
+			while ((value & ~0x7FL) != 0) {
+				buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			buffer[position++] = (byte) value;
+		}
+
+		private void writeInt(int value) throws IOException {
+			if (buffer.length - position < 4) {
+				flush();
+			}
+			buffer[position++] = (byte) (value >>> 24);
+			buffer[position++] = (byte) (value >>> 16);
+			buffer[position++] = (byte) (value >>> 8);
+			buffer[position++] = (byte) value;
+		}
+
+		private void flush() throws IOException {
+			crc.update(buffer, 0, position);
+			out.write(buffer, 0, position);
+			written += position;
+			position = 0;
+		}
+	}
+
+	/**
+	 * Reads a snapshot, one table after another.
+	 */
+	private static class SnapshotReader implements Closeable {
+		private final InputStream in;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private final CRC32 crc = new CRC32();
+		private final List<String> dictionary = new ArrayList<>();
+		private int position = 0;
+		private int limit = 0;
+		private int checked = 0;
+		private int table = 0;
+		private long lastId = 0;
+		private long lastDate = 0;
+
+		SnapshotReader(InputStream in) throws IOException {
+			this.in = in;
+			if (readInt() != MAGIC) {
+				throw new IOException("Not a ledger snapshot");
+			}
+			int version = readInt();
+			if (version != VERSION) {
+				throw new IOException("Snapshot version " + version + " is not supported");
+			}
+		}
+
+		CategoryRow nextCategory() throws IOException {
+			if (!startRow(0)) {
+				return null;
+			}
+			return new CategoryRow((int) lastId, readText());
+		}
+
+		BudgetRow nextBudget() throws IOException {
+			if (!startRow(1)) {
+				return null;
+			}
+			return new BudgetRow((int) lastId, (int) readZigZag(), readZigZag(), readZigZag());
+		}
+
+		EntryRow nextEntry() throws IOException {
+			if (!startRow(2)) {
+				return null;
+			}
+
+			lastDate += readZigZag();
+			long typeAndFlags = readVarLong();
+			EntryType type = EntryType.fromCode((int) (typeAndFlags & 3));
+			if (type == null) {
+				throw new IOException("Entry " + lastId + " has an unknown type");
+			}
+			long amount = readZigZag();
+			int categoryId = (int) readZigZag();
+			String description = readText();
+			String comment = readText();
+			String url = readText();
+
+			return new EntryRow((int) lastId, description, type, (int) (typeAndFlags >> 2), amount,
+					comment, url, lastDate, categoryId);
+		}
+
+		// The checksum must match and nothing may follow it
+		void finish() throws IOException {
+			if (table != 3) {
+				throw new IllegalStateException("The tables have not all been read");
+			}
+
+			crc.update(buffer, checked, position - checked);
+			checked = position;
+			int expected = (int) crc.getValue();
+			if (readInt() != expected) {
+				throw new IOException("The snapshot checksum does not match; it is damaged");
+			}
+			if (position < limit || in.read() >= 0) {
+				throw new IOException("There is data after the end of the snapshot");
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+
+		// Read the ID of the next row of a table, or the end of the table
+		private boolean startRow(int wanted) throws IOException {
+			if (table != wanted) {
+				if (table > wanted) {
+					return false;
+				}
+				throw new IllegalStateException("Table " + table + " has not all been read");
+			}
+
+			long difference = readVarLong();
+			if (difference == END) {
+				table++;
+				lastId = 0;
+				return false;
+			}
+
+			lastId += difference;
+			if (difference < 0 || lastId > Integer.MAX_VALUE) {
+				throw new IOException("Row ID out of range: " + lastId);
+			}
+			return true;
+		}
+
+		private String readText() throws IOException {
+			long tag = readVarLong();
+			if (tag == 0) {
+				return null;
+			}
+
+			if (tag > 1) {
+				if (tag - 2 >= dictionary.size()) {
+					throw new IOException("Unknown string number " + (tag - 2));
+				}
+				return dictionary.get((int) (tag - 2));
+			}
+
+			long length = readVarLong();
+			if (length < 0 || length > Integer.MAX_VALUE) {
+				throw new IOException("String length out of range: " + length);
+			}
+
+			byte[] bytes = new byte[(int) length];
+			for (int offset = 0; offset < bytes.length;) {
+				fill();
+				int count = Math.min(bytes.length - offset, limit - position);
+				System.arraycopy(buffer, position, bytes, offset, count);
+				position += count;
+				offset += count;
+			}
+
+			String text = new String(bytes, StandardCharsets.UTF_8);
+			if (dictionary.size() < MAX_DICTIONARY && text.length() <= MAX_DICTIONARY_LENGTH) {
+				dictionary.add(text);
+			}
+			return text;
+		}
+
+		private long readZigZag() throws IOException {
+			long value = readVarLong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readVarLong() throws IOException {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				fill();
+				byte b = buffer[position++];
+				value |= (long) (b & 0x7F) << shift;
+				if (b >= 0) {
+					return value;
+				}
+			}
+			throw new IOException("Varint is too long");
+		}
+
+		private int readInt() throws IOException {
+			int value = 0;
+			for (int i = 0; i < 4; i++) {
+				fill();
+				value = value << 8 | (buffer[position++] & 0xFF);
+			}
+			return value;
+		}
+
+		// Make sure there is at least one byte to read
+		private void fill() throws IOException {
+			if (position < limit) {
+				return;
+			}
+
+			crc.update(buffer, checked, position - checked);
+			int count = in.read(buffer);
+			if (count <= 0) {
+				throw new EOFException("The snapshot ends too soon");
+			}
+			position = 0;
+			limit = count;
+			checked = 0;
+		}
+	}
+
+	/**
+	 * Save, restore or verify a snapshot of {@value DbConnection#DB}.
+	 *
+	 * @param args "save", "restore" or "verify", then the snapshot file
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: LedgerSnapshot save|restore|verify file");
+			System.exit(2);
+		}
+
+		LedgerSnapshot snapshot = new LedgerSnapshot.Builder().build();
+		Path file = Paths.get(args[1]);
+		boolean done;
+
+		switch (args[0]) {
+		case "save":
+			Optional<ExportResult> saved = snapshot.save(file, DbConnection.getSource());
+			saved.ifPresent(System.out::println);
+			done = saved.isPresent();
+			break;
+		case "restore":
+			Optional<ImportResult> restored = snapshot.restore(file, DbConnection.getSource());
+			restored.ifPresent(System.out::println);
+			done = restored.isPresent();
+			break;
+		case "verify":
+			done = snapshot.verify(file, DbConnection.getSource());
+			System.out.println(done ? "The snapshot matches the ledger" : "The snapshot does not match");
+			break;
+		default:
+			System.err.println("Unknown command " + args[0]);
+			done = false;
+		}
+
+		DbConnection.close();
+		System.exit(done ? 0 : 1);
+	}
+}
@@ -0,0 +1,437 @@
+package net.snortum.homefinance.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Arrays;
+
+/**
+ * Reads CSV records from a memory-mapped file, without copying the file into
+ * the heap. Each call to {@link #next()} finds where the fields of the next
+ * record are; nothing is decoded until it is asked for. Dates and amounts are
+ * parsed straight from the bytes, so only the text fields that are wanted
+ * become Strings.
+ * <p>
+ * The file is mapped {@value #DEFAULT_REGION_SIZE} bytes at a time, so files
+ * larger than 2 GB can be read, but no record may be longer than that. The
+ * quoting rules are those of {@link CsvReader}. The charset must encode the
+ * delimiter, quotes and line breaks as single ASCII bytes, as UTF-8 and the
+ * ISO-8859 and Windows charsets do.
+ *
+ * <pre>
+ * try (MappedCsvReader csv = new MappedCsvReader(file, ',', StandardCharsets.UTF_8)) {
+ *     while (csv.next()) {
+ *         LocalDate date = csv.getDate(0);
+ *         long cents = csv.getCents(2);
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class MappedCsvReader implements Closeable {
+
+	/** Returned by {@link #getCents(int)} for a field that is not an amount */
+	public static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+	/** The most bytes mapped at once */
+	public static final int DEFAULT_REGION_SIZE = 256 * 1024 * 1024;
+
+	// More digits than this could overflow a long of cents
+	private static final int MAX_DIGITS = 16;
+
+	private static final byte QUOTE = '"';
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+
+	private final FileChannel channel;
+	private final long fileEnd;
+	private final byte delimiter;
+	private final Charset charset;
+	private final int regionSize;
+	private MappedByteBuffer region;
+	private long regionStart;
+	private int regionLimit;
+	private int position;
+
+	// Where each field of the current record is in the region
+	private int[] starts = new int[16];
+	private int[] ends = new int[16];
+	private boolean[] escaped = new boolean[16];
+	private int fieldCount = 0;
+	private long lineNumber = 0;
+	private long recordLine = 0;
+	private byte[] scratch = new byte[256];
+
+	/**
+	 * @param file the CSV file
+	 * @param delimiter the field delimiter, such as ',' or ';'
+	 * @param charset the charset of the text fields
+	 * @throws IOException if the file cannot be opened
+	 */
+	public MappedCsvReader(Path file, char delimiter, Charset charset) throws IOException {
+		this(file, delimiter, charset, DEFAULT_REGION_SIZE, 0, Long.MAX_VALUE, 1);
+	}
+
+	/**
+	 * Read only part of a file, such as a range of records found by
+	 * {@link #getPosition()} in another reader.
+	 *
+	 * @param start the offset of the first record
+	 * @param end the offset just past the last record
+	 * @param firstLine the line number of the first record
+	 */
+	MappedCsvReader(Path file, char delimiter, Charset charset, long start, long end, long firstLine)
+			throws IOException {
+		this(file, delimiter, charset, DEFAULT_REGION_SIZE, start, end, firstLine);
+	}
+
+	MappedCsvReader(Path file, char delimiter, Charset charset, int regionSize, long start, long end,
+			long firstLine) throws IOException {
+		if (delimiter > 0x7F || delimiter == QUOTE || delimiter == CR || delimiter == LF) {
+			throw new IllegalArgumentException("Invalid delimiter: " + delimiter);
+		}
+
+		this.delimiter = (byte) delimiter;
+		this.charset = charset;
+		this.regionSize = regionSize;
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		fileEnd = Math.min(end, channel.size());
+		lineNumber = firstLine - 1;
+		map(Math.min(start, fileEnd));
+
+		// Skip a UTF-8 byte order mark
+		if (start == 0 && regionLimit >= 3 && region.get(0) == (byte) 0xEF && region.get(1) == (byte) 0xBB
+				&& region.get(2) == (byte) 0xBF) {
+			position = 3;
+		}
+	}
+
+	/**
+	 * Move to the next record.
+	 *
+	 * @return false at the end of the file
+	 * @throws IOException if the file cannot be read, ends inside a quoted
+	 *             field, or has a record longer than the mapped region
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			if (position >= regionLimit && isLastRegion()) {
+				return false;
+			}
+
+			int next = parse(position);
+			if (next >= 0) {
+				position = next;
+				return true;
+			}
+
+			// The record runs past the region, so map again from its start
+			if (position == 0) {
+				throw new IOException("The record on line " + (lineNumber + 1) + " is longer than "
+						+ regionSize + " bytes");
+			}
+			map(regionStart + position);
+		}
+	}
+
+	/**
+	 * @return the number of fields in the current record
+	 */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * @return the line the current record started on, counting from 1
+	 */
+	public long getLineNumber() {
+		return recordLine;
+	}
+
+	/**
+	 * @return the offset in the file of the next record
+	 */
+	long getPosition() {
+		return regionStart + position;
+	}
+
+	/**
+	 * @return the line the next record starts on
+	 */
+	long getNextLineNumber() {
+		return lineNumber + 1;
+	}
+
+	/**
+	 * @param field a field number, from 0
+	 * @return true if the field is missing or holds only spaces
+	 */
+	public boolean isBlank(int field) {
+		return field < 0 || field >= fieldCount || trimStart(field) == trimEnd(field);
+	}
+
+	/**
+	 * @param field a field number, from 0
+	 * @return the text of the field, without quotes, or "" if it is missing
+	 */
+	public String getString(int field) {
+		if (field < 0 || field >= fieldCount) {
+			return "";
+		}
+
+		int start = starts[field];
+		int length = ends[field] - start;
+		if (scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+
+		region.position(start);
+		region.get(scratch, 0, length);
+		String text = new String(scratch, 0, length, charset);
+		return escaped[field] ? text.replace("\"\"", "\"") : text;
+	}
+
+	/**
+	 * Parse a date in the form YYYY-MM-DD. Spaces around it are ignored.
+	 *
+	 * @param field a field number, from 0
+	 * @return the date, or {@code null} if the field is not a valid date
+	 */
+	public LocalDate getDate(int field) {
+		if (isBlank(field)) {
+			return null;
+		}
+
+		int p = trimStart(field);
+		if (trimEnd(field) - p != 10 || region.get(p + 4) != '-' || region.get(p + 7) != '-') {
+			return null;
+		}
+
+		int year = digits(p, 4);
+		int month = digits(p + 5, 2);
+		int day = digits(p + 8, 2);
+		if (year < 0 || month < 1 || month > 12 || day < 1
+				|| day > Month.of(month).length(Year.isLeap(year))) {
+			return null;
+		}
+
+		return LocalDate.of(year, month, day);
+	}
+
+	/**
+	 * Parse an amount such as "1,234.56" or "-12.5" into cents, rounding half
+	 * up past two decimal places. Spaces around it are ignored.
+	 *
+	 * @param field a field number, from 0
+	 * @return the cents, or {@link #NOT_A_NUMBER} if the field is not an
+	 *         amount
+	 */
+	public long getCents(int field) {
+		if (isBlank(field)) {
+			return NOT_A_NUMBER;
+		}
+
+		int p = trimStart(field);
+		int end = trimEnd(field);
+		boolean negative = region.get(p) == '-';
+		if (negative) {
+			p++;
+		}
+
+		long units = 0;
+		int digits = 0;
+		for (; p < end; p++) {
+			byte b = region.get(p);
+			if (b >= '0' && b <= '9') {
+				units = units * 10 + (b - '0');
+				if (++digits > MAX_DIGITS) {
+					return NOT_A_NUMBER;
+				}
+			} else if (b != ',' || digits == 0) {
+				break;
+			}
+		}
+
+		long fraction = 0;
+		int fractionDigits = 0;
+		if (p < end && region.get(p) == '.') {
+			for (p++; p < end; p++) {
+				byte b = region.get(p);
+				if (b < '0' || b > '9') {
+					break;
+				}
+				if (fractionDigits < 2) {
+					fraction = fraction * 10 + (b - '0');
+				} else if (fractionDigits == 2 && b >= '5') {
+					fraction++;
+				}
+				fractionDigits++;
+			}
+		}
+
+		if (p != end || digits + fractionDigits == 0) {
+			return NOT_A_NUMBER;
+		}
+
+		for (int i = fractionDigits; i < 2; i++) {
+			fraction *= 10;
+		}
+
+		long cents = units * 100 + fraction;
+		return negative ? -cents : cents;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private boolean isLastRegion() {
+		return regionStart + regionLimit >= fileEnd;
+	}
+
+	private void map(long start) throws IOException {
+		long length = Math.min(regionSize, fileEnd - start);
+		region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+		regionStart = start;
+		regionLimit = (int) length;
+		position = 0;
+	}
+
+	// Find the fields of the record at p. Returns where the next record
+	// starts, or -1 if the record does not end in this region.
+	private int parse(int p) throws IOException {
+		boolean last = isLastRegion();
+		int count = 0;
+		int lines = 1;
+
+		while (true) {
+			if (p < regionLimit && region.get(p) == QUOTE) {
+				int start = ++p;
+				boolean doubled = false;
+
+				while (true) {
+					if (p >= regionLimit) {
+						if (last) {
+							throw new IOException("End of input in a quoted field starting on line "
+									+ (lineNumber + 1));
+						}
+						return -1;
+					}
+
+					byte b = region.get(p);
+					if (b == QUOTE) {
+						if (p + 1 >= regionLimit && !last) {
+							return -1;
+						}
+						if (p + 1 < regionLimit && region.get(p + 1) == QUOTE) {
+							doubled = true;
+							p += 2;
+							continue;
+						}
+						break;
+					}
+					if (b == LF) {
+						lines++;
+					}
+					p++;
+				}
+
+				addField(count++, start, p, doubled);
+
+				// Anything between the closing quote and the delimiter is dropped
+				p++;
+				while (p < regionLimit && !isFieldEnd(region.get(p))) {
+					p++;
+				}
+			} else {
+				int start = p;
+				while (p < regionLimit && !isFieldEnd(region.get(p))) {
+					p++;
+				}
+				addField(count++, start, p, false);
+			}
+
+			if (p >= regionLimit) {
+				if (!last) {
+					return -1;
+				}
+				break;
+			}
+
+			byte b = region.get(p++);
+			if (b == delimiter) {
+				continue;
+			}
+
+			if (b == CR) {
+				if (p < regionLimit && region.get(p) == LF) {
+					p++;
+				} else if (p >= regionLimit && !last) {
+					return -1;
+				}
+			}
+			break;
+		}
+
+		fieldCount = count;
+		recordLine = lineNumber + 1;
+		lineNumber += lines;
+		return p;
+	}
+
+	private boolean isFieldEnd(byte b) {
+		return b == delimiter || b == LF || b == CR;
+	}
+
+	private void addField(int field, int start, int end, boolean doubled) {
+		if (field == starts.length) {
+			int length = starts.length * 2;
+			starts = Arrays.copyOf(starts, length);
+			ends = Arrays.copyOf(ends, length);
+			escaped = Arrays.copyOf(escaped, length);
+		}
+		starts[field] = start;
+		ends[field] = end;
+		escaped[field] = doubled;
+	}
+
+	private int trimStart(int field) {
+		int p = starts[field];
+		while (p < ends[field] && region.get(p) == ' ') {
+			p++;
+		}
+		return p;
+	}
+
+	private int trimEnd(int field) {
+		int p = ends[field];
+		while (p > starts[field] && region.get(p - 1) == ' ') {
+			p--;
+		}
+		return p;
+	}
+
+	// Returns the number in count digits at p, or -1 if one is not a digit
+	private int digits(int p, int count) {
+		int value = 0;
+		for (int i = 0; i < count; i++) {
+			byte b = region.get(p + i);
+			if (b < '0' || b > '9') {
+				return -1;
+			}
+			value = value * 10 + (b - '0');
+		}
+		return value;
+	}
+}
@@ -1,6 +1,5 @@
 package net.snortum.homefinance.model;
 
-import java.math.BigDecimal;
 import java.net.URL;
 import java.time.LocalDate;
 import java.util.Optional;
@@ -20,7 +19,7 @@ public abstract class AbstractEntry implements Entry {
 	protected int id;
 	protected SimpleStringProperty description = new SimpleStringProperty();
 	protected SimpleBooleanProperty recurring = new SimpleBooleanProperty();
-	protected SimpleObjectProperty<BigDecimal> amount = new SimpleObjectProperty<>();
+	protected SimpleObjectProperty<Money> amount = new SimpleObjectProperty<>();
 	protected SimpleStringProperty comment = new SimpleStringProperty();
 	protected SimpleObjectProperty<Optional<URL>> url = new SimpleObjectProperty<>();
 	protected SimpleBooleanProperty paid = new SimpleBooleanProperty();
@@ -45,7 +44,7 @@ public abstract class AbstractEntry implements Entry {
 		int id = -1;
 		String description = "";
 		boolean recurring = false;
-		BigDecimal amount = BigDecimal.ZERO;
+		Money amount = Money.ZERO;
 		String comment = "";
 		Optional<URL> url = Optional.empty();
 		boolean paid = false;
@@ -112,7 +111,7 @@ public abstract class AbstractEntry implements Entry {
 		 * @param amount The amount of the entry
 		 * @return this object
 		 */
-		public Builder amount(BigDecimal amount) {
+		public Builder amount(Money amount) {
 			this.amount = amount;
 			return this;
 		}
@@ -179,7 +178,7 @@ public abstract class AbstractEntry implements Entry {
 		 * 
 		 * <pre>
 		 * Entry entry = new EntryBalance.Builder(type)
-		 *     .amount(12.34)
+		 *     .amount(Money.ofCents(1234))
 		 *     .description("Gas Bill")
 		 *     .build();
 		 * </pre>
@@ -221,12 +220,12 @@ public abstract class AbstractEntry implements Entry {
 	}
 
 	@Override
-	public BigDecimal getAmount() {
+	public Money getAmount() {
 		return amount.get();
 	}
 	
 	@Override
-	public SimpleObjectProperty<BigDecimal> amountProperty() {
+	public SimpleObjectProperty<Money> amountProperty() {
 		return amount;
 	}
 
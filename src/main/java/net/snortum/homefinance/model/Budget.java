@@ -1,11 +1,10 @@
 package net.snortum.homefinance.model;
 
+import java.math.BigDecimal;
 import java.text.DecimalFormat;
 
-import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -19,13 +18,13 @@ import javafx.beans.property.StringProperty;
  */
 public class Budget implements ValueSettable<Double>{
 	
-	/** SQL statement to create table */
+	/** SQL statement that first created the table. Later changes are in DbMigration. */
 	public static final String SQL_TO_CREATE =
 			"CREATE TABLE budget ("
     		+ "id          INTEGER PRIMARY KEY AUTOINCREMENT, "
     		+ "category_id INTEGER NOT NULL,"
     		+ "budget_amt  REAL    CHECK(budget_amt >= 0),"
-    		+ "actual_amt  REAL," // TODO should this only be calculated?
+    		+ "actual_amt  REAL," // Not used for reports, see BudgetDao.listActuals()
     		+ "FOREIGN KEY (category_id) REFERENCES category(id)"
     		+ ")";
 	
@@ -35,8 +34,8 @@ public class Budget implements ValueSettable<Double>{
 	private IntegerProperty id;
 	private ObjectProperty<Category> category;
 	private StringProperty categoryDescription;
-	private DoubleProperty budgetAmt;
-	private DoubleProperty actualAmt;
+	private ObjectProperty<Money> budgetAmt;
+	private ObjectProperty<Money> actualAmt;
 	private DecimalFormat format = new DecimalFormat(AMOUNT_FORMAT);
 	
 	/**
@@ -47,8 +46,8 @@ public class Budget implements ValueSettable<Double>{
 	 * @param budgetAmt The budget amount, cannot be negative.
 	 * @param actualAmt The actual amount from the {@link Entry} objects.
 	 */
-	public Budget(int id, Category category, double budgetAmt, double actualAmt) {
-		if (budgetAmt < 0) {
+	public Budget(int id, Category category, Money budgetAmt, Money actualAmt) {
+		if (budgetAmt.isNegative()) {
 			throw new IllegalArgumentException("Budget amount cannot be negative");
 		}
 		if (category == null) {
@@ -60,8 +59,8 @@ public class Budget implements ValueSettable<Double>{
 		this.id = new SimpleIntegerProperty(id);
 		this.category = new SimpleObjectProperty<Category>(category);
 		this.categoryDescription = new SimpleStringProperty(category.getDescription());
-		this.budgetAmt = new SimpleDoubleProperty(budgetAmt);
-		this.actualAmt = new SimpleDoubleProperty(actualAmt);
+		this.budgetAmt = new SimpleObjectProperty<Money>(budgetAmt);
+		this.actualAmt = new SimpleObjectProperty<Money>(actualAmt);
 	}
 	
 	/**
@@ -71,8 +70,8 @@ public class Budget implements ValueSettable<Double>{
 	 * @param category The {@link Category} of this budget.
 	 * @param budgetAmt The budget amount, cannot be negative.
 	 */
-	public Budget(int id, Category category, int budgetAmt) {
-		this(id, category, budgetAmt, 0);
+	public Budget(int id, Category category, Money budgetAmt) {
+		this(id, category, budgetAmt, Money.ZERO);
 	}
 	
 	/**
@@ -81,7 +80,7 @@ public class Budget implements ValueSettable<Double>{
 	 * @param category The Category of this budget.
 	 */
 	public Budget(Category category) {
-		this(0, category, 0, 0);
+		this(0, category, Money.ZERO, Money.ZERO);
 	}
 	
 	/**
@@ -138,33 +137,38 @@ public class Budget implements ValueSettable<Double>{
 		return categoryDescription;
 	}
 	
-	public double getBudgetAmount() {
+	public Money getBudgetAmount() {
 		return budgetAmt.get();
 	}
 	
 	public String getBudgetAmountFormatted() {
-		return format.format(getBudgetAmount());
+		return format.format(getBudgetAmount().toBigDecimal());
 	}
 	
-	public void setBudgetAmount(double amount) {
+	public void setBudgetAmount(Money amount) {
 		budgetAmt.set(amount);
 	}
 	
-	public DoubleProperty budgetAmountProperty() {
+	public ObjectProperty<Money> budgetAmountProperty() {
 		return budgetAmt;
 	}
 	
-	public double getActualAmount() {
+	public Money getActualAmount() {
 		return actualAmt.get();
 	}
 	
-	public void addToActual(double amount) {
-		actualAmt.set(getActualAmount() + amount);
+	public void addToActual(Money amount) {
+		actualAmt.set(getActualAmount().plus(amount));
 	}
 
+	/**
+	 * Set the budget amount from a table cell edit.
+	 * 
+	 * @param value The new budget amount, rounded to the nearest cent.
+	 */
 	@Override
 	public void setValue(Double value) {
-		setBudgetAmount(value);
+		setBudgetAmount(Money.of(BigDecimal.valueOf(value)));
 	}
 	
 	@Override
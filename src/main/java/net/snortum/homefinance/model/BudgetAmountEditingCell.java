@@ -5,7 +5,7 @@ public class BudgetAmountEditingCell extends NumberEditingCell<Budget, Double> {
 	@Override
 	public void commitEdit(Double value) {
 		super.commitEdit(value);
-		((Budget) this.getTableRow().getItem()).setBudgetAmount(value);
+		((Budget) this.getTableRow().getItem()).setValue(value);
 	}
 
 }
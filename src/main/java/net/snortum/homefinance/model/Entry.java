@@ -1,6 +1,5 @@
 package net.snortum.homefinance.model;
 
-import java.math.BigDecimal;
 import java.net.URL;
 import java.time.LocalDate;
 import java.util.Optional;
@@ -18,7 +17,7 @@ import javafx.beans.property.SimpleStringProperty;
  */
 public interface Entry {
 	
-	/** SQL string to create table */
+	/** SQL string that first created the table. Later changes are in DbMigration. */
 	static final String SQL_TO_CREATE =
 			"CREATE TABLE entry ("
 			+ "id          INTEGER PRIMARY KEY AUTOINCREMENT,"
@@ -44,8 +43,8 @@ public interface Entry {
 	SimpleStringProperty descriptionProperty();
 	boolean isRecurring();
 	SimpleBooleanProperty recurringProperty();
-	BigDecimal getAmount();
-	SimpleObjectProperty<BigDecimal> amountProperty();
+	Money getAmount();
+	SimpleObjectProperty<Money> amountProperty();
 	String getComment();
 	SimpleStringProperty commentProperty();
 	Optional<URL> getUrl();
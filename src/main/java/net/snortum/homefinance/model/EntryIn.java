@@ -34,6 +34,7 @@ public class EntryIn extends AbstractEntry {
 		this.url.set(builder.url);
 		this.paid.set(builder.paid);
 		this.date.set(builder.date);
+		this.reconciled.set(builder.reconciled);
 		this.category = builder.category;
 		this.categoryDesc.set(this.category.isPresent() ? this.category.get().getDescription() : "");
 	}
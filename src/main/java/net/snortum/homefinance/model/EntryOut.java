@@ -17,6 +17,7 @@ public class EntryOut extends AbstractEntry {
 	
 	private EntryOut(Builder builder) {
 		this.id = builder.id;
+		this.type = builder.type;
 		this.description.set(builder.description);
 		this.recurring.set(builder.recurring);
 		this.amount.set(builder.amount);
@@ -24,8 +25,9 @@ public class EntryOut extends AbstractEntry {
 		this.url.set(builder.url);
 		this.paid.set(builder.paid);
 		this.date.set(builder.date);
+		this.reconciled.set(builder.reconciled);
 		this.category = builder.category;
-		this.categoryDesc.set(this.category.get().getDescription());
+		this.categoryDesc.set(this.category.isPresent() ? this.category.get().getDescription() : "");
 	}
 
 }
@@ -13,17 +13,42 @@ package net.snortum.homefinance.model;
  * @version 2015-12-16
  */
 public enum EntryType {
-	IN ("in"), 
-	OUT ("out"), 
-	BAL ("balance");
+	IN ("in", 1), 
+	OUT ("out", 2), 
+	BAL ("balance", 3);
+	
+	private static final EntryType[] BY_CODE = new EntryType[4];
+	
+	static {
+		for (EntryType type : values()) {
+			BY_CODE[type.code] = type;
+		}
+	}
 	
 	private String description;
+	private int code;
 	
-	private EntryType(String description) {
+	private EntryType(String description, int code) {
 		this.description = description;
+		this.code = code;
 	}
 	
 	public String getDesc() {
 		return description;
 	}
+	
+	/**
+	 * @return the number that stands for this type in the database
+	 */
+	public int getCode() {
+		return code;
+	}
+	
+	/**
+	 * @param code the number stored in the database for a type
+	 * @return the type with this code, or {@code null} if there is none
+	 */
+	public static EntryType fromCode(int code) {
+		return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+	}
 }
@@ -0,0 +1,123 @@
+package net.snortum.homefinance.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money, held as a whole number of cents. Money is immutable and
+ * exact: adding amounts is adding {@code long}s, so totals do not drift the
+ * way sums of doubles do. This is also how amounts are stored in the database.
+ * <p>
+ * Convert to and from {@link BigDecimal} only at the edges, when parsing or
+ * formatting text.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public final class Money implements Comparable<Money> {
+
+	/** No money at all */
+	public static final Money ZERO = new Money(0);
+
+	private static final int SCALE = 2;
+
+	private final long cents;
+
+	private Money(long cents) {
+		this.cents = cents;
+	}
+
+	/**
+	 * @param cents the amount in cents
+	 * @return the amount of money
+	 */
+	public static Money ofCents(long cents) {
+		return cents == 0 ? ZERO : new Money(cents);
+	}
+
+	/**
+	 * Convert a decimal amount, rounding half up to the nearest cent.
+	 *
+	 * @param amount the amount in dollars (or other currency unit)
+	 * @return the amount of money
+	 * @throws ArithmeticException if the amount is too large to hold in cents
+	 */
+	public static Money of(BigDecimal amount) {
+		return ofCents(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+	}
+
+	/**
+	 * Parse a plain decimal number, such as "1234.5", with no grouping
+	 * separators or currency symbol.
+	 *
+	 * @param text the amount in dollars (or other currency unit)
+	 * @return the amount of money, rounded half up to the nearest cent
+	 * @throws NumberFormatException if the text is not a decimal number
+	 */
+	public static Money parse(String text) {
+		return of(new BigDecimal(text.trim()));
+	}
+
+	/**
+	 * @return the amount in cents
+	 */
+	public long getCents() {
+		return cents;
+	}
+
+	/**
+	 * @param other the amount to add
+	 * @return the sum of the two amounts
+	 * @throws ArithmeticException if the sum overflows
+	 */
+	public Money plus(Money other) {
+		return ofCents(Math.addExact(cents, other.cents));
+	}
+
+	/**
+	 * @param other the amount to subtract
+	 * @return this amount less the other
+	 * @throws ArithmeticException if the difference overflows
+	 */
+	public Money minus(Money other) {
+		return ofCents(Math.subtractExact(cents, other.cents));
+	}
+
+	/**
+	 * @return true if the amount is less than zero
+	 */
+	public boolean isNegative() {
+		return cents < 0;
+	}
+
+	/**
+	 * @return the amount in dollars (or other currency unit), with two decimal
+	 *         places
+	 */
+	public BigDecimal toBigDecimal() {
+		return BigDecimal.valueOf(cents, SCALE);
+	}
+
+	@Override
+	public int compareTo(Money other) {
+		return Long.compare(cents, other.cents);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Money && ((Money) obj).cents == cents;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(cents);
+	}
+
+	/**
+	 * @return the amount as a plain decimal number, such as "1234.50"
+	 */
+	@Override
+	public String toString() {
+		return toBigDecimal().toPlainString();
+	}
+}
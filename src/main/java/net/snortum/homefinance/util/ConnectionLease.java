@@ -0,0 +1,68 @@
+package net.snortum.homefinance.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A {@link Connection} borrowed from a {@link ConnectionSource}. Close the
+ * lease, not the connection, to give it back:
+ * 
+ * <pre>
+ * try (ConnectionLease lease = source.writer()) {
+ *     Connection con = lease.get();
+ *     ...
+ * }
+ * </pre>
+ * 
+ * When a writer lease is given back, anything not committed is rolled back
+ * and auto-commit is turned back on, so the next user gets a clean connection.
+ * 
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public final class ConnectionLease implements AutoCloseable {
+	private static final Logger LOG = LogManager.getLogger();
+	
+	private final Connection connection;
+	private final Runnable release;
+	private boolean closed = false;
+	
+	ConnectionLease(Connection connection, Runnable release) {
+		this.connection = connection;
+		this.release = release;
+	}
+	
+	/**
+	 * @return the borrowed connection. Do not close it.
+	 */
+	public Connection get() {
+		return connection;
+	}
+
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			release.run();
+		}
+	}
+	
+	/**
+	 * Roll back an unfinished transaction and turn auto-commit back on.
+	 * 
+	 * @param con the connection to clean up
+	 */
+	static void endTransaction(Connection con) {
+		try {
+			if (!con.getAutoCommit()) {
+				con.rollback();
+				con.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			LOG.error("Error ending transaction on returned connection", e);
+		}
+	}
+}
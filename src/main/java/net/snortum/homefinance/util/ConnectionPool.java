@@ -0,0 +1,285 @@
+package net.snortum.homefinance.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConfig.JournalMode;
+
+import net.snortum.homefinance.dao.StatementCache;
+
+/**
+ * A small, bounded pool of SQLite connections to one database file. The file
+ * is opened in WAL (write-ahead log) mode, where readers see the last commit
+ * and are never blocked by a writer. So the pool has one writer connection,
+ * used by one thread at a time, and a few read-only connections. Connections
+ * are opened when first needed.
+ * <p>
+ * Each thread keeps the same reader until it gives back its last reader
+ * lease, so nested reads (a read while streaming, for instance) do not take a
+ * second connection from the pool. A lease may be given back from another
+ * thread, as when a stream is closed elsewhere. The writer lease, too, may
+ * be closed on a thread other than the one that took it.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class ConnectionPool implements ConnectionSource {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** How long to wait for a connection to come free */
+	public static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+
+	/** How long SQLite retries a locked database before giving up */
+	public static final int BUSY_TIMEOUT_MILLIS = 5000;
+
+	private final String url;
+	private final int maxReaders;
+	private final Semaphore writerLock = new Semaphore(1, true);
+	private final BlockingQueue<Connection> idleReaders;
+	private final List<Connection> readers = new ArrayList<>();
+	private final ThreadLocal<HeldReader> heldReader = new ThreadLocal<>();
+	private Connection writer;
+	private boolean closed = false;
+
+	/** A reader and how many leases its thread has open on it */
+	private static class HeldReader {
+		final Connection connection;
+		final AtomicInteger leases = new AtomicInteger();
+
+		HeldReader(Connection connection) {
+			this.connection = connection;
+		}
+
+		/** Add a lease, unless the last one has already been given back */
+		boolean lend() {
+			int count;
+			do {
+				count = leases.get();
+				if (count == 0) {
+					return false;
+				}
+			} while (!leases.compareAndSet(count, count + 1));
+			return true;
+		}
+	}
+
+	/**
+	 * Create a pool. No connection is opened until one is asked for.
+	 *
+	 * @param url the JDBC URL of the SQLite database
+	 * @param maxReaders the most read-only connections to open, must be positive
+	 */
+	public ConnectionPool(String url, int maxReaders) {
+		if (maxReaders <= 0) {
+			throw new IllegalArgumentException("There must be at least one reader");
+		}
+		this.url = url;
+		this.maxReaders = maxReaders;
+		this.idleReaders = new ArrayBlockingQueue<>(maxReaders);
+	}
+
+	@Override
+	public ConnectionLease reader() throws SQLException {
+		HeldReader held = heldReader.get();
+
+		// A reader with no leases was given back, maybe from another thread
+		// while this one looked, and must not be lent again
+		if (held == null || !held.lend()) {
+			held = new HeldReader(takeReader());
+			held.leases.set(1);
+			heldReader.set(held);
+		}
+
+		HeldReader lent = held;
+		return new ConnectionLease(lent.connection, () -> releaseReader(lent));
+	}
+
+	@Override
+	public ConnectionLease writer() throws SQLException {
+		try {
+			if (!writerLock.tryAcquire(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				throw new SQLException("Timed out waiting for the writer connection");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted waiting for the writer connection", e);
+		}
+
+		try {
+			Connection con = writerConnection();
+			return new ConnectionLease(con, () -> releaseWriter(con));
+		} catch (SQLException e) {
+			writerLock.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Close all connections. The writer is closed once the thread using it
+	 * gives it back, waiting up to {@value #ACQUIRE_TIMEOUT_SECONDS} seconds;
+	 * if it is not back by then, it is closed when it is. Readers that are lent
+	 * out are closed when they are given back.
+	 */
+	public void close() {
+		List<Connection> toClose = new ArrayList<>();
+		boolean locked = lockWriterToClose();
+
+		try {
+			synchronized (this) {
+				closed = true;
+				if (locked && writer != null) {
+					toClose.add(writer);
+					writer = null;
+				}
+				idleReaders.drainTo(toClose);
+			}
+		} finally {
+			if (locked) {
+				writerLock.release();
+			}
+		}
+
+		toClose.forEach(ConnectionPool::closeQuietly);
+	}
+
+	/**
+	 * @return the number of read-only connections opened so far
+	 */
+	public synchronized int getOpenReaders() {
+		return readers.size();
+	}
+
+	private synchronized Connection writerConnection() throws SQLException {
+		checkNotClosed();
+
+		// The writer is opened first, so the file exists and is in WAL mode
+		// before any read-only connection is opened
+		if (writer == null) {
+			writer = open(false);
+		}
+
+		return writer;
+	}
+
+	private Connection takeReader() throws SQLException {
+		Connection con = idleReaders.poll();
+		if (con != null) {
+			return con;
+		}
+
+		synchronized (this) {
+			checkNotClosed();
+			if (readers.size() < maxReaders) {
+				writerConnection();
+				con = open(true);
+				readers.add(con);
+				return con;
+			}
+		}
+
+		try {
+			con = idleReaders.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted waiting for a reader connection", e);
+		}
+
+		if (con == null) {
+			throw new SQLException("Timed out waiting for a reader connection");
+		}
+
+		return con;
+	}
+
+	private void releaseReader(HeldReader held) {
+		if (held.leases.decrementAndGet() > 0) {
+			return;
+		}
+
+		if (heldReader.get() == held) {
+			heldReader.remove();
+		}
+
+		synchronized (this) {
+			if (!closed) {
+				idleReaders.offer(held.connection);
+				return;
+			}
+		}
+
+		closeQuietly(held.connection);
+	}
+
+	private boolean lockWriterToClose() {
+		try {
+			if (writerLock.tryAcquire(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				return true;
+			}
+			LOG.warn("The writer connection is still in use; it will be closed when it is given back");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOG.warn("Interrupted waiting to close the writer connection; it will be closed when it is given back");
+		}
+		return false;
+	}
+
+	private void releaseWriter(Connection con) {
+		ConnectionLease.endTransaction(con);
+
+		// The pool was closed while this writer was lent out
+		boolean closeWriter;
+		synchronized (this) {
+			closeWriter = closed && writer == con;
+			if (closeWriter) {
+				writer = null;
+			}
+		}
+
+		// A semaphore, not a lock, so the lease may be closed on any thread
+		writerLock.release();
+		if (closeWriter) {
+			closeQuietly(con);
+		}
+	}
+
+	private Connection open(boolean readOnly) throws SQLException {
+		SQLiteConfig config = new SQLiteConfig();
+		config.setBusyTimeout(BUSY_TIMEOUT_MILLIS);
+
+		// WAL mode is stored in the file, so only the writer needs to set it
+		if (readOnly) {
+			config.setReadOnly(true);
+		} else {
+			config.setJournalMode(JournalMode.WAL);
+		}
+
+		LOG.debug("Opening " + (readOnly ? "reader" : "writer") + " connection to " + url);
+		return config.createConnection(url);
+	}
+
+	private void checkNotClosed() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool is closed");
+		}
+	}
+
+	private static void closeQuietly(Connection con) {
+		StatementCache.release(con);
+
+		try {
+			con.close();
+		} catch (SQLException e) {
+			LOG.error("Error closing connection", e);
+		}
+	}
+}
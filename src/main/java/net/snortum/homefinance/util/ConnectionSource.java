@@ -0,0 +1,45 @@
+package net.snortum.homefinance.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Where the DAOs get their connections. Reads and writes ask for different
+ * kinds of connection so that a pool can let reads go ahead while a write is
+ * in progress.
+ * 
+ * @author Knute Snortum
+ * @version 2026-10-18
+ * @see ConnectionPool
+ */
+public interface ConnectionSource {
+	
+	/**
+	 * Borrow a connection for reading. A thread asking again before giving the
+	 * first lease back gets the same connection.
+	 * 
+	 * @return the lease, which must be closed
+	 * @throws SQLException if no connection can be opened or none comes free in time
+	 */
+	ConnectionLease reader() throws SQLException;
+	
+	/**
+	 * Borrow the connection for writing. Only one thread at a time holds it.
+	 * 
+	 * @return the lease, which must be closed
+	 * @throws SQLException if the connection cannot be opened or does not come free in time
+	 */
+	ConnectionLease writer() throws SQLException;
+	
+	/**
+	 * Make a source out of a single connection, used for both reading and
+	 * writing. Sources for the same connection share one lock, so only one
+	 * thread at a time uses it.
+	 * 
+	 * @param con the connection
+	 * @return the source for this connection
+	 */
+	static ConnectionSource of(Connection con) {
+		return SingleConnectionSource.of(con);
+	}
+}
@@ -0,0 +1,428 @@
+package net.snortum.homefinance.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.core.DB;
+
+/**
+ * Copies the database file to a backup while the application keeps using it.
+ * The copy is made with SQLite's online backup API, a few pages at a time, on
+ * a connection of its own and a background thread, so no pooled connection
+ * and never the FX thread waits for it. In WAL mode a step only holds a read
+ * snapshot, which blocks no one; the backup pauses between steps so it does
+ * not take all of the disk. If another connection writes to the database
+ * during the backup, SQLite starts the copy over, so the backup is always of
+ * one committed state.
+ * <p>
+ * The last {@link Builder#copies(int) copies} backups are kept as
+ * {@code finance.db.1} (the newest) to {@code finance.db.N} in the backup
+ * directory. A backup is written to a {@code .writing} file first, so a
+ * backup that fails or is cut short never replaces a good one. The time each
+ * backup takes is logged, and recorded in the {@code db.backup} and
+ * {@code db.backup.step} {@link Metrics} timers.
+ * <p>
+ * The application runs a backup every {@value #DEFAULT_MINUTES} minutes; set
+ * {@code -Dhomefinance.backupMinutes} to change that, or to 0 to turn it off.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class DbBackup {
+	private static final Logger LOG = LogManager.getLogger();
+	private static final Metrics.Timer BACKUP_TIMER = Metrics.timer("db.backup");
+	private static final Metrics.Timer STEP_TIMER = Metrics.timer("db.backup.step");
+
+	/** The system property for the minutes between backups */
+	public static final String MINUTES_PROPERTY = "homefinance.backupMinutes";
+
+	/** The system property for the backup directory */
+	public static final String DIRECTORY_PROPERTY = "homefinance.backupDir";
+
+	/** The system property for the number of backups to keep */
+	public static final String COPIES_PROPERTY = "homefinance.backupCopies";
+
+	/** The minutes between backups */
+	public static final long DEFAULT_MINUTES = 60;
+
+	/** The minutes after start up before the first backup */
+	public static final long FIRST_MINUTES = 1;
+
+	/** Where the backups are kept */
+	public static final String DEFAULT_DIRECTORY = "backups";
+
+	/** How many backups are kept */
+	public static final int DEFAULT_COPIES = 5;
+
+	/** Pages copied in one step; at 4 KB a page, a step takes about a millisecond */
+	public static final int DEFAULT_PAGES_PER_STEP = 64;
+
+	/** How long to pause between steps */
+	public static final long DEFAULT_PAUSE_MILLIS = 2;
+
+	// When a step finds the database locked, SQLite is asked to retry this
+	// often before the backup fails
+	private static final int BUSY_SLEEP_MILLIS = 100;
+	private static final int BUSY_RETRIES = 50;
+
+	private final Path source;
+	private final Path directory;
+	private final int copies;
+	private final int pagesPerStep;
+	private final long pauseMillis;
+
+	// Only one backup at a time writes the .writing file and rotates the
+	// copies. Not the instance lock, so stop() never waits for a backup.
+	private final Object backupLock = new Object();
+	private ScheduledExecutorService scheduler;
+
+	private DbBackup(Builder builder) {
+		source = builder.source;
+		directory = builder.directory;
+		copies = builder.copies;
+		pagesPerStep = builder.pagesPerStep;
+		pauseMillis = builder.pauseMillis;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Build a backup of {@link DbConnection#DB} from the system properties and
+	 * start it, unless {@value #MINUTES_PROPERTY} is 0 or less.
+	 *
+	 * @return the running backup, or {@code null} if it is turned off
+	 */
+	public static DbBackup startIfEnabled() {
+		long minutes = Long.getLong(MINUTES_PROPERTY, DEFAULT_MINUTES);
+		if (minutes <= 0) {
+			return null;
+		}
+
+		DbBackup backup = builder()
+				.directory(Paths.get(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY)))
+				.copies(Integer.getInteger(COPIES_PROPERTY, DEFAULT_COPIES))
+				.build();
+		backup.start(Duration.ofMinutes(Math.min(FIRST_MINUTES, minutes)), Duration.ofMinutes(minutes));
+		return backup;
+	}
+
+	/**
+	 * Run a backup on a background thread after a delay, and then again at
+	 * each interval.
+	 *
+	 * @param delay how long to wait for the first backup
+	 * @param interval the time between the start of one backup and the next
+	 */
+	public synchronized void start(Duration delay, Duration interval) {
+		if (scheduler != null) {
+			throw new IllegalStateException("The backup is already started");
+		}
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "db-backup");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		scheduler.scheduleAtFixedRate(this::scheduledBackup, delay.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+		LOG.info(String.format("Backing up %s to %s every %d minutes", source, directory,
+				interval.toMinutes()));
+	}
+
+	/**
+	 * Stop the scheduled backups. A backup that is running is left to finish
+	 * without its pauses; since it is written to a temporary file, it does no
+	 * harm if the application exits first.
+	 */
+	public synchronized void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	/**
+	 * Back up the database now, on this thread, and rotate the older backups.
+	 * If a backup is already running, this one waits for it to finish.
+	 *
+	 * @return what the backup did, or empty if it failed or there is no
+	 *         database to back up
+	 */
+	public Optional<Result> backup() {
+		synchronized (backupLock) {
+			long start = BACKUP_TIMER.start();
+			try {
+				return copyAndRotate();
+			} finally {
+				BACKUP_TIMER.stop(start);
+			}
+		}
+	}
+
+	// An exception that escapes a scheduled task cancels every later run
+	private void scheduledBackup() {
+		try {
+			backup();
+		} catch (RuntimeException e) {
+			LOG.error("Backup of " + source + " failed", e);
+		}
+	}
+
+	private Optional<Result> copyAndRotate() {
+		if (!Files.exists(source)) {
+			LOG.warn("There is no " + source + " to back up");
+			return Optional.empty();
+		}
+
+		Path writing = directory.resolve(source.getFileName() + ".writing");
+		Progress progress = new Progress();
+		long begin = System.nanoTime();
+
+		try {
+			Files.createDirectories(directory);
+			Files.deleteIfExists(writing);
+		} catch (IOException e) {
+			LOG.error("Could not prepare the backup directory " + directory, e);
+			return Optional.empty();
+		}
+
+		SQLiteConfig config = new SQLiteConfig();
+		config.setBusyTimeout(ConnectionPool.BUSY_TIMEOUT_MILLIS);
+		try (Connection con = config.createConnection("jdbc:sqlite:" + source)) {
+			DB db = con.unwrap(SQLiteConnection.class).getDatabase();
+			progress.lastStep = System.nanoTime();
+			int rc = db.backup("main", writing.toString(), progress, BUSY_SLEEP_MILLIS, BUSY_RETRIES,
+					pagesPerStep);
+			if (rc != SQLiteErrorCode.SQLITE_OK.code) {
+				LOG.error("Backup of " + source + " failed: " + SQLiteErrorCode.getErrorCode(rc));
+				return Optional.empty();
+			}
+		} catch (SQLException e) {
+			LOG.error("Backup of " + source + " failed", e);
+			return Optional.empty();
+		}
+
+		Path newest = copy(1);
+		try {
+			rotate();
+			Files.move(writing, newest, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOG.error("Could not rotate the backups in " + directory, e);
+			return Optional.empty();
+		}
+
+		Result result = new Result(newest, progress.pages, progress.steps, progress.maxStepNanos,
+				System.nanoTime() - begin);
+		LOG.info(result);
+		return Optional.of(result);
+	}
+
+	/**
+	 * @param number 1 for the newest backup, up to the number of copies
+	 * @return the backup file with that number
+	 */
+	public Path copy(int number) {
+		return directory.resolve(source.getFileName() + "." + number);
+	}
+
+	// Drop the oldest backup and move each of the others one number up
+	private void rotate() throws IOException {
+		Files.deleteIfExists(copy(copies));
+		for (int i = copies - 1; i >= 1; i--) {
+			if (Files.exists(copy(i))) {
+				Files.move(copy(i), copy(i + 1), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	// Called by SQLite on the backup thread after each step. The time between
+	// calls, less the pause, is how long the step held the database.
+	private class Progress implements DB.ProgressObserver {
+		long lastStep;
+		long maxStepNanos;
+		int steps;
+		int pages;
+
+		@Override
+		public void progress(int remaining, int pageCount) {
+			long stepNanos = System.nanoTime() - lastStep;
+			STEP_TIMER.getHistogram().record(stepNanos);
+			maxStepNanos = Math.max(maxStepNanos, stepNanos);
+			steps++;
+			pages = pageCount;
+
+			if (remaining > 0 && pauseMillis > 0 && !Thread.currentThread().isInterrupted()) {
+				try {
+					Thread.sleep(pauseMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			lastStep = System.nanoTime();
+		}
+	}
+
+	/**
+	 * What one backup copied, and how long it took.
+	 */
+	public static class Result {
+		private final Path file;
+		private final int pages;
+		private final int steps;
+		private final long maxStepNanos;
+		private final long nanos;
+
+		/**
+		 * @param file the backup file
+		 * @param pages the pages in the database
+		 * @param steps the steps taken, more than the pages need if SQLite
+		 *            had to start over
+		 * @param maxStepNanos how long the longest step took
+		 * @param nanos how long the whole backup took, with the pauses
+		 */
+		public Result(Path file, int pages, int steps, long maxStepNanos, long nanos) {
+			this.file = file;
+			this.pages = pages;
+			this.steps = steps;
+			this.maxStepNanos = maxStepNanos;
+			this.nanos = nanos;
+		}
+
+		public Path getFile() {
+			return file;
+		}
+
+		public int getPages() {
+			return pages;
+		}
+
+		public int getSteps() {
+			return steps;
+		}
+
+		public double getMaxStepMillis() {
+			return maxStepNanos / 1_000_000.0;
+		}
+
+		public long getMillis() {
+			return nanos / 1_000_000;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Backed up %,d pages to %s in %,d ms (%,d steps, longest %.1f ms)",
+					pages, file, getMillis(), steps, getMaxStepMillis());
+		}
+	}
+
+	/**
+	 * Builds a {@link DbBackup}. Every setting has a default.
+	 */
+	public static class Builder {
+		private Path source = Paths.get(DbConnection.DB);
+		private Path directory = Paths.get(DEFAULT_DIRECTORY);
+		private int copies = DEFAULT_COPIES;
+		private int pagesPerStep = DEFAULT_PAGES_PER_STEP;
+		private long pauseMillis = DEFAULT_PAUSE_MILLIS;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param source the database file to back up; {@link DbConnection#DB}
+		 *            by default
+		 * @return this builder
+		 */
+		public Builder source(Path source) {
+			this.source = source;
+			return this;
+		}
+
+		/**
+		 * @param directory where to keep the backups; {@value DbBackup#DEFAULT_DIRECTORY}
+		 *            by default
+		 * @return this builder
+		 */
+		public Builder directory(Path directory) {
+			this.directory = directory;
+			return this;
+		}
+
+		/**
+		 * @param copies how many backups to keep, at least one
+		 * @return this builder
+		 */
+		public Builder copies(int copies) {
+			if (copies < 1) {
+				throw new IllegalArgumentException("At least one backup must be kept");
+			}
+			this.copies = copies;
+			return this;
+		}
+
+		/**
+		 * @param pagesPerStep the pages to copy in one step, or -1 for all of
+		 *            them in one
+		 * @return this builder
+		 */
+		public Builder pagesPerStep(int pagesPerStep) {
+			if (pagesPerStep == 0 || pagesPerStep < -1) {
+				throw new IllegalArgumentException("Pages per step must be positive or -1");
+			}
+			this.pagesPerStep = pagesPerStep;
+			return this;
+		}
+
+		/**
+		 * @param pauseMillis how long to pause between steps, 0 for no pause
+		 * @return this builder
+		 */
+		public Builder pauseMillis(long pauseMillis) {
+			if (pauseMillis < 0) {
+				throw new IllegalArgumentException("The pause cannot be negative");
+			}
+			this.pauseMillis = pauseMillis;
+			return this;
+		}
+
+		public DbBackup build() {
+			return new DbBackup(this);
+		}
+	}
+
+	/**
+	 * Back up {@link DbConnection#DB} once, as the scheduled backup would.
+	 *
+	 * @param args the backup directory, optional
+	 */
+	public static void main(String[] args) {
+		Builder builder = builder()
+				.copies(Integer.getInteger(COPIES_PROPERTY, DEFAULT_COPIES));
+		if (args.length > 0) {
+			builder.directory(Paths.get(args[0]));
+		}
+
+		if (!builder.build().backup().isPresent()) {
+			System.exit(1);
+		}
+	}
+}
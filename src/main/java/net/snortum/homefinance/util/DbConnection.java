@@ -1,43 +1,46 @@
 package net.snortum.homefinance.util;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
-import java.util.Optional;
-
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
 /**
- * Get a connection to the SQLite database file
- * 
+ * Get connections to the SQLite database file. Connections come from a
+ * {@link ConnectionPool} with one writer and {@value #READERS} readers, so
+ * background reads can run while the UI thread writes.
+ *
  * @author Knute Snortum
- * @version 2015-12-09
+ * @version 2026-10-18
  */
 public class DbConnection {
-	private static final Logger LOG = LogManager.getLogger();
-	
+
 	/** SQLite database file name */
 	public static final String DB = "finance.db";
-	private static Connection con;
-	
+
+	/** The most read-only connections open at once */
+	public static final int READERS = 4;
+
+	private static ConnectionPool pool;
+
 	/**
-	 * Get a JDBC connection with the SQLite database.  Error log will
-	 * contain error if connection cannot be made.
-	 *  
-	 * @return Optional containing connection if connected without error,
-	 *         otherwise, Optional empty.
+	 * Get the connection source for the SQLite database. Connections are
+	 * opened when they are first borrowed, so an error opening the database
+	 * shows up as an SQLException then.
+	 *
+	 * @return the pooled connection source
 	 */
-	public static Optional<Connection> getConnection() {
-		if (con == null) {
-    		try {
-    			con = DriverManager.getConnection("jdbc:sqlite:" + DB);
-    		} catch (SQLException e) {
-    			LOG.error("Could not connect with " + DB, e);
-    			return Optional.empty();
-    		}
+	public static synchronized ConnectionSource getSource() {
+		if (pool == null) {
+			pool = new ConnectionPool("jdbc:sqlite:" + DB, READERS);
 		}
 
-		return Optional.of(con);
+		return pool;
+	}
+
+	/**
+	 * Close all pooled connections. A later call to {@link #getSource()}
+	 * starts a new pool.
+	 */
+	public static synchronized void close() {
+		if (pool != null) {
+			pool.close();
+			pool = null;
+		}
 	}
 }
@@ -0,0 +1,175 @@
+package net.snortum.homefinance.util;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The threads that database work runs on, so that the JavaFX application
+ * thread never waits on SQLite. There is one thread for each connection in
+ * the default pool: more would only wait for a connection.
+ * <p>
+ * On a JDK with virtual threads, {@code -Dhomefinance.dbExecutor=virtual}
+ * runs each task on its own virtual thread instead. At most {@link #THREADS}
+ * of them work at once, the rest wait for a permit, so many queued DAO calls
+ * cost no platform threads and still do not pile up on the connections. On an
+ * older JDK the fixed pool is used.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class DbExecutor {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** The number of database threads */
+	public static final int THREADS = DbConnection.READERS + 1;
+
+	/** The system property that chooses the kind of threads */
+	public static final String MODE_PROPERTY = "homefinance.dbExecutor";
+
+	/** The {@value #MODE_PROPERTY} value for virtual threads */
+	public static final String VIRTUAL = "virtual";
+
+	private static final long SHUTDOWN_WAIT_SECONDS = 10;
+
+	private static ExecutorService executor;
+
+	private DbExecutor() {
+	}
+
+	/**
+	 * @return the executor for database work, started when first asked for
+	 */
+	public static synchronized ExecutorService get() {
+		if (executor == null) {
+			executor = VIRTUAL.equals(System.getProperty(MODE_PROPERTY))
+					? newVirtualExecutor()
+					: newPlatformExecutor();
+		}
+
+		return executor;
+	}
+
+	/**
+	 * @return a fixed pool of {@link #THREADS} platform threads
+	 */
+	public static ExecutorService newPlatformExecutor() {
+		return Executors.newFixedThreadPool(THREADS, new DbThreadFactory());
+	}
+
+	/**
+	 * @return a virtual thread for each task, with at most {@link #THREADS}
+	 *         running at once, or a fixed pool if this JDK has no virtual
+	 *         threads
+	 */
+	public static ExecutorService newVirtualExecutor() {
+		// Found by reflection, so this still builds and runs on Java 11
+		try {
+			ExecutorService virtual = (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+			return new BoundedExecutor(virtual, THREADS);
+		} catch (ReflectiveOperationException e) {
+			LOG.warn("Virtual threads are not available, using platform threads");
+			return newPlatformExecutor();
+		}
+	}
+
+	/**
+	 * @return true if the current executor runs tasks on virtual threads
+	 */
+	public static synchronized boolean isVirtual() {
+		return executor instanceof BoundedExecutor;
+	}
+
+	/**
+	 * Let queued work finish, then stop the threads. A later call to
+	 * {@link #get()} starts new ones.
+	 */
+	public static synchronized void shutdown() {
+		if (executor == null) {
+			return;
+		}
+
+		executor.shutdown();
+
+		try {
+			if (!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+				LOG.warn("Database work still running after " + SHUTDOWN_WAIT_SECONDS + " seconds");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		executor = null;
+	}
+
+	// Runs every task at once on the delegate, but lets only so many past the
+	// semaphore. Waiting on a virtual thread does not hold a platform thread.
+	private static class BoundedExecutor extends AbstractExecutorService {
+		private final ExecutorService delegate;
+		private final Semaphore permits;
+
+		BoundedExecutor(ExecutorService delegate, int limit) {
+			this.delegate = delegate;
+			permits = new Semaphore(limit, true);
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			delegate.execute(() -> {
+				permits.acquireUninterruptibly();
+				try {
+					task.run();
+				} finally {
+					permits.release();
+				}
+			});
+		}
+
+		@Override
+		public void shutdown() {
+			delegate.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return delegate.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return delegate.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return delegate.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return delegate.awaitTermination(timeout, unit);
+		}
+	}
+
+	// Daemon threads, so a forgotten task cannot keep the program running
+	private static class DbThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "db-worker-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
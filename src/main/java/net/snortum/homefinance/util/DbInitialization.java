@@ -1,13 +1,11 @@
 package net.snortum.homefinance.util;
 
-import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -19,6 +17,7 @@ import net.snortum.homefinance.model.Budget;
 import net.snortum.homefinance.model.Category;
 import net.snortum.homefinance.model.Entry;
 import net.snortum.homefinance.model.EntryIn;
+import net.snortum.homefinance.model.Money;
 
 /**
  * Initialize a database for its first use and add some suggested categories.
@@ -35,12 +34,12 @@ public class DbInitialization {
 	 * @return true if database and tables were created, otherwise false.
 	 */
 	public static boolean createTables() {
-		Optional<Connection> result = DbConnection.getConnection();
-		if ( ! result.isPresent() ) {
+		try (ConnectionLease lease = DbConnection.getSource().writer()) {
+			return executeSqlStatements(lease.get());
+		} catch (SQLException e) {
+			LOG.error("Could not connect with " + DbConnection.DB, e);
 			return false;
 		}
-		Connection con = result.get();
-		return executeSqlStatements(con);
 	}
 	
 	/**
@@ -60,62 +59,47 @@ public class DbInitialization {
 				"Medical",
 				"Entertainment");
 		
-		for (String description : descriptions) {
-			Optional<Category> category = categoyDao.create(new Category(description));
-			
-			if (category.isPresent()) {
-				budgetDao.create(new Budget(category.get()));
-			} else {
-				LOG.warn("Could not create category \"" + description +"\"");
-			}
+		List<Category> categories = categoyDao.createAll(descriptions.stream()
+				.map(Category::new)
+				.collect(Collectors.toList()));
+		
+		if (categories.isEmpty()) {
+			LOG.warn("Could not create categories " + descriptions);
+			return;
 		}
+		
+		budgetDao.createAll(categories.stream()
+				.map(Budget::new)
+				.collect(Collectors.toList()));
 	}
 	
 	/**
-	 * Create tables using a passed-in database connection.
+	 * Create tables using a passed-in database connection. Tables and indexes
+	 * are created by the schema migrations.
 	 * 
 	 * @param con The database connection.
 	 * @return true if tables were created, otherwise false.
+	 * @see DbMigration
 	 */
 	public static boolean executeSqlStatements(Connection con) {
-		try {
-			con.setAutoCommit(false);
-			Statement stmnt = con.createStatement();
-    		stmnt.executeUpdate(Category.SQL_TO_CREATE);
-    		stmnt.executeUpdate(Budget.SQL_TO_CREATE);
-    		stmnt.executeUpdate(Entry.SQL_TO_CREATE);
-    		con.commit();
-		} catch (SQLException e) {
-			LOG.error("Error creating tables", e);
-			
-			try {
-				con.rollback();
-			} catch (SQLException e1) {
-				LOG.error("Error trying to rollback", e1);
-			}
-			
-			return false;
-		}
-		
-		return true;
+		return DbMigration.migrate(con);
 	}
 	
 	public static void addDepositsForTesting() {
 		EntryInDao dao = new EntryInDao();
-		Entry deposit = new EntryIn.Builder()
-				.date(LocalDate.of(2016, 8, 1))
-				.amount(BigDecimal.valueOf(2134.67))
-				.build();
-		dao.create(deposit);
-		deposit = new EntryIn.Builder()
-				.date(LocalDate.of(2016, 8, 15))
-				.amount(BigDecimal.valueOf(2145.83))
-				.build();
-		dao.create(deposit);
-		deposit = new EntryIn.Builder()
-				.date(LocalDate.of(2016, 9, 1))
-				.amount(BigDecimal.valueOf(2135.09))
-				.build();
-		dao.create(deposit);
+		List<Entry> deposits = Arrays.asList(
+				new EntryIn.Builder()
+						.date(LocalDate.of(2016, 8, 1))
+						.amount(Money.ofCents(213467))
+						.build(),
+				new EntryIn.Builder()
+						.date(LocalDate.of(2016, 8, 15))
+						.amount(Money.ofCents(214583))
+						.build(),
+				new EntryIn.Builder()
+						.date(LocalDate.of(2016, 9, 1))
+						.amount(Money.ofCents(213509))
+						.build());
+		dao.createAll(deposits);
 	}
 }
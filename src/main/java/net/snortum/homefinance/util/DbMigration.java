@@ -0,0 +1,274 @@
+package net.snortum.homefinance.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.snortum.homefinance.model.Budget;
+import net.snortum.homefinance.model.Category;
+import net.snortum.homefinance.model.Entry;
+
+/**
+ * Bring a database up to the latest schema. The schema version is kept in
+ * SQLite's {@code user_version} pragma. Each {@link Migration} runs in its own
+ * transaction along with the update to {@code user_version}, so a failed
+ * migration leaves the database at the version before it.
+ * <p>
+ * To change the schema, add a new migration to the end of {@link #MIGRATIONS}.
+ * Never change a migration that has been released.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class DbMigration {
+	private static final Logger LOG = LogManager.getLogger();
+
+	private static final String GET_VERSION_SQL = "PRAGMA user_version";
+	private static final String SET_VERSION_SQL = "PRAGMA user_version = ";
+	private static final String TABLE_EXISTS_SQL =
+			"SELECT count(*) "
+			+ "FROM sqlite_master "
+			+ "WHERE type = 'table' AND name = 'entry'";
+
+	// SQLite cannot change a column's type, so tables are rebuilt: create the 
+	// new table, copy the rows, carry over the AUTOINCREMENT counter, drop the 
+	// old table and rename the new one
+	private static final String CLEAR_SEQUENCE_SQL =
+			"DELETE FROM sqlite_sequence "
+			+ "WHERE name = '%2$s'";
+	private static final String COPY_SEQUENCE_SQL =
+			"INSERT INTO sqlite_sequence (name, seq) "
+			+ "SELECT '%2$s', seq FROM sqlite_sequence WHERE name = '%1$s'";
+
+	/** A numbered set of statements that move the schema up one version */
+	private static class Migration {
+		final int version;
+		final String description;
+		final List<String> statements;
+
+		Migration(int version, String description, String... statements) {
+			this.version = version;
+			this.description = description;
+			this.statements = Arrays.asList(statements);
+		}
+	}
+
+	private static final List<Migration> MIGRATIONS = Arrays.asList(
+			new Migration(1, "Create tables",
+					Category.SQL_TO_CREATE,
+					Budget.SQL_TO_CREATE,
+					Entry.SQL_TO_CREATE),
+			new Migration(2, "Index entries by type and date",
+					"CREATE INDEX entry_type_date ON entry (type, date)"),
+			new Migration(3, "Index entries and budgets by category",
+					"CREATE INDEX entry_category ON entry (category_id)",
+					"CREATE INDEX budget_category ON budget (category_id)"),
+			new Migration(4, "Cover budget actuals with the entry category index",
+					"DROP INDEX entry_category",
+					"CREATE INDEX entry_category ON entry (category_id, type, date, amount)"),
+			new Migration(5, "Store amounts as whole cents",
+					"CREATE TABLE entry_cents ("
+					+ "id          INTEGER PRIMARY KEY AUTOINCREMENT,"
+					+ "description TEXT,"
+					+ "type        TEXT    CHECK(type = 'in' OR type = 'out' OR type = 'balance'),"
+					+ "recurring   BOOLEAN,"
+					+ "amount      INTEGER CHECK(amount >= 0),"
+					+ "comment     TEXT,"
+					+ "url         TEXT,"
+					+ "paid        BOOLEAN,"
+					+ "date        DATE,"
+					+ "reconciled  BOOLEAN,"
+					+ "category_id INTEGER NOT NULL,"
+					+ "FOREIGN KEY (category_id) REFERENCES category(id)"
+					+ ")",
+					"INSERT INTO entry_cents "
+					+ "SELECT id, description, type, recurring, CAST(ROUND(amount * 100) AS INTEGER), "
+					+ "comment, url, paid, date, reconciled, category_id "
+					+ "FROM entry",
+					String.format(CLEAR_SEQUENCE_SQL, "entry", "entry_cents"),
+					String.format(COPY_SEQUENCE_SQL, "entry", "entry_cents"),
+					"DROP TABLE entry",
+					"ALTER TABLE entry_cents RENAME TO entry",
+					"CREATE INDEX entry_type_date ON entry (type, date)",
+					"CREATE INDEX entry_category ON entry (category_id, type, date, amount)",
+					"CREATE TABLE budget_cents ("
+					+ "id          INTEGER PRIMARY KEY AUTOINCREMENT, "
+					+ "category_id INTEGER NOT NULL,"
+					+ "budget_amt  INTEGER CHECK(budget_amt >= 0),"
+					+ "actual_amt  INTEGER,"
+					+ "FOREIGN KEY (category_id) REFERENCES category(id)"
+					+ ")",
+					"INSERT INTO budget_cents "
+					+ "SELECT id, category_id, CAST(ROUND(budget_amt * 100) AS INTEGER), "
+					+ "CAST(ROUND(actual_amt * 100) AS INTEGER) "
+					+ "FROM budget",
+					String.format(CLEAR_SEQUENCE_SQL, "budget", "budget_cents"),
+					String.format(COPY_SEQUENCE_SQL, "budget", "budget_cents"),
+					"DROP TABLE budget",
+					"ALTER TABLE budget_cents RENAME TO budget",
+					"CREATE INDEX budget_category ON budget (category_id)"),
+			new Migration(6, "Compact entry rows: epoch-day dates, type codes and flag bits",
+					"CREATE TABLE entry_v2 ("
+					+ "id          INTEGER PRIMARY KEY AUTOINCREMENT,"
+					+ "description TEXT,"
+					+ "type        INTEGER NOT NULL CHECK(type IN (1, 2, 3)),"
+					+ "flags       INTEGER NOT NULL DEFAULT 0,"
+					+ "amount      INTEGER CHECK(amount >= 0),"
+					+ "comment     TEXT,"
+					+ "url         TEXT,"
+					+ "date        INTEGER,"
+					+ "category_id INTEGER NOT NULL,"
+					+ "FOREIGN KEY (category_id) REFERENCES category(id)"
+					+ ")",
+					
+					// Dates were stored as milliseconds at local midnight 
+					"INSERT INTO entry_v2 "
+					+ "SELECT id, description, "
+					+ "CASE type WHEN 'in' THEN 1 WHEN 'out' THEN 2 WHEN 'balance' THEN 3 END, "
+					+ "(CASE WHEN recurring THEN 1 ELSE 0 END) "
+					+ "| (CASE WHEN paid THEN 2 ELSE 0 END) "
+					+ "| (CASE WHEN reconciled THEN 4 ELSE 0 END), "
+					+ "amount, comment, url, "
+					+ "CAST(julianday(CASE typeof(date) "
+					+ "WHEN 'integer' THEN date(date / 1000, 'unixepoch', 'localtime') "
+					+ "ELSE date END) - 2440587.5 AS INTEGER), "
+					+ "category_id "
+					+ "FROM entry",
+					String.format(CLEAR_SEQUENCE_SQL, "entry", "entry_v2"),
+					String.format(COPY_SEQUENCE_SQL, "entry", "entry_v2"),
+					"DROP TABLE entry",
+					"ALTER TABLE entry_v2 RENAME TO entry",
+					"CREATE INDEX entry_type_date ON entry (type, date)",
+					"CREATE INDEX entry_category ON entry (category_id, type, date, amount)"),
+			new Migration(7, "Count the transactions that write entries",
+					"CREATE TABLE entry_generation ("
+					+ "id         INTEGER PRIMARY KEY CHECK(id = 1),"
+					+ "generation INTEGER NOT NULL"
+					+ ")",
+					"INSERT INTO entry_generation (id, generation) VALUES (1, 0)"));
+
+	/** The schema version that {@link #migrate(Connection)} brings a database to */
+	public static final int LATEST_VERSION = MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+
+	private DbMigration() {
+	}
+
+	/**
+	 * Migrate the default database.
+	 *
+	 * @return true if the database is at the latest version, otherwise false
+	 * @see DbConnection
+	 */
+	public static boolean migrate() {
+		try (ConnectionLease lease = DbConnection.getSource().writer()) {
+			return migrate(lease.get());
+		} catch (SQLException e) {
+			LOG.error("Could not connect with " + DbConnection.DB, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Run every migration the database has not had yet, in order.
+	 *
+	 * @param con the connection to migrate. It must be able to write.
+	 * @return true if the database is at the latest version, otherwise false
+	 */
+	public static boolean migrate(Connection con) {
+		int version;
+
+		try {
+			version = getVersion(con);
+
+			// Files made before versions were kept already have the tables
+			if (version == 0 && tablesExist(con)) {
+				LOG.info("Existing database has no schema version, starting at 1");
+				version = 1;
+				setVersion(con, version);
+			}
+		} catch (SQLException e) {
+			LOG.error("Error reading the schema version", e);
+			return false;
+		}
+
+		if (version > LATEST_VERSION) {
+			LOG.error("Database schema version " + version
+					+ " is newer than this program, which knows up to " + LATEST_VERSION);
+			return false;
+		}
+
+		for (Migration migration : MIGRATIONS) {
+			if (migration.version > version && !run(con, migration)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param con the connection to the database
+	 * @return the schema version of the database, 0 if it has never been migrated
+	 * @throws SQLException if the version cannot be read
+	 */
+	public static int getVersion(Connection con) throws SQLException {
+		try (Statement stmnt = con.createStatement();
+				ResultSet rs = stmnt.executeQuery(GET_VERSION_SQL)) {
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+	private static boolean run(Connection con, Migration migration) {
+		LOG.info("Migrating database to version " + migration.version + ": " + migration.description);
+
+		try {
+			con.setAutoCommit(false);
+
+			try (Statement stmnt = con.createStatement()) {
+				for (String sql : migration.statements) {
+					stmnt.executeUpdate(sql);
+				}
+				stmnt.executeUpdate(SET_VERSION_SQL + migration.version);
+			}
+
+			con.commit();
+		} catch (SQLException e) {
+			LOG.error("Error migrating database to version " + migration.version, e);
+
+			try {
+				con.rollback();
+			} catch (SQLException e1) {
+				LOG.error("Error trying to rollback", e1);
+			}
+
+			return false;
+		} finally {
+			try {
+				con.setAutoCommit(true);
+			} catch (SQLException e) {
+				LOG.error("Error turning auto-commit back on", e);
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean tablesExist(Connection con) throws SQLException {
+		try (Statement stmnt = con.createStatement();
+				ResultSet rs = stmnt.executeQuery(TABLE_EXISTS_SQL)) {
+			return rs.next() && rs.getInt(1) > 0;
+		}
+	}
+
+	private static void setVersion(Connection con, int version) throws SQLException {
+		try (Statement stmnt = con.createStatement()) {
+			stmnt.executeUpdate(SET_VERSION_SQL + version);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package net.snortum.homefinance.util;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javafx.application.Platform;
+
+/**
+ * Measures how long the JavaFX application thread is kept busy. A probe is
+ * posted with {@link Platform#runLater(Runnable)} every
+ * {@value #PROBE_MILLIS} ms, and the time it waits to run is how long the
+ * thread was stalled. Waits over {@value #STALL_MILLIS} ms are logged and
+ * counted as stalls.
+ * <p>
+ * Turn it on with {@code -Dhomefinance.stallMonitor=true}. The totals are
+ * logged when the monitor is stopped.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class FxStallMonitor {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** The system property that turns the monitor on */
+	public static final String ENABLE_PROPERTY = "homefinance.stallMonitor";
+
+	/** How often to probe the FX thread */
+	public static final long PROBE_MILLIS = 50;
+
+	/** The shortest wait counted as a stall */
+	public static final long STALL_MILLIS = 100;
+
+	private final ScheduledExecutorService scheduler;
+	private final AtomicBoolean probing = new AtomicBoolean();
+	private long probes = 0;
+	private long stalls = 0;
+	private long stalledNanos = 0;
+	private long maxNanos = 0;
+
+	private FxStallMonitor() {
+		scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "fx-stall-monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Start a monitor if the {@value #ENABLE_PROPERTY} system property is true.
+	 *
+	 * @return the running monitor, or {@code null} if it is turned off
+	 */
+	public static FxStallMonitor startIfEnabled() {
+		if (!Boolean.getBoolean(ENABLE_PROPERTY)) {
+			return null;
+		}
+
+		FxStallMonitor monitor = new FxStallMonitor();
+		monitor.scheduler.scheduleAtFixedRate(monitor::probe, PROBE_MILLIS, PROBE_MILLIS,
+				TimeUnit.MILLISECONDS);
+		LOG.info("FX stall monitor started");
+		return monitor;
+	}
+
+	/**
+	 * Stop probing and log the totals.
+	 */
+	public void stop() {
+		scheduler.shutdownNow();
+		LOG.info(this);
+	}
+
+	/**
+	 * @return the number of waits over {@value #STALL_MILLIS} ms
+	 */
+	public synchronized long getStalls() {
+		return stalls;
+	}
+
+	/**
+	 * @return the total time of all stalls, in milliseconds
+	 */
+	public synchronized long getStalledMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(stalledNanos);
+	}
+
+	/**
+	 * @return the longest wait, in milliseconds
+	 */
+	public synchronized long getMaxMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("FX stall monitor: %d probes, %d stalls, %d ms stalled, longest %d ms",
+				probes, stalls, getStalledMillis(), getMaxMillis());
+	}
+
+	// Only one probe at a time, so a long stall is measured once, not once
+	// for every probe queued up behind it
+	private void probe() {
+		if (!probing.compareAndSet(false, true)) {
+			return;
+		}
+
+		long posted = System.nanoTime();
+		Platform.runLater(() -> {
+			record(System.nanoTime() - posted);
+			probing.set(false);
+		});
+	}
+
+	private synchronized void record(long waitNanos) {
+		probes++;
+		maxNanos = Math.max(maxNanos, waitNanos);
+
+		if (waitNanos >= TimeUnit.MILLISECONDS.toNanos(STALL_MILLIS)) {
+			stalls++;
+			stalledNanos += waitNanos;
+			LOG.warn("FX thread stalled for " + TimeUnit.NANOSECONDS.toMillis(waitNanos) + " ms");
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package net.snortum.homefinance.util;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import net.snortum.homefinance.dao.RowMappingEvent;
+import net.snortum.homefinance.dao.SqlEvent;
+
+/**
+ * Print the SQL statements in a Java Flight Recorder file, from the most to
+ * the least total time, with the time spent mapping their rows. To take a
+ * recording of the application:
+ *
+ * <pre>
+ * java -XX:StartFlightRecording=filename=homefinance.jfr ...
+ * </pre>
+ *
+ * and to read it:
+ *
+ * <pre>
+ * java -cp ... net.snortum.homefinance.util.JfrReport homefinance.jfr [top]
+ * </pre>
+ *
+ * Times are in milliseconds.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class JfrReport {
+
+	/** The number of statements printed when none is given */
+	public static final int DEFAULT_TOP = 20;
+
+	private final Map<String, Statement> statements = new HashMap<>();
+
+	/**
+	 * @param args the recording file, then optionally the number of
+	 *            statements to print
+	 * @throws IOException if the recording cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: JfrReport <recording.jfr> [top]");
+			System.exit(1);
+		}
+
+		int top = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TOP;
+		JfrReport report = new JfrReport();
+		report.read(Paths.get(args[0]));
+		report.print(System.out, top);
+	}
+
+	/**
+	 * Add the SQL and row mapping events in a recording to this report.
+	 *
+	 * @param recording the .jfr file
+	 * @throws IOException if the recording cannot be read
+	 */
+	public void read(Path recording) throws IOException {
+		try (RecordingFile file = new RecordingFile(recording)) {
+			while (file.hasMoreEvents()) {
+				add(file.readEvent());
+			}
+		}
+	}
+
+	/**
+	 * @param out where to print
+	 * @param top the number of statements to print
+	 */
+	public void print(PrintStream out, int top) {
+		List<Statement> sorted = new ArrayList<>(statements.values());
+		sorted.sort(Comparator.comparingLong((Statement s) -> s.totalNanos).reversed());
+
+		out.printf("%8s %10s %9s %9s %10s %9s %9s %9s  %s%n", "count", "total", "mean", "max",
+				"rows", "bind", "execute", "mapping", "sql");
+
+		for (Statement s : sorted.subList(0, Math.min(top, sorted.size()))) {
+			long meanNanos = s.count == 0 ? 0 : s.totalNanos / s.count;
+			out.printf("%8d %10.1f %9.3f %9.3f %10d %9.1f %9.1f %9.1f  %s%n", s.count,
+					millis(s.totalNanos), millis(meanNanos), millis(s.maxNanos), s.rows,
+					millis(s.bindNanos), millis(s.executeNanos), millis(s.mappingNanos),
+					oneLine(s.sql));
+		}
+
+		long mappedRows = statements.values().stream().mapToLong(s -> s.mappedRows).sum();
+		long mappingNanos = statements.values().stream().mapToLong(s -> s.mappingNanos).sum();
+		out.printf("%nRow mapping: %d rows in %.1f ms", mappedRows, millis(mappingNanos));
+		if (mappedRows > 0) {
+			out.printf(", %.3f us per row", mappingNanos / 1_000.0 / mappedRows);
+		}
+		out.println();
+	}
+
+	private void add(RecordedEvent event) {
+		String name = event.getEventType().getName();
+
+		if (SqlEvent.NAME.equals(name)) {
+			Statement s = statement(event.getString("sql"));
+			long nanos = event.getDuration().toNanos();
+			s.count++;
+			s.totalNanos += nanos;
+			s.maxNanos = Math.max(s.maxNanos, nanos);
+			s.bindNanos += event.getDuration("bindTime").toNanos();
+			s.executeNanos += event.getDuration("executeTime").toNanos();
+			s.rows += event.getLong("rows");
+		} else if (RowMappingEvent.NAME.equals(name)) {
+			Statement s = statement(event.getString("sql"));
+			s.mappedRows += event.getLong("rows");
+			s.mappingNanos += event.getDuration("mappingTime").toNanos();
+		}
+	}
+
+	private Statement statement(String sql) {
+		return statements.computeIfAbsent(sql, Statement::new);
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+	private static String oneLine(String sql) {
+		return sql == null ? "" : sql.replaceAll("\\s+", " ").trim();
+	}
+
+	// The totals for one SQL constant
+	private static class Statement {
+		private final String sql;
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+		private long bindNanos;
+		private long executeNanos;
+		private long rows;
+		private long mappedRows;
+		private long mappingNanos;
+
+		private Statement(String sql) {
+			this.sql = sql;
+		}
+	}
+}
@@ -0,0 +1,416 @@
+package net.snortum.homefinance.util;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.snortum.homefinance.dao.BudgetDao;
+import net.snortum.homefinance.dao.CategoryDao;
+import net.snortum.homefinance.dao.EntryBalanceDao;
+import net.snortum.homefinance.dao.EntryInDao;
+import net.snortum.homefinance.dao.EntryOutDao;
+import net.snortum.homefinance.dao.GenericDao;
+import net.snortum.homefinance.model.Budget;
+import net.snortum.homefinance.model.Category;
+import net.snortum.homefinance.model.Entry;
+import net.snortum.homefinance.model.EntryBalance;
+import net.snortum.homefinance.model.EntryIn;
+import net.snortum.homefinance.model.EntryOut;
+import net.snortum.homefinance.model.Money;
+
+/**
+ * Fill a database with a synthetic ledger for load and scale testing. Each
+ * month has an opening balance, two paychecks, rent and a utility bill, and
+ * the rest of the entries are purchases spread over the
+ * {@link #CATEGORIES}, each of which gets a budget. Entries before the last
+ * month are paid and reconciled.
+ * <p>
+ * The same seed, size and dates always give the same ledger. Entries are
+ * written with {@code createAll}, {@value #ENTRIES_PER_TRANSACTION} to a
+ * transaction.
+ *
+ * <pre>
+ * new LedgerGenerator.Builder()
+ *         .seed(42)
+ *         .years(5)
+ *         .entries(1_000_000)
+ *         .build()
+ *         .generate(DbConnection.getSource());
+ * </pre>
+ *
+ * To fill the application's database from the command line:
+ *
+ * <pre>
+ * mvn exec:java -Dexec.mainClass=net.snortum.homefinance.util.LedgerGenerator -Dexec.args="entries [years [seed]]"
+ * </pre>
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class LedgerGenerator {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** The categories generated, the first seven as in a new installation */
+	public static final List<String> CATEGORIES = Collections.unmodifiableList(Arrays.asList(
+			"Miscellaneous",
+			"Housing",
+			"Utilities",
+			"Food",
+			"Automotive",
+			"Medical",
+			"Entertainment",
+			"Clothing",
+			"Insurance",
+			"Household",
+			"Personal Care",
+			"Gifts",
+			"Travel",
+			"Education"));
+
+	/** Entries written in one transaction */
+	public static final int ENTRIES_PER_TRANSACTION = 50_000;
+
+	private static final int HOUSING = 1;
+	private static final int UTILITIES = 2;
+
+	// Typical purchase and monthly budget for each category, in cents
+	private static final long[] TYPICAL_CENTS = {
+			2_000, 150_000, 15_000, 6_000, 4_500, 8_000, 3_500,
+			5_000, 12_000, 2_500, 1_500, 4_000, 30_000, 10_000 };
+	private static final long[] BUDGET_CENTS = {
+			10_000, 150_000, 25_000, 80_000, 30_000, 20_000, 15_000,
+			10_000, 15_000, 10_000, 5_000, 8_000, 40_000, 10_000 };
+
+	private static final String[] PAYEES = {
+			"Corner Store", "Grocery Mart", "Gas Station", "Pharmacy", "Hardware Store",
+			"Restaurant", "Online Order", "Department Store", "Cinema", "Book Shop" };
+
+	private static final long PAYCHECK_CENTS = 250_000;
+	private static final int FIXED_ENTRIES_PER_MONTH = 5;
+
+	private final long seed;
+	private final int years;
+	private final long entries;
+	private final LocalDate lastDate;
+
+	/**
+	 * Build a {@link LedgerGenerator}. The defaults are seed 1, 5 years, 100,000
+	 * entries, ending on the last day of last month.
+	 */
+	public static class Builder {
+		private long seed = 1;
+		private int years = 5;
+		private long entries = 100_000;
+		private LocalDate lastDate = YearMonth.now().minusMonths(1).atEndOfMonth();
+
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		public Builder years(int years) {
+			if (years < 1) {
+				throw new IllegalArgumentException("Years must be at least 1");
+			}
+			this.years = years;
+			return this;
+		}
+
+		/**
+		 * @param entries the total number of entries. There are always at
+		 *            least {@value LedgerGenerator#FIXED_ENTRIES_PER_MONTH} a
+		 *            month, for the balance, paychecks and bills.
+		 * @return this builder
+		 */
+		public Builder entries(long entries) {
+			if (entries < 0) {
+				throw new IllegalArgumentException("Entries must not be negative");
+			}
+			this.entries = entries;
+			return this;
+		}
+
+		public Builder lastDate(LocalDate lastDate) {
+			this.lastDate = lastDate;
+			return this;
+		}
+
+		public LedgerGenerator build() {
+			return new LedgerGenerator(this);
+		}
+	}
+
+	private LedgerGenerator(Builder builder) {
+		seed = builder.seed;
+		years = builder.years;
+		entries = builder.entries;
+		lastDate = builder.lastDate;
+	}
+
+	/**
+	 * @return the first date an entry can have
+	 */
+	public LocalDate getFirstDate() {
+		return YearMonth.from(lastDate).minusMonths(years * 12L - 1).atDay(1);
+	}
+
+	/**
+	 * @return the last date an entry can have
+	 */
+	public LocalDate getLastDate() {
+		return lastDate;
+	}
+
+	/**
+	 * Bring the schema up to date, add any missing categories and budgets,
+	 * then write the entries.
+	 *
+	 * @param connections where to write the ledger
+	 * @return false if anything could not be written. Entries written by
+	 *         earlier transactions are kept.
+	 */
+	public boolean generate(ConnectionSource connections) {
+		long start = System.nanoTime();
+
+		try (ConnectionLease lease = connections.writer()) {
+			if (!DbMigration.migrate(lease.get())) {
+				return false;
+			}
+		} catch (SQLException e) {
+			LOG.error("Could not open the database", e);
+			return false;
+		}
+
+		Optional<List<Category>> categories = createCategories(connections);
+		if (!categories.isPresent()) {
+			return false;
+		}
+
+		long written = createEntries(connections, categories.get());
+		if (written < 0) {
+			return false;
+		}
+
+		if (LOG.isInfoEnabled()) {
+			long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+			LOG.info(String.format("Generated %,d entries from %s to %s in %,d ms (%,d rows/s)",
+					written, getFirstDate(), lastDate, millis, written * 1000 / millis));
+		}
+
+		return true;
+	}
+
+	// Reuse categories that are already there, so a new installation can be
+	// filled too
+	private Optional<List<Category>> createCategories(ConnectionSource connections) {
+		CategoryDao categoryDao = new CategoryDao(connections);
+		BudgetDao budgetDao = new BudgetDao(connections);
+		List<Category> categories = new ArrayList<>();
+		List<Budget> budgets = new ArrayList<>();
+
+		for (int i = 0; i < CATEGORIES.size(); i++) {
+			String description = CATEGORIES.get(i);
+			Optional<Category> category = categoryDao.readByDescription(description);
+
+			if (!category.isPresent()) {
+				category = categoryDao.create(new Category(description));
+				if (!category.isPresent()) {
+					LOG.error("Could not create category " + description);
+					return Optional.empty();
+				}
+			}
+
+			categories.add(category.get());
+
+			if (!budgetDao.readByCategory(category.get()).isPresent()) {
+				budgets.add(new Budget(0, category.get(), Money.ofCents(BUDGET_CENTS[i])));
+			}
+		}
+
+		if (budgets.size() > 0 && budgetDao.createAll(budgets).size() != budgets.size()) {
+			LOG.error("Could not create budgets");
+			return Optional.empty();
+		}
+
+		return Optional.of(categories);
+	}
+
+	// Returns the number of entries written, or -1 on an error
+	private long createEntries(ConnectionSource connections, List<Category> categories) {
+		Random random = new Random(seed);
+		EntryBatch batch = new EntryBatch(connections);
+		YearMonth first = YearMonth.from(getFirstDate());
+		int months = years * 12;
+		long purchases = Math.max(0, entries - (long) months * FIXED_ENTRIES_PER_MONTH);
+		Money balance = Money.ofCents(PAYCHECK_CENTS);
+
+		for (int m = 0; m < months; m++) {
+			YearMonth month = first.plusMonths(m);
+			int lastDay = month.equals(YearMonth.from(lastDate))
+					? lastDate.getDayOfMonth()
+					: month.lengthOfMonth();
+			boolean settled = m < months - 1;
+
+			batch.add(new EntryBalance.Builder()
+					.description("Opening balance")
+					.amount(balance)
+					.date(month.atDay(1))
+					.paid(true)
+					.reconciled(settled)
+					.build());
+
+			Money spent = batch.addBill(month.atDay(1), "Rent",
+					Money.ofCents(TYPICAL_CENTS[HOUSING]), categories.get(HOUSING), settled);
+			spent = spent.plus(batch.addBill(month.atDay(Math.min(10, lastDay)), "Electric and water",
+					Money.ofCents(TYPICAL_CENTS[UTILITIES] / 2 + random.nextInt((int) TYPICAL_CENTS[UTILITIES])),
+					categories.get(UTILITIES), settled));
+
+			// Spread the purchases evenly, the remainder over the first months
+			long count = purchases / months + (m < purchases % months ? 1 : 0);
+
+			for (long i = 0; i < count; i++) {
+				int c = random.nextInt(categories.size());
+				Money amount = Money.ofCents(TYPICAL_CENTS[c] / 4
+						+ (long) (random.nextDouble() * TYPICAL_CENTS[c] * 1.5));
+				spent = spent.plus(amount);
+				batch.add(new EntryOut.Builder()
+						.description(PAYEES[random.nextInt(PAYEES.length)])
+						.amount(amount)
+						.date(month.atDay(1 + random.nextInt(lastDay)))
+						.paid(settled || random.nextBoolean())
+						.reconciled(settled)
+						.category(Optional.of(categories.get(c)))
+						.build());
+			}
+
+			// Paychecks cover the month's spending, so the balance never goes
+			// below zero however many purchases there are
+			long payCents = Math.max(PAYCHECK_CENTS, (spent.getCents() + 1) / 2);
+			for (int day : new int[] { 1, Math.min(15, lastDay) }) {
+				Money pay = Money.ofCents(payCents + random.nextInt(5_000));
+				balance = balance.plus(pay);
+				batch.add(new EntryIn.Builder()
+						.description("Paycheck")
+						.recurring(true)
+						.amount(pay)
+						.date(month.atDay(day))
+						.paid(true)
+						.reconciled(settled)
+						.build());
+			}
+			balance = balance.minus(spent);
+
+			if (!batch.flushIfFull()) {
+				return -1;
+			}
+		}
+
+		return batch.flush() ? batch.getWritten() : -1;
+	}
+
+	// Entries waiting to be written, by type
+	private static class EntryBatch {
+		private final EntryInDao inDao;
+		private final EntryOutDao outDao;
+		private final EntryBalanceDao balanceDao;
+		private final List<Entry> in = new ArrayList<>();
+		private final List<Entry> out = new ArrayList<>();
+		private final List<Entry> balances = new ArrayList<>();
+		private long written = 0;
+
+		EntryBatch(ConnectionSource connections) {
+			inDao = new EntryInDao(connections);
+			outDao = new EntryOutDao(connections);
+			balanceDao = new EntryBalanceDao(connections);
+		}
+
+		void add(Entry entry) {
+			switch (entry.getType()) {
+			case IN:
+				in.add(entry);
+				break;
+			case OUT:
+				out.add(entry);
+				break;
+			default:
+				balances.add(entry);
+			}
+		}
+
+		Money addBill(LocalDate date, String description, Money amount, Category category,
+				boolean settled) {
+			add(new EntryOut.Builder()
+					.description(description)
+					.recurring(true)
+					.amount(amount)
+					.date(date)
+					.paid(true)
+					.reconciled(settled)
+					.category(Optional.of(category))
+					.build());
+			return amount;
+		}
+
+		boolean flushIfFull() {
+			return in.size() + out.size() + balances.size() < ENTRIES_PER_TRANSACTION || flush();
+		}
+
+		boolean flush() {
+			return write(inDao, in) && write(outDao, out) && write(balanceDao, balances);
+		}
+
+		long getWritten() {
+			return written;
+		}
+
+		private boolean write(GenericDao<Entry, Integer> dao, List<Entry> entries) {
+			if (entries.isEmpty()) {
+				return true;
+			}
+
+			if (dao.createAll(entries).size() != entries.size()) {
+				LOG.error("Could not write " + entries.size() + " entries");
+				return false;
+			}
+
+			written += entries.size();
+			entries.clear();
+			return true;
+		}
+	}
+
+	/**
+	 * Fill {@value DbConnection#DB} with a generated ledger.
+	 *
+	 * @param args the number of entries, then optionally the number of years
+	 *            and the seed
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: LedgerGenerator entries [years [seed]]");
+			System.exit(2);
+		}
+
+		LedgerGenerator.Builder builder = new LedgerGenerator.Builder()
+				.entries(Long.parseLong(args[0]));
+		if (args.length > 1) {
+			builder.years(Integer.parseInt(args[1]));
+		}
+		if (args.length > 2) {
+			builder.seed(Long.parseLong(args[2]));
+		}
+
+		boolean generated = builder.build().generate(DbConnection.getSource());
+		DbConnection.close();
+		System.exit(generated ? 0 : 1);
+	}
+}
@@ -0,0 +1,353 @@
+package net.snortum.homefinance.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Counters, timers and histograms for the hot paths: DAO calls, validation and
+ * controller actions. Metrics are registered by name and kept in static
+ * fields where they are used:
+ *
+ * <pre>
+ * private static final Metrics.Timer SAVE_TIMER = Metrics.timer("ui.saveDeposit");
+ * ...
+ * long start = SAVE_TIMER.start();
+ * try {
+ *     ...
+ * } finally {
+ *     SAVE_TIMER.stop(start);
+ * }
+ * </pre>
+ *
+ * Metrics are off unless {@code -Dhomefinance.metrics=true} is set. When off,
+ * every method returns at once without reading the clock or touching shared
+ * state. When on, {@link #start()} appends a snapshot of all metrics to
+ * {@value #DEFAULT_FILE} (or {@code -Dhomefinance.metrics.file}) every
+ * {@value #DEFAULT_SECONDS} seconds (or {@code -Dhomefinance.metrics.seconds}),
+ * and {@link #shutdown()} appends a last one.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public final class Metrics {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** The system property that turns metrics on */
+	public static final String ENABLE_PROPERTY = "homefinance.metrics";
+
+	/** The system property for the snapshot file */
+	public static final String FILE_PROPERTY = "homefinance.metrics.file";
+
+	/** The system property for the seconds between snapshots */
+	public static final String SECONDS_PROPERTY = "homefinance.metrics.seconds";
+
+	/** The default snapshot file */
+	public static final String DEFAULT_FILE = "metrics.txt";
+
+	/** The default seconds between snapshots */
+	public static final long DEFAULT_SECONDS = 60;
+
+	private static final boolean ENABLED = Boolean.getBoolean(ENABLE_PROPERTY);
+	private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+	private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, Timer> TIMERS = new ConcurrentHashMap<>();
+
+	// Handed out when metrics are off, so nothing is registered
+	private static final Counter NO_COUNTER = new Counter();
+	private static final Histogram NO_HISTOGRAM = new Histogram();
+	private static final Timer NO_TIMER = new Timer();
+
+	private static ScheduledExecutorService scheduler;
+
+	private Metrics() {
+	}
+
+	/**
+	 * @return true if metrics are being recorded
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * @param name the metric name, such as "dao.category.read"
+	 * @return the counter with this name, created the first time
+	 */
+	public static Counter counter(String name) {
+		return ENABLED ? COUNTERS.computeIfAbsent(name, key -> new Counter()) : NO_COUNTER;
+	}
+
+	/**
+	 * @param name the metric name
+	 * @return the histogram with this name, created the first time
+	 */
+	public static Histogram histogram(String name) {
+		return ENABLED ? HISTOGRAMS.computeIfAbsent(name, key -> new Histogram()) : NO_HISTOGRAM;
+	}
+
+	/**
+	 * @param name the metric name
+	 * @return the timer with this name, created the first time
+	 */
+	public static Timer timer(String name) {
+		return ENABLED ? TIMERS.computeIfAbsent(name, key -> new Timer()) : NO_TIMER;
+	}
+
+	/**
+	 * Start writing snapshots on a schedule, if metrics are on.
+	 */
+	public static synchronized void start() {
+		if (!ENABLED || scheduler != null) {
+			return;
+		}
+
+		long seconds = Long.getLong(SECONDS_PROPERTY, DEFAULT_SECONDS);
+		scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "metrics-dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleAtFixedRate(Metrics::dump, seconds, seconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stop the schedule and write a last snapshot, if metrics are on.
+	 */
+	public static synchronized void shutdown() {
+		if (!ENABLED) {
+			return;
+		}
+
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+
+		dump();
+	}
+
+	/**
+	 * Append a snapshot of all metrics to the snapshot file.
+	 */
+	public static void dump() {
+		String file = System.getProperty(FILE_PROPERTY, DEFAULT_FILE);
+
+		try {
+			Files.write(Paths.get(file), snapshot().getBytes(StandardCharsets.UTF_8),
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			LOG.error("Could not write metrics to " + file, e);
+		}
+	}
+
+	/**
+	 * @return one line for each metric, sorted by name, under a time stamp.
+	 *         Times are in microseconds.
+	 */
+	public static String snapshot() {
+		Map<String, String> lines = new TreeMap<>();
+		COUNTERS.forEach((name, counter) -> lines.put(name, "counter   " + name + " " + counter));
+		HISTOGRAMS.forEach((name, histogram) -> lines.put(name, "histogram " + name + " " + histogram));
+		TIMERS.forEach((name, timer) -> lines.put(name, "timer     " + name + " " + timer));
+
+		StringBuilder snapshot = new StringBuilder("# ")
+				.append(LocalDateTime.now().format(TIME_FORMATTER))
+				.append(" (times in microseconds)")
+				.append(System.lineSeparator());
+		lines.values().forEach(line -> snapshot.append(line).append(System.lineSeparator()));
+		return snapshot.toString();
+	}
+
+	/**
+	 * A count of events.
+	 */
+	public static final class Counter {
+		private final LongAdder count = new LongAdder();
+
+		private Counter() {
+		}
+
+		public void increment() {
+			if (ENABLED) {
+				count.increment();
+			}
+		}
+
+		public void add(long amount) {
+			if (ENABLED) {
+				count.add(amount);
+			}
+		}
+
+		public long get() {
+			return count.sum();
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + get();
+		}
+	}
+
+	/**
+	 * A distribution of non-negative values. Values are counted in buckets
+	 * that are a quarter of a power of two wide, so percentiles are within
+	 * about 25% of the true value, at a fixed cost in memory.
+	 */
+	public static final class Histogram {
+		private static final int SUB_BUCKET_BITS = 2;
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+		private static final int BUCKETS = (Long.SIZE + 1) * SUB_BUCKETS;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder total = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		private Histogram() {
+		}
+
+		/**
+		 * @param value the value to add; negative values count as zero
+		 */
+		public void record(long value) {
+			if (!ENABLED) {
+				return;
+			}
+
+			long v = Math.max(0, value);
+			buckets.incrementAndGet(bucket(v));
+			count.increment();
+			total.add(v);
+			max.accumulate(v);
+		}
+
+		public long getCount() {
+			return count.sum();
+		}
+
+		public long getTotal() {
+			return total.sum();
+		}
+
+		public long getMax() {
+			return max.get();
+		}
+
+		/**
+		 * @param fraction a fraction from 0 to 1, such as 0.99
+		 * @return the upper bound of the bucket holding that fraction of the
+		 *         values, or 0 if there are none
+		 */
+		public long getPercentile(double fraction) {
+			long wanted = (long) Math.ceil(fraction * getCount());
+			long seen = 0;
+
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += buckets.get(i);
+				if (seen >= Math.max(1, wanted)) {
+					return Math.min(upperBound(i), getMax());
+				}
+			}
+
+			return getMax();
+		}
+
+		@Override
+		public String toString() {
+			long n = getCount();
+			return String.format("count=%d mean=%d p50=%d p95=%d p99=%d max=%d",
+					n, n == 0 ? 0 : getTotal() / n, getPercentile(0.50), getPercentile(0.95),
+					getPercentile(0.99), getMax());
+		}
+
+		// The power of two, then the next SUB_BUCKET_BITS bits below it
+		private static int bucket(long v) {
+			if (v < SUB_BUCKETS) {
+				return (int) v;
+			}
+
+			int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(v);
+			int sub = (int) (v >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+			return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+		}
+
+		private static long upperBound(int bucket) {
+			if (bucket < SUB_BUCKETS) {
+				return bucket;
+			}
+
+			int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+			long sub = bucket % SUB_BUCKETS;
+			long width = 1L << (exponent - SUB_BUCKET_BITS);
+			return (1L << exponent) + (sub + 1) * width - 1;
+		}
+	}
+
+	/**
+	 * How long something takes, as a histogram in nanoseconds, shown in
+	 * microseconds.
+	 */
+	public static final class Timer {
+		private final Histogram nanos = new Histogram();
+
+		private Timer() {
+		}
+
+		/**
+		 * @return the start time to pass to {@link #stop(long)}
+		 */
+		public long start() {
+			return ENABLED ? System.nanoTime() : 0;
+		}
+
+		/**
+		 * @param start the value {@link #start()} returned
+		 */
+		public void stop(long start) {
+			if (ENABLED) {
+				nanos.record(System.nanoTime() - start);
+			}
+		}
+
+		/**
+		 * @return the times, in nanoseconds
+		 */
+		public Histogram getHistogram() {
+			return nanos;
+		}
+
+		@Override
+		public String toString() {
+			long n = nanos.getCount();
+			return String.format("count=%d mean=%d p50=%d p95=%d p99=%d max=%d",
+					n, n == 0 ? 0 : micros(nanos.getTotal() / n), micros(nanos.getPercentile(0.50)),
+					micros(nanos.getPercentile(0.95)), micros(nanos.getPercentile(0.99)),
+					micros(nanos.getMax()));
+		}
+
+		private static long micros(long nanos) {
+			return TimeUnit.NANOSECONDS.toMicros(nanos);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package net.snortum.homefinance.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A {@link ConnectionSource} that hands out one connection for both reading
+ * and writing, to one thread at a time. A thread may borrow it again before
+ * giving it back. The connection is held with a semaphore rather than a lock,
+ * so a lease can be given back from another thread, as when a stream is
+ * closed elsewhere.
+ * 
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+final class SingleConnectionSource implements ConnectionSource {
+	private static final Logger LOG = LogManager.getLogger();
+	
+	private static final Map<Connection, SingleConnectionSource> SOURCES = new IdentityHashMap<>();
+	
+	private final Connection connection;
+	private final Semaphore permit = new Semaphore(1, true);
+	private Thread owner;
+	private int holds = 0;
+	
+	private SingleConnectionSource(Connection connection) {
+		this.connection = connection;
+	}
+	
+	static SingleConnectionSource of(Connection con) {
+		synchronized (SOURCES) {
+			forgetClosed();
+			SingleConnectionSource source = SOURCES.get(con);
+			if (source == null) {
+				source = new SingleConnectionSource(con);
+				SOURCES.put(con, source);
+			}
+			return source;
+		}
+	}
+
+	@Override
+	public ConnectionLease reader() throws SQLException {
+		acquire();
+		return new ConnectionLease(connection, this::release);
+	}
+
+	@Override
+	public ConnectionLease writer() throws SQLException {
+		acquire();
+		return new ConnectionLease(connection, this::releaseWriter);
+	}
+	
+	private void acquire() throws SQLException {
+		synchronized (this) {
+			if (owner == Thread.currentThread()) {
+				holds++;
+				return;
+			}
+		}
+
+		try {
+			if (!permit.tryAcquire(ConnectionPool.ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				throw new SQLException("Timed out waiting for the connection");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted waiting for the connection", e);
+		}
+
+		synchronized (this) {
+			owner = Thread.currentThread();
+			holds = 1;
+		}
+	}
+	
+	private synchronized void release() {
+		if (--holds == 0) {
+			owner = null;
+			permit.release();
+		}
+	}
+	
+	private void releaseWriter() {
+		ConnectionLease.endTransaction(connection);
+		release();
+	}
+	
+	private static void forgetClosed() {
+		Iterator<Connection> it = SOURCES.keySet().iterator();
+		while (it.hasNext()) {
+			try {
+				if (it.next().isClosed()) {
+					it.remove();
+				}
+			} catch (SQLException e) {
+				LOG.error("Error checking connection", e);
+				it.remove();
+			}
+		}
+	}
+}
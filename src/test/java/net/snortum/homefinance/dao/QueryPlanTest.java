@@ -0,0 +1,104 @@
+package net.snortum.homefinance.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.snortum.homefinance.util.DbMigration;
+
+/**
+ * Checks with {@code EXPLAIN QUERY PLAN} that the hot queries use the indexes
+ * the migrations create, and never read the whole entry table.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class QueryPlanTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Connection con;
+
+	@Before
+	public void migrate() throws Exception {
+		File db = folder.newFile("plan.db");
+		con = DriverManager.getConnection("jdbc:sqlite:" + db);
+		assertTrue(DbMigration.migrate(con));
+	}
+
+	@After
+	public void close() throws SQLException {
+		con.close();
+	}
+
+	@Test
+	public void listSearchesByTypeAndDate() throws SQLException {
+		List<String> plan = plan(AbstractEntryDao.LIST_SQL);
+		assertNoEntryScan(plan);
+		assertUses(plan, "INDEX entry_type_date");
+	}
+
+	@Test
+	public void pageSeeksByTypeAndDate() throws SQLException {
+		List<String> plan = plan(AbstractEntryDao.PAGE_SQL);
+		assertNoEntryScan(plan);
+		assertUses(plan, "INDEX entry_type_date");
+		assertNoTempTree(plan);
+	}
+
+	// Every budget is listed, so budget is read once as the outer loop; the
+	// entries of each are found in the covering category index
+	@Test
+	public void actualsSearchEntriesByCategory() throws SQLException {
+		List<String> plan = plan(BudgetDao.ACTUALS_SQL);
+		assertNoEntryScan(plan);
+		assertUses(plan, "COVERING INDEX entry_category");
+		assertEquals("SCAN b", plan.get(0));
+		assertEquals(1, plan.stream().filter(step -> step.matches("SCAN b\\b.*")).count());
+		assertNoTempTree(plan);
+	}
+
+	private List<String> plan(String sql) throws SQLException {
+		List<String> steps = new ArrayList<>();
+		try (PreparedStatement stmnt = con.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+				ResultSet rs = stmnt.executeQuery()) {
+			while (rs.next()) {
+				steps.add(rs.getString("detail"));
+			}
+		}
+		assertFalse("No plan for " + sql, steps.isEmpty());
+		return steps;
+	}
+
+	// The queries name the entry table "e"
+	private static void assertNoEntryScan(List<String> plan) {
+		assertTrue("Scans the entry table: " + plan,
+				plan.stream().noneMatch(step -> step.matches("SCAN (e|entry)\\b.*")));
+	}
+
+	private static void assertUses(List<String> plan, String index) {
+		assertTrue("Index " + index + " not used: " + plan,
+				plan.stream().anyMatch(step -> step.contains("USING " + index)));
+	}
+
+	private static void assertNoTempTree(List<String> plan) {
+		assertTrue("Sorts in a temporary b-tree: " + plan,
+				plan.stream().noneMatch(step -> step.contains("TEMP B-TREE")));
+	}
+}
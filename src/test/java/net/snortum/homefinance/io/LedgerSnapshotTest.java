@@ -0,0 +1,232 @@
+package net.snortum.homefinance.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.snortum.homefinance.dao.BudgetRow;
+import net.snortum.homefinance.dao.CategoryRow;
+import net.snortum.homefinance.dao.EntryRow;
+import net.snortum.homefinance.dao.LedgerDao;
+import net.snortum.homefinance.util.ConnectionSource;
+import net.snortum.homefinance.util.DbMigration;
+
+/**
+ * Saves a ledger to a snapshot, restores it into another database and checks
+ * that every row comes back as it was, and that a restore that fails leaves
+ * the ledger it was restoring into untouched.
+ *
+ * @author Knute Snortum
+ * @version 2026-10-18
+ */
+public class LedgerSnapshotTest {
+
+	private static final String CATEGORY_SQL = "INSERT INTO category (id, description) VALUES (?, ?)";
+	private static final String BUDGET_SQL =
+			"INSERT INTO budget (id, category_id, budget_amt, actual_amt) VALUES (?, ?, ?, ?)";
+	private static final String ENTRY_SQL =
+			"INSERT INTO entry (id, description, type, flags, amount, comment, url, date, category_id) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Connection source;
+	private Connection target;
+	private Path snapshot;
+
+	@Before
+	public void open() throws Exception {
+		source = database("source.db");
+		target = database("target.db");
+		snapshot = folder.getRoot().toPath().resolve("ledger.snapshot");
+
+		// Rows a restore must replace, or leave alone when it fails
+		category(target, 7, "Old");
+		entry(target, 3, "Old entry", 1, 0, 100, null, null, 18_000, 7);
+	}
+
+	@After
+	public void close() throws SQLException {
+		source.close();
+		target.close();
+	}
+
+	@Test
+	public void restoresEveryRowAsItWas() throws Exception {
+		category(source, 1, "Food");
+		category(source, 2, "");
+		category(source, 5, "Fun");
+		budget(source, 1, 1, 50_000, -1_250);
+		budget(source, 4, -1, 0, 0);
+
+		// Dates before 1970 and out of order, no category, empty and null text
+		entry(source, 1, "Groceries", 2, 2, 4_599, "weekly", "http://example.com/a", 19_000, 1);
+		entry(source, 2, "", 1, 0, 0, "", "", -5_000, -1);
+		entry(source, 5, null, 3, 7, 123_456_789, null, null, 0, 2);
+		entry(source, 6, "Groceries", 2, 1, 1, "weekly", null, -1, 1);
+		entry(source, 100, "Café ☕", 1, 4, 250, "naïve", "http://example.com/b", 25_000, 5);
+
+		roundTrip(new LedgerSnapshot.Builder().batchSize(2).build());
+	}
+
+	@Test
+	public void restoresMoreStringsThanTheDictionaryHolds() throws Exception {
+		int count = LedgerSnapshot.MAX_DICTIONARY + 100;
+
+		source.setAutoCommit(false);
+		try (PreparedStatement stmnt = source.prepareStatement(ENTRY_SQL)) {
+			for (int id = 1; id <= count; id++) {
+
+				// Repeat early strings after the dictionary is full
+				String description = "Entry " + (id > LedgerSnapshot.MAX_DICTIONARY ? id % 50 : id);
+				bindEntry(stmnt, id, description, 2, 0, id, "Note " + id % 3, null, id % 7 - 3, -1);
+				stmnt.addBatch();
+			}
+			stmnt.executeBatch();
+		}
+		source.commit();
+		source.setAutoCommit(true);
+
+		roundTrip(new LedgerSnapshot.Builder().build());
+	}
+
+	@Test
+	public void damagedChecksumLeavesTheLedgerUntouched() throws Exception {
+		category(source, 1, "Food");
+		entry(source, 1, "Groceries", 2, 2, 4_599, null, null, 19_000, 1);
+		LedgerSnapshot ledgerSnapshot = new LedgerSnapshot.Builder().batchSize(1).build();
+		assertTrue(ledgerSnapshot.save(snapshot, ConnectionSource.of(source)).isPresent());
+
+		byte[] bytes = Files.readAllBytes(snapshot);
+		bytes[bytes.length - 1] ^= 1;
+		Files.write(snapshot, bytes);
+
+		List<Object> before = rows(target);
+		assertFalse(ledgerSnapshot.restore(snapshot, ConnectionSource.of(target)).isPresent());
+		assertEquals(before, rows(target));
+	}
+
+	@Test
+	public void failedWriteLeavesTheLedgerUntouched() throws Exception {
+
+		// The schema does not allow negative amounts, so the last batch fails
+		Connection loose = DriverManager.getConnection(
+				"jdbc:sqlite:" + folder.newFile("loose.db"));
+		try (Statement stmnt = loose.createStatement()) {
+			stmnt.executeUpdate("CREATE TABLE category (id INTEGER PRIMARY KEY, description TEXT)");
+			stmnt.executeUpdate("CREATE TABLE budget (id INTEGER PRIMARY KEY, category_id INTEGER, "
+					+ "budget_amt INTEGER, actual_amt INTEGER)");
+			stmnt.executeUpdate("CREATE TABLE entry (id INTEGER PRIMARY KEY, description TEXT, "
+					+ "type INTEGER, flags INTEGER, amount INTEGER, comment TEXT, url TEXT, "
+					+ "date INTEGER, category_id INTEGER)");
+		}
+		category(loose, 1, "Food");
+		for (int id = 1; id <= 5; id++) {
+			entry(loose, id, "Entry " + id, 2, 0, id == 5 ? -1 : id, null, null, id, 1);
+		}
+
+		LedgerSnapshot ledgerSnapshot = new LedgerSnapshot.Builder().batchSize(2).build();
+		try {
+			assertTrue(ledgerSnapshot.save(snapshot, ConnectionSource.of(loose)).isPresent());
+		} finally {
+			loose.close();
+		}
+
+		List<Object> before = rows(target);
+		assertFalse(ledgerSnapshot.restore(snapshot, ConnectionSource.of(target)).isPresent());
+		assertEquals(before, rows(target));
+	}
+
+	private void roundTrip(LedgerSnapshot ledgerSnapshot) throws SQLException {
+		List<Object> saved = rows(source);
+		assertTrue(ledgerSnapshot.save(snapshot, ConnectionSource.of(source)).isPresent());
+
+		Optional<ImportResult> result = ledgerSnapshot.restore(snapshot, ConnectionSource.of(target));
+		assertTrue(result.isPresent());
+		assertEquals(saved.size(), result.get().getImported());
+		assertEquals(saved, rows(target));
+		assertTrue(ledgerSnapshot.verify(snapshot, ConnectionSource.of(target)));
+	}
+
+	private Connection database(String name) throws Exception {
+		File db = folder.newFile(name);
+		Connection con = DriverManager.getConnection("jdbc:sqlite:" + db);
+		assertTrue(DbMigration.migrate(con));
+		return con;
+	}
+
+	// Every row of the ledger, copied, since a scan fills the same row again
+	private static List<Object> rows(Connection con) {
+		List<Object> rows = new ArrayList<>();
+		LedgerDao ledger = new LedgerDao(con);
+		assertTrue(ledger.scanCategories(
+				row -> rows.add(new CategoryRow(row.getId(), row.getDescription()))));
+		assertTrue(ledger.scanBudgets(row -> rows.add(new BudgetRow(row.getId(),
+				row.getCategoryId(), row.getBudgetAmount(), row.getActualAmount()))));
+		assertTrue(ledger.scanEntries(row -> rows.add(new EntryRow(row.getId(),
+				row.getDescription(), row.getType(), row.getFlags(), row.getAmount(),
+				row.getComment(), row.getUrl(), row.getDate(), row.getCategoryId()))));
+		return rows;
+	}
+
+	private static void category(Connection con, int id, String description) throws SQLException {
+		try (PreparedStatement stmnt = con.prepareStatement(CATEGORY_SQL)) {
+			stmnt.setInt(1, id);
+			stmnt.setString(2, description);
+			stmnt.executeUpdate();
+		}
+	}
+
+	private static void budget(Connection con, int id, int categoryId, long budgetAmount,
+			long actualAmount) throws SQLException {
+		try (PreparedStatement stmnt = con.prepareStatement(BUDGET_SQL)) {
+			stmnt.setInt(1, id);
+			stmnt.setInt(2, categoryId);
+			stmnt.setLong(3, budgetAmount);
+			stmnt.setLong(4, actualAmount);
+			stmnt.executeUpdate();
+		}
+	}
+
+	private static void entry(Connection con, int id, String description, int type, int flags,
+			long amount, String comment, String url, long date, int categoryId)
+			throws SQLException {
+		try (PreparedStatement stmnt = con.prepareStatement(ENTRY_SQL)) {
+			bindEntry(stmnt, id, description, type, flags, amount, comment, url, date, categoryId);
+			stmnt.executeUpdate();
+		}
+	}
+
+	private static void bindEntry(PreparedStatement stmnt, int id, String description, int type,
+			int flags, long amount, String comment, String url, long date, int categoryId)
+			throws SQLException {
+		stmnt.setInt(1, id);
+		stmnt.setString(2, description);
+		stmnt.setInt(3, type);
+		stmnt.setInt(4, flags);
+		stmnt.setLong(5, amount);
+		stmnt.setString(6, comment);
+		stmnt.setString(7, url);
+		stmnt.setLong(8, date);
+		stmnt.setInt(9, categoryId);
+	}
+}